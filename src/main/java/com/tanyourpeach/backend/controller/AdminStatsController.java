@@ -1,16 +1,14 @@
 package com.tanyourpeach.backend.controller;
 
-import com.tanyourpeach.backend.repository.UserRepository;
-import com.tanyourpeach.backend.model.User;
 import com.tanyourpeach.backend.service.AdminStatsService;
-import com.tanyourpeach.backend.service.JwtService;
-
-import jakarta.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/admin/stats")
@@ -20,57 +18,56 @@ public class AdminStatsController {
     @Autowired
     private AdminStatsService adminStatsService;
 
-    @Autowired
-    private JwtService jwtService;
-
-    @Autowired
-    private UserRepository userRepository;
-
-    // This method checks if the user is an admin based on the JWT token in the request header.
-    private boolean isAdmin(HttpServletRequest request) {
-        try {
-            String token = request.getHeader("Authorization").substring(7);
-            String email = jwtService.extractUsername(token);
-            User user = userRepository.findByEmail(email).orElseThrow();
-            return user.getIsAdmin() != null && user.getIsAdmin();
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
     // Endpoints for admin statistics
     @GetMapping("/summary")
-    public ResponseEntity<?> getSummary(HttpServletRequest request) {
-        if (!isAdmin(request)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
-        }
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getSummary() {
         return ResponseEntity.ok(adminStatsService.getDashboardSummary());
     }
 
-    // Endpoint to get the last four months of statistics
+    // Endpoint to get the last `months` complete months of statistics (default four)
     @GetMapping("/monthly")
-    public ResponseEntity<?> getMonthlyStats(HttpServletRequest request) {
-        if (!isAdmin(request)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
-        }
-        return ResponseEntity.ok(adminStatsService.getLastFourMonthsStats());
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getMonthlyStats(@RequestParam(defaultValue = "4") int months) {
+        return ResponseEntity.ok(adminStatsService.getMonthlyStats(months));
     }
 
     // Endpoint to get the last four weeks of statistics
     @GetMapping("/upcoming")
-    public ResponseEntity<?> getUpcomingAppointments(HttpServletRequest request) {
-        if (!isAdmin(request)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
-        }
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getUpcomingAppointments() {
         return ResponseEntity.ok(adminStatsService.getUpcomingAppointments());
     }
 
+    // Endpoint to get the open-slot cache hit/miss metrics
+    @GetMapping("/slot-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getSlotCacheStats() {
+        return ResponseEntity.ok(adminStatsService.getOpenSlotCacheStats());
+    }
+
     // Endpoint to get low stock items
     @GetMapping("/low-stock")
-    public ResponseEntity<?> getLowStockItems(HttpServletRequest request) {
-        if (!isAdmin(request)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
-        }
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getLowStockItems() {
         return ResponseEntity.ok(adminStatsService.getLowStockInventory());
     }
-}
\ No newline at end of file
+
+    // Endpoint to stream low stock alerts as items cross their threshold (Server-Sent Events)
+    @GetMapping(value = "/low-stock/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> streamLowStockAlerts() {
+        SseEmitter emitter = adminStatsService.subscribeToStockAlerts();
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    // Endpoint to recompute the running financial totals from the raw log; reports drift and repairs it unless dryRun
+    @PostMapping("/totals/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildFinancialTotals(@RequestParam(defaultValue = "false") boolean dryRun) {
+        return ResponseEntity.ok(adminStatsService.checkFinancialTotals(dryRun));
+    }
+}
@@ -1,22 +1,20 @@
 package com.tanyourpeach.backend.controller;
 
+import com.tanyourpeach.backend.dto.AuthenticatedUser;
 import com.tanyourpeach.backend.model.Appointment;
-import com.tanyourpeach.backend.model.User;
-import com.tanyourpeach.backend.repository.UserRepository;
 import com.tanyourpeach.backend.service.AppointmentService;
-import com.tanyourpeach.backend.service.JwtService;
+import com.tanyourpeach.backend.service.SlotHoldService;
 
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/appointments")
@@ -26,100 +24,79 @@ public class AppointmentController {
     @Autowired
     private AppointmentService appointmentService;
 
-    @Autowired
-    private JwtService jwtService;
-
-    @Autowired
-    private UserRepository userRepository;
-
-    // Helper method to check if the user is an admin
-    private boolean isAdmin(HttpServletRequest request) {
-        try {
-            String token = request.getHeader("Authorization").substring(7);
-            String email = jwtService.extractUsername(token);
-            User user = userRepository.findByEmail(email).orElseThrow();
-            return user.getIsAdmin() != null && user.getIsAdmin();
-        } catch (Exception e) {
-            return false;
-        }
+    // The caller owns the appointment or is an admin
+    private boolean isOwnerOrAdmin(Appointment appointment, AuthenticatedUser user) {
+        if (user == null) return false;
+        return user.isAdmin() || (appointment.getClientEmail() != null && appointment.getClientEmail().equals(user.getEmail()));
     }
 
-    // Helper method to get the email of the user from the JWT token
-    private String getUserEmail(HttpServletRequest request) {
-        try {
-            String token = request.getHeader("Authorization").substring(7);
-            return jwtService.extractUsername(token);
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
-    // GET all appointments (admin only)
+    // GET all appointments, one keyset page at a time (admin only)
     @GetMapping
-    public ResponseEntity<?> getAllAppointments(HttpServletRequest request) {
-        if (!isAdmin(request)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
-        }
-        return ResponseEntity.ok(appointmentService.getAllAppointments());
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getAllAppointments(@RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = AppointmentService.DEFAULT_PAGE_SIZE) int size) {
+        return appointmentService.getAppointmentsPage(cursor, size)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.badRequest().body("Invalid cursor"));
     }
 
     // GET appointment by ID (user must own it or be admin)
     @GetMapping("/{id}")
-    public ResponseEntity<?> getAppointmentById(@PathVariable Long id, HttpServletRequest request) {
+    public ResponseEntity<?> getAppointmentById(@PathVariable Long id, @AuthenticationPrincipal AuthenticatedUser user) {
         Optional<Appointment> appointment = appointmentService.getAppointmentById(id);
         if (appointment.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        String email = getUserEmail(request);
-        String ownerEmail = appointment.get().getClientEmail();
-
-        if (ownerEmail != null && ownerEmail.equals(email)) {
-            return ResponseEntity.ok(appointment.get());
-        }
-
-        if (isAdmin(request)) {
+        if (isOwnerOrAdmin(appointment.get(), user)) {
             return ResponseEntity.ok(appointment.get());
         }
 
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
     }
 
-    // GET all appointments for logged-in user
+    // GET appointments for logged-in user, newest first, one page at a time
     @GetMapping("/my-appointments")
-    public ResponseEntity<?> getUserAppointments(HttpServletRequest request) {
-        String email = getUserEmail(request);
-        if (email == null) {
+    public ResponseEntity<?> getUserAppointments(@RequestParam(defaultValue = "0") int page,
+                                                 @RequestParam(defaultValue = AppointmentService.DEFAULT_PAGE_SIZE) int size,
+                                                 @AuthenticationPrincipal AuthenticatedUser user) {
+        if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
         }
 
-        List<Appointment> userAppointments = appointmentService.getAllAppointments().stream()
-                .filter(a -> a.getClientEmail() != null && a.getClientEmail().equals(email))
-                .collect(Collectors.toList());
+        return ResponseEntity.ok(appointmentService.getAppointmentsByClientEmail(user.getEmail(), page, size));
+    }
 
-        return ResponseEntity.ok(userAppointments);
+    // GET appointments linked to a registered user, newest first (admin only)
+    @GetMapping("/user/{userId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getAppointmentsByUser(@PathVariable Long userId,
+                                                   @RequestParam(defaultValue = "0") int page,
+                                                   @RequestParam(defaultValue = AppointmentService.DEFAULT_PAGE_SIZE) int size) {
+        return ResponseEntity.ok(appointmentService.getAppointmentsByUserId(userId, page, size));
     }
 
     // POST create appointment (open to anonymous or logged-in)
     @PostMapping
-    public ResponseEntity<Appointment> createAppointment(@Valid @RequestBody Appointment appointment, HttpServletRequest request) {
-        Optional<Appointment> created = appointmentService.createAppointment(appointment, request);
+    public ResponseEntity<Appointment> createAppointment(@Valid @RequestBody Appointment appointment,
+                                                         @AuthenticationPrincipal AuthenticatedUser user,
+                                                         @RequestHeader(value = SlotHoldService.HOLD_TOKEN_HEADER, required = false) String holdToken) {
+        Optional<Appointment> created = appointmentService.createAppointment(appointment, user, holdToken);
         return created.map(ResponseEntity::ok).orElse(ResponseEntity.badRequest().build());
     }
 
     // PUT update appointment (admins or user that owns it)
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateAppointment(@PathVariable Long id, @Valid @RequestBody Appointment updated, HttpServletRequest request) {
+    public ResponseEntity<?> updateAppointment(@PathVariable Long id, @Valid @RequestBody Appointment updated,
+                                               @AuthenticationPrincipal AuthenticatedUser user,
+                                               @RequestHeader(value = SlotHoldService.HOLD_TOKEN_HEADER, required = false) String holdToken) {
         Optional<Appointment> existing = appointmentService.getAppointmentById(id);
         if (existing.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        String email = getUserEmail(request);
-        String ownerEmail = existing.get().getClientEmail();
-
-        if (isAdmin(request) || (ownerEmail != null && ownerEmail.equals(email))) {
-            return appointmentService.updateAppointment(id, updated, request)
+        if (isOwnerOrAdmin(existing.get(), user)) {
+            return appointmentService.updateAppointment(id, updated, user, holdToken)
                     .map(ResponseEntity::ok)
                     .orElse(ResponseEntity.badRequest().build());
         }
@@ -129,11 +106,8 @@ public class AppointmentController {
 
     // DELETE appointment (admin only)
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteAppointment(@PathVariable Long id, HttpServletRequest request) {
-        if (!isAdmin(request)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
-        }
-
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> deleteAppointment(@PathVariable Long id) {
         return appointmentService.deleteAppointment(id)
                 ? ResponseEntity.noContent().build()
                 : ResponseEntity.notFound().build();
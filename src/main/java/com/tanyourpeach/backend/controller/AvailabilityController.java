@@ -1,16 +1,27 @@
 package com.tanyourpeach.backend.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.tanyourpeach.backend.dto.AvailabilityTemplate;
+import com.tanyourpeach.backend.dto.SlotFit;
 import com.tanyourpeach.backend.model.Availability;
 import com.tanyourpeach.backend.service.AvailabilityService;
+import com.tanyourpeach.backend.service.SlotEventBroadcaster;
+import com.tanyourpeach.backend.service.SlotHoldService;
 
 import jakarta.validation.Valid;
 
 import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/availabilities")
@@ -20,10 +31,25 @@ public class AvailabilityController {
     @Autowired
     private AvailabilityService availabilityService;
 
-    // GET all
+    // GET slots one keyset page at a time; from/to default to the coming four weeks, booked filters by state
     @GetMapping
-    public List<Availability> getAllAvailabilities() {
-        return availabilityService.getAllAvailabilities();
+    public ResponseEntity<?> getAvailabilities(@RequestParam(required = false) String from,
+                                               @RequestParam(required = false) String to,
+                                               @RequestParam(required = false) Boolean booked,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "50") int size) {
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            fromDate = from != null ? LocalDate.parse(from) : null;
+            toDate = to != null ? LocalDate.parse(to) : null;
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Invalid date format");
+        }
+
+        return availabilityService.getAvailabilityPage(fromDate, toDate, booked, cursor, size)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.badRequest().body("Invalid date range or cursor"));
     }
 
     // GET available by date
@@ -37,6 +63,84 @@ public class AvailabilityController {
         }
     }
 
+    // GET free slots per day for a date range; answers 304 when the If-None-Match ETag is still current
+    @GetMapping("/calendar")
+    public ResponseEntity<?> getCalendar(@RequestParam String from, @RequestParam String to,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            fromDate = LocalDate.parse(from);
+            toDate = LocalDate.parse(to);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Invalid date format");
+        }
+
+        String etag = availabilityService.getCalendarETag(fromDate, toDate);
+        if (etag == null) {
+            return ResponseEntity.badRequest().body("Invalid date range");
+        }
+        if (matchesETag(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        return ResponseEntity.ok().eTag(etag).body(availabilityService.getCalendar(fromDate, toDate));
+    }
+
+    // GET the earliest start times where a service's duration fits in contiguous free slots
+    @GetMapping("/fits")
+    public ResponseEntity<?> findNextFits(@RequestParam Long serviceId, @RequestParam String from, @RequestParam String to,
+                                          @RequestParam(defaultValue = "5") int limit) {
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            fromDate = LocalDate.parse(from);
+            toDate = LocalDate.parse(to);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Invalid date format");
+        }
+
+        List<SlotFit> fits = availabilityService.findNextFits(serviceId, fromDate, toDate, limit);
+        if (fits == null) {
+            return ResponseEntity.badRequest().body("Invalid search");
+        }
+        return ResponseEntity.ok(fits);
+    }
+
+    // True if an If-None-Match header lists the ETag (weak or strong) or is "*"
+    private boolean matchesETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals("\"" + etag + "\"")) return true;
+        }
+        return false;
+    }
+
+    // GET live stream of slot changes for the given dates (Server-Sent Events)
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamSlotEvents(@RequestParam List<String> dates) {
+        if (dates.isEmpty() || dates.size() > SlotEventBroadcaster.MAX_DATES_PER_SUBSCRIPTION) {
+            return ResponseEntity.badRequest().body("Between 1 and " + SlotEventBroadcaster.MAX_DATES_PER_SUBSCRIPTION + " dates are required");
+        }
+
+        Set<LocalDate> parsed = new HashSet<>();
+        try {
+            for (String date : dates) {
+                parsed.add(LocalDate.parse(date));
+            }
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Invalid date format");
+        }
+
+        SseEmitter emitter = availabilityService.subscribeToSlotEvents(parsed);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
     // POST create new slot
     @PostMapping
     public ResponseEntity<Availability> createAvailability(@Valid @RequestBody Availability availability) {
@@ -47,6 +151,17 @@ public class AvailabilityController {
         return ResponseEntity.ok(saved);
     }
 
+    // POST generate slots from a weekly template; overlapping slots are skipped
+    @PostMapping("/generate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<Availability>> generateAvailabilities(@Valid @RequestBody AvailabilityTemplate template) {
+        List<Availability> created = availabilityService.generateFromTemplate(template);
+        if (created == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(created);
+    }
+
     // PUT update slot
     @PutMapping("/{id}")
     public ResponseEntity<Availability> updateAvailability(@PathVariable Long id, @Valid @RequestBody Availability updated) {
@@ -55,6 +170,23 @@ public class AvailabilityController {
                 .orElse(ResponseEntity.badRequest().build());
     }
 
+    // POST hold a slot while the customer fills in the booking form; book it with the returned token as X-Hold-Token
+    @PostMapping("/{id}/hold")
+    public ResponseEntity<?> holdSlot(@PathVariable Long id) {
+        return availabilityService.holdSlot(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.CONFLICT).body("Slot is booked or already held"));
+    }
+
+    // DELETE release a hold early
+    @DeleteMapping("/{id}/hold")
+    public ResponseEntity<Void> releaseHold(@PathVariable Long id,
+                                            @RequestHeader(SlotHoldService.HOLD_TOKEN_HEADER) String token) {
+        return availabilityService.releaseHold(id, token)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
     // DELETE a slot
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteAvailability(@PathVariable Long id) {
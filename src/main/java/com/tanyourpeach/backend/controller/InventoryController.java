@@ -1,20 +1,20 @@
 package com.tanyourpeach.backend.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import com.tanyourpeach.backend.dto.ItemForecast;
+import com.tanyourpeach.backend.dto.StockLevel;
 import com.tanyourpeach.backend.model.Inventory;
-import com.tanyourpeach.backend.model.User;
-import com.tanyourpeach.backend.repository.UserRepository;
 import com.tanyourpeach.backend.service.InventoryService;
-import com.tanyourpeach.backend.service.JwtService;
 
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -25,30 +25,19 @@ public class InventoryController {
     @Autowired
     private InventoryService inventoryService;
 
-    @Autowired
-    private JwtService jwtService;
-
-    @Autowired
-    private UserRepository userRepository;
-
-    // Helper method to check if the user is an admin
-    private boolean isAdmin(HttpServletRequest request) {
-        try {
-            String token = request.getHeader("Authorization").substring(7);
-            String email = jwtService.extractUsername(token);
-            User user = userRepository.findByEmail(email).orElseThrow();
-            return user.getIsAdmin() != null && user.getIsAdmin();
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
     // GET all items (allowed for all)
     @GetMapping
     public List<Inventory> getAllInventory() {
         return inventoryService.getAllInventory();
     }
 
+    // GET projected stock-outs from upcoming appointments over the next `days` days (admin only)
+    @GetMapping("/forecast")
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<ItemForecast> getForecast(@RequestParam(defaultValue = "60") int days) {
+        return inventoryService.getForecast(days);
+    }
+
     // GET by ID (allowed for all)
     @GetMapping("/{id}")
     public ResponseEntity<Inventory> getInventoryById(@PathVariable Long id) {
@@ -57,21 +46,28 @@ public class InventoryController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // GET stock according to the movement ledger, optionally as of a past time (admin only)
+    @GetMapping("/{id}/stock")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StockLevel> getStockLevel(@PathVariable Long id,
+                                                    @RequestParam(required = false)
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return inventoryService.getStockLevel(id, at)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     // POST create (admin only)
     @PostMapping
-    public ResponseEntity<?> createInventory(@Valid @RequestBody Inventory inventory, HttpServletRequest request) {
-        if (!isAdmin(request)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
-        }
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> createInventory(@Valid @RequestBody Inventory inventory) {
         return ResponseEntity.ok(inventoryService.createInventory(inventory));
     }
 
     // PUT update (admin only)
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateInventory(@PathVariable Long id, @Valid @RequestBody Inventory updated, HttpServletRequest request) {
-        if (!isAdmin(request)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
-        }
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateInventory(@PathVariable Long id, @Valid @RequestBody Inventory updated) {
         return inventoryService.updateInventory(id, updated)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -79,10 +75,8 @@ public class InventoryController {
 
     // DELETE (admin only)
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteInventory(@PathVariable Long id, HttpServletRequest request) {
-        if (!isAdmin(request)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
-        }
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> deleteInventory(@PathVariable Long id) {
         return inventoryService.deleteInventory(id)
                 ? ResponseEntity.noContent().build()
                 : ResponseEntity.notFound().build();
@@ -98,16 +92,23 @@ public class InventoryController {
 
     // PUT add stock (admin only)
     @PutMapping("/add-stock/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> addStock(@PathVariable Long id,
                                       @RequestParam int quantity,
-                                      @RequestParam BigDecimal unitCost,
-                                      HttpServletRequest request) {
-        if (!isAdmin(request)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
-        }
-
+                                      @RequestParam BigDecimal unitCost) {
         return inventoryService.addQuantityAndCost(id, quantity, unitCost)
                 ? ResponseEntity.ok().build()
                 : ResponseEntity.badRequest().build();
     }
-}
\ No newline at end of file
+
+    // POST write off damaged or expired stock (admin only)
+    @PostMapping("/{id}/write-off")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> writeOff(@PathVariable Long id,
+                                      @RequestParam int quantity,
+                                      @RequestParam(required = false) String note) {
+        return inventoryService.writeOff(id, quantity, note)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.badRequest().build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.tanyourpeach.backend.dto;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+
+// Principal for an authenticated request, built once by JwtAuthenticationFilter
+public class AuthenticatedUser extends User {
+
+    // Null for tokens issued before the id was added to the claims
+    private final Long userId;
+
+    private final boolean admin;
+
+    public AuthenticatedUser(String email, boolean admin) {
+        this(null, email, admin);
+    }
+
+    public AuthenticatedUser(Long userId, String email, boolean admin) {
+        super(email, "", List.of(new SimpleGrantedAuthority(admin ? "ROLE_ADMIN" : "ROLE_USER")));
+        this.userId = userId;
+        this.admin = admin;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return getUsername();
+    }
+
+    public boolean isAdmin() {
+        return admin;
+    }
+}
@@ -0,0 +1,48 @@
+package com.tanyourpeach.backend.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Compact calendar entry: how many slots are free on a date and when they start
+public class AvailabilityDay {
+
+    private LocalDate date;
+
+    private int freeSlots;
+
+    private List<String> startTimes; // "HH:mm", in order
+
+    public AvailabilityDay() {
+        // Default constructor required for Jackson
+    }
+
+    public AvailabilityDay(LocalDate date, List<String> startTimes) {
+        this.date = date;
+        this.freeSlots = startTimes.size();
+        this.startTimes = startTimes;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public int getFreeSlots() {
+        return freeSlots;
+    }
+
+    public void setFreeSlots(int freeSlots) {
+        this.freeSlots = freeSlots;
+    }
+
+    public List<String> getStartTimes() {
+        return startTimes;
+    }
+
+    public void setStartTimes(List<String> startTimes) {
+        this.startTimes = startTimes;
+    }
+}
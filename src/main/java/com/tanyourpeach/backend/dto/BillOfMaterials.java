@@ -0,0 +1,98 @@
+package com.tanyourpeach.backend.dto;
+
+import java.util.Arrays;
+
+// Immutable list of the inventory items one service uses and how many units of each, sorted by item id.
+// Kept as two parallel arrays so the whole catalogue of BOMs stays small enough to cache.
+public final class BillOfMaterials {
+
+    private final Long serviceId;
+
+    private final long[] itemIds;
+
+    private final int[] quantities;
+
+    public BillOfMaterials(Long serviceId, long[] itemIds, int[] quantities) {
+        if (itemIds.length != quantities.length) {
+            throw new IllegalArgumentException("Item ids and quantities must have the same length");
+        }
+        this.serviceId = serviceId;
+        this.itemIds = itemIds.clone();
+        this.quantities = quantities.clone();
+    }
+
+    // A service that uses no inventory
+    public static BillOfMaterials empty(Long serviceId) {
+        return new BillOfMaterials(serviceId, new long[0], new int[0]);
+    }
+
+    public Long getServiceId() {
+        return serviceId;
+    }
+
+    // Copies, so callers cannot change the cached arrays
+    public long[] getItemIds() {
+        return itemIds.clone();
+    }
+
+    public int[] getQuantities() {
+        return quantities.clone();
+    }
+
+    public int size() {
+        return itemIds.length;
+    }
+
+    public boolean isEmpty() {
+        return itemIds.length == 0;
+    }
+
+    public long itemIdAt(int index) {
+        return itemIds[index];
+    }
+
+    public int quantityAt(int index) {
+        return quantities[index];
+    }
+
+    // Units of an item the service uses; 0 if it uses none
+    public int quantityOf(long itemId) {
+        int index = Arrays.binarySearch(itemIds, itemId);
+        return index >= 0 ? quantities[index] : 0;
+    }
+
+    // Copy with one item set to a quantity, added in id order if it is new
+    public BillOfMaterials with(long itemId, int quantity) {
+        int index = Arrays.binarySearch(itemIds, itemId);
+        if (index >= 0) {
+            int[] newQuantities = quantities.clone();
+            newQuantities[index] = quantity;
+            return new BillOfMaterials(serviceId, itemIds, newQuantities);
+        }
+
+        int insertAt = -index - 1;
+        long[] newItemIds = new long[itemIds.length + 1];
+        int[] newQuantities = new int[quantities.length + 1];
+        System.arraycopy(itemIds, 0, newItemIds, 0, insertAt);
+        System.arraycopy(quantities, 0, newQuantities, 0, insertAt);
+        newItemIds[insertAt] = itemId;
+        newQuantities[insertAt] = quantity;
+        System.arraycopy(itemIds, insertAt, newItemIds, insertAt + 1, itemIds.length - insertAt);
+        System.arraycopy(quantities, insertAt, newQuantities, insertAt + 1, quantities.length - insertAt);
+        return new BillOfMaterials(serviceId, newItemIds, newQuantities);
+    }
+
+    // Copy without an item; this one if the service does not use it
+    public BillOfMaterials without(long itemId) {
+        int index = Arrays.binarySearch(itemIds, itemId);
+        if (index < 0) return this;
+
+        long[] newItemIds = new long[itemIds.length - 1];
+        int[] newQuantities = new int[quantities.length - 1];
+        System.arraycopy(itemIds, 0, newItemIds, 0, index);
+        System.arraycopy(quantities, 0, newQuantities, 0, index);
+        System.arraycopy(itemIds, index + 1, newItemIds, index, itemIds.length - index - 1);
+        System.arraycopy(quantities, index + 1, newQuantities, index, quantities.length - index - 1);
+        return new BillOfMaterials(serviceId, newItemIds, newQuantities);
+    }
+}
@@ -0,0 +1,35 @@
+package com.tanyourpeach.backend.dto;
+
+import java.util.List;
+
+public class CursorPage<T> {
+
+    private List<T> items;
+
+    private String nextCursor; // null when there are no more pages
+
+    public CursorPage() {
+        // Default constructor required for Jackson
+    }
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
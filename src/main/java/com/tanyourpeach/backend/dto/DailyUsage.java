@@ -0,0 +1,58 @@
+package com.tanyourpeach.backend.dto;
+
+import java.time.LocalDate;
+
+// Units of one item booked on one day, and the stock projected to be left after it
+public class DailyUsage {
+
+    private LocalDate date;
+
+    private long pending; // still to be taken from stock when confirmed
+
+    private long confirmed; // already taken from stock at confirmation
+
+    private long projectedQuantity;
+
+    public DailyUsage() {
+        // Default constructor required for Jackson
+    }
+
+    public DailyUsage(LocalDate date, long pending, long confirmed, long projectedQuantity) {
+        this.date = date;
+        this.pending = pending;
+        this.confirmed = confirmed;
+        this.projectedQuantity = projectedQuantity;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public long getPending() {
+        return pending;
+    }
+
+    public void setPending(long pending) {
+        this.pending = pending;
+    }
+
+    public long getConfirmed() {
+        return confirmed;
+    }
+
+    public void setConfirmed(long confirmed) {
+        this.confirmed = confirmed;
+    }
+
+    public long getProjectedQuantity() {
+        return projectedQuantity;
+    }
+
+    public void setProjectedQuantity(long projectedQuantity) {
+        this.projectedQuantity = projectedQuantity;
+    }
+}
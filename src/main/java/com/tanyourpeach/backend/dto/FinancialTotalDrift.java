@@ -0,0 +1,71 @@
+package com.tanyourpeach.backend.dto;
+
+import com.tanyourpeach.backend.model.FinancialLog;
+
+import java.math.BigDecimal;
+
+// One running total that disagrees with the raw financial log
+public class FinancialTotalDrift {
+
+    private String period;
+
+    private FinancialLog.Type type;
+
+    private BigDecimal stored; // value in the financial_totals table
+
+    private BigDecimal cached; // value in the in-memory mirror
+
+    private BigDecimal actual; // value recomputed from financial_log
+
+    public FinancialTotalDrift() {
+        // Default constructor required for Jackson
+    }
+
+    public FinancialTotalDrift(String period, FinancialLog.Type type, BigDecimal stored, BigDecimal cached, BigDecimal actual) {
+        this.period = period;
+        this.type = type;
+        this.stored = stored;
+        this.cached = cached;
+        this.actual = actual;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public FinancialLog.Type getType() {
+        return type;
+    }
+
+    public void setType(FinancialLog.Type type) {
+        this.type = type;
+    }
+
+    public BigDecimal getStored() {
+        return stored;
+    }
+
+    public void setStored(BigDecimal stored) {
+        this.stored = stored;
+    }
+
+    public BigDecimal getCached() {
+        return cached;
+    }
+
+    public void setCached(BigDecimal cached) {
+        this.cached = cached;
+    }
+
+    public BigDecimal getActual() {
+        return actual;
+    }
+
+    public void setActual(BigDecimal actual) {
+        this.actual = actual;
+    }
+}
@@ -0,0 +1,82 @@
+package com.tanyourpeach.backend.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Projected use of one inventory item by upcoming appointments, and when it runs out
+public class ItemForecast {
+
+    private Long itemId;
+
+    private String itemName;
+
+    private int quantityOnHand;
+
+    private long pendingDemand;
+
+    private LocalDate stockOutDate; // first day pending bookings need more than is left; null if stock lasts
+
+    private List<DailyUsage> days; // only days with bookings, in date order
+
+    public ItemForecast() {
+        // Default constructor required for Jackson
+    }
+
+    public ItemForecast(Long itemId, String itemName, int quantityOnHand, long pendingDemand,
+                        LocalDate stockOutDate, List<DailyUsage> days) {
+        this.itemId = itemId;
+        this.itemName = itemName;
+        this.quantityOnHand = quantityOnHand;
+        this.pendingDemand = pendingDemand;
+        this.stockOutDate = stockOutDate;
+        this.days = days;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public void setItemName(String itemName) {
+        this.itemName = itemName;
+    }
+
+    public int getQuantityOnHand() {
+        return quantityOnHand;
+    }
+
+    public void setQuantityOnHand(int quantityOnHand) {
+        this.quantityOnHand = quantityOnHand;
+    }
+
+    public long getPendingDemand() {
+        return pendingDemand;
+    }
+
+    public void setPendingDemand(long pendingDemand) {
+        this.pendingDemand = pendingDemand;
+    }
+
+    public LocalDate getStockOutDate() {
+        return stockOutDate;
+    }
+
+    public void setStockOutDate(LocalDate stockOutDate) {
+        this.stockOutDate = stockOutDate;
+    }
+
+    public List<DailyUsage> getDays() {
+        return days;
+    }
+
+    public void setDays(List<DailyUsage> days) {
+        this.days = days;
+    }
+}
@@ -0,0 +1,84 @@
+package com.tanyourpeach.backend.dto;
+
+import com.tanyourpeach.backend.model.Availability;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// A change to one availability slot, pushed to clients watching its date
+public class SlotEvent {
+
+    public enum Type {
+        CREATED,
+        DELETED,
+        BOOKED,
+        RELEASED
+    }
+
+    private Type type;
+
+    private Long slotId;
+
+    private LocalDate date;
+
+    private LocalTime startTime;
+
+    private LocalTime endTime;
+
+    public SlotEvent() {
+        // Default constructor required for Jackson
+    }
+
+    public SlotEvent(Type type, Long slotId, LocalDate date, LocalTime startTime, LocalTime endTime) {
+        this.type = type;
+        this.slotId = slotId;
+        this.date = date;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    // Event for a slot as it currently is
+    public static SlotEvent of(Type type, Availability slot) {
+        return new SlotEvent(type, slot.getSlotId(), slot.getDate(), slot.getStartTime(), slot.getEndTime());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getSlotId() {
+        return slotId;
+    }
+
+    public void setSlotId(Long slotId) {
+        this.slotId = slotId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalTime endTime) {
+        this.endTime = endTime;
+    }
+}
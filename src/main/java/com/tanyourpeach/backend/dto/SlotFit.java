@@ -0,0 +1,60 @@
+package com.tanyourpeach.backend.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+// A start time where a service fits, and the back-to-back free slots it would occupy
+public class SlotFit {
+
+    private LocalDate date;
+
+    private LocalTime startTime;
+
+    private LocalTime endTime; // start time plus the service duration
+
+    private List<Long> slotIds; // in order, first one starts at startTime
+
+    public SlotFit() {
+        // Default constructor required for Jackson
+    }
+
+    public SlotFit(LocalDate date, LocalTime startTime, LocalTime endTime, List<Long> slotIds) {
+        this.date = date;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.slotIds = slotIds;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public List<Long> getSlotIds() {
+        return slotIds;
+    }
+
+    public void setSlotIds(List<Long> slotIds) {
+        this.slotIds = slotIds;
+    }
+}
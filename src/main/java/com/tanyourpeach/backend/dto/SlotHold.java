@@ -0,0 +1,47 @@
+package com.tanyourpeach.backend.dto;
+
+import java.time.LocalDateTime;
+
+// A tentative hold on a slot; send the token as X-Hold-Token when booking it
+public class SlotHold {
+
+    private Long slotId;
+
+    private String token;
+
+    private LocalDateTime expiresAt;
+
+    public SlotHold() {
+        // Default constructor required for Jackson
+    }
+
+    public SlotHold(Long slotId, String token, LocalDateTime expiresAt) {
+        this.slotId = slotId;
+        this.token = token;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getSlotId() {
+        return slotId;
+    }
+
+    public void setSlotId(Long slotId) {
+        this.slotId = slotId;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
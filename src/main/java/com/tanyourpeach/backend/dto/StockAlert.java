@@ -0,0 +1,72 @@
+package com.tanyourpeach.backend.dto;
+
+// An inventory item crossing its low-stock threshold, pushed to admin dashboards
+public class StockAlert {
+
+    public enum Type {
+        LOW,        // dropped to or below its threshold
+        RESTOCKED   // back above its threshold
+    }
+
+    private Type type;
+
+    private Long itemId;
+
+    private String itemName;
+
+    private int quantity;
+
+    private Integer lowStockThreshold;
+
+    public StockAlert() {
+        // Default constructor required for Jackson
+    }
+
+    public StockAlert(Type type, Long itemId, String itemName, int quantity, Integer lowStockThreshold) {
+        this.type = type;
+        this.itemId = itemId;
+        this.itemName = itemName;
+        this.quantity = quantity;
+        this.lowStockThreshold = lowStockThreshold;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public void setItemName(String itemName) {
+        this.itemName = itemName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public Integer getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+
+    public void setLowStockThreshold(Integer lowStockThreshold) {
+        this.lowStockThreshold = lowStockThreshold;
+    }
+}
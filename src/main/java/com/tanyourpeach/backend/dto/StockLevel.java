@@ -0,0 +1,59 @@
+package com.tanyourpeach.backend.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// An item's stock and spend according to the inventory ledger at a point in time
+public class StockLevel {
+
+    private Long itemId;
+
+    private long quantity;
+
+    private BigDecimal totalSpent;
+
+    private LocalDateTime asOf;
+
+    public StockLevel() {
+        // Default constructor required for Jackson
+    }
+
+    public StockLevel(Long itemId, long quantity, BigDecimal totalSpent, LocalDateTime asOf) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+        this.totalSpent = totalSpent;
+        this.asOf = asOf;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getTotalSpent() {
+        return totalSpent;
+    }
+
+    public void setTotalSpent(BigDecimal totalSpent) {
+        this.totalSpent = totalSpent;
+    }
+
+    public LocalDateTime getAsOf() {
+        return asOf;
+    }
+
+    public void setAsOf(LocalDateTime asOf) {
+        this.asOf = asOf;
+    }
+}
@@ -9,7 +9,12 @@ import jakarta.validation.constraints.Email;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+    @Index(name = "idx_appointments_date_id", columnList = "appointment_date, appointment_id"),
+    @Index(name = "idx_appointments_client_email_date", columnList = "client_email, appointment_date"),
+    @Index(name = "idx_appointments_user_date", columnList = "user_id, appointment_date"),
+    @Index(name = "idx_appointments_date_status_service", columnList = "appointment_date, status, service_id")
+})
 public class Appointment {
 
     @Id
@@ -61,6 +66,10 @@ public class Appointment {
     @JoinColumn(name = "availability_slot_id", nullable = false)
     private Availability availability;
 
+    // Optimistic lock version, bumped on every update
+    @Version
+    private Long version;
+
     // Default constructor
     @PrePersist
     protected void onCreate() {
@@ -202,4 +211,12 @@ public class Appointment {
     public void setAvailability(Availability availability) {
         this.availability = availability;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
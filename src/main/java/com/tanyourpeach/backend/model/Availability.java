@@ -1,5 +1,7 @@
 package com.tanyourpeach.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 
@@ -8,11 +10,17 @@ import java.time.LocalTime;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "availabilities")
+@Table(name = "availabilities", indexes = {
+        @Index(name = "idx_availabilities_date_booked", columnList = "date, is_booked"),
+        @Index(name = "idx_availabilities_date_start_id", columnList = "date, start_time, slot_id"),
+        @Index(name = "idx_availabilities_held_until", columnList = "held_until")
+})
 public class Availability {
     
+    // Pooled sequence (a table on MySQL) instead of IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "availability_seq")
+    @SequenceGenerator(name = "availability_seq", sequenceName = "availability_seq", allocationSize = 50)
     private Long slotId;
 
     @NotNull(message = "Date is required")
@@ -26,11 +34,22 @@ public class Availability {
 
     private Boolean isBooked = false;
 
+    // Tentative checkout hold; only the holder's token can book the slot until it lapses
+    private LocalDateTime heldUntil;
+
+    @JsonIgnore
+    @Column(length = 36)
+    private String holdToken;
+
     @Column(columnDefinition = "TEXT")
     private String notes;
 
     private LocalDateTime createdAt;
 
+    // Optimistic lock version, bumped on every update
+    @Version
+    private Long version;
+
     // Default constructor
     @PrePersist
     protected void onCreate() {
@@ -79,6 +98,22 @@ public class Availability {
         this.isBooked = isBooked;
     }
 
+    public LocalDateTime getHeldUntil() {
+        return heldUntil;
+    }
+
+    public void setHeldUntil(LocalDateTime heldUntil) {
+        this.heldUntil = heldUntil;
+    }
+
+    public String getHoldToken() {
+        return holdToken;
+    }
+
+    public void setHoldToken(String holdToken) {
+        this.holdToken = holdToken;
+    }
+
     public String getNotes() {
         return notes;
     }
@@ -94,4 +129,12 @@ public class Availability {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,40 @@
+package com.tanyourpeach.backend.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+// Running revenue/expense total, maintained on every financial_log write by FinancialTotalsService
+@Entity
+@Table(name = "financial_totals")
+public class FinancialTotal {
+
+    @EmbeddedId
+    private FinancialTotalKey id;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal amount = BigDecimal.ZERO;
+
+    public FinancialTotal() {}
+
+    public FinancialTotal(FinancialTotalKey id, BigDecimal amount) {
+        this.id = id;
+        this.amount = amount;
+    }
+
+    public FinancialTotalKey getId() {
+        return id;
+    }
+
+    public void setId(FinancialTotalKey id) {
+        this.id = id;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,62 @@
+package com.tanyourpeach.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class FinancialTotalKey implements Serializable {
+
+    // Period of the running total: "ALL" for the all-time total, otherwise a "YYYY-MM" month bucket
+    public static final String ALL_TIME = "ALL";
+
+    @Column(name = "period", length = 7)
+    private String period;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", length = 10)
+    private FinancialLog.Type type;
+
+    public FinancialTotalKey() {}
+
+    // Constructor with parameters
+    public FinancialTotalKey(String period, FinancialLog.Type type) {
+        this.period = period;
+        this.type = type;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public FinancialLog.Type getType() {
+        return type;
+    }
+
+    public void setType(FinancialLog.Type type) {
+        this.type = type;
+    }
+
+    // Override equals and hashCode for proper comparison in collections
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FinancialTotalKey)) return false;
+        FinancialTotalKey that = (FinancialTotalKey) o;
+        return Objects.equals(period, that.period) &&
+               type == that.type;
+    }
+
+    // Ensure that the hashCode method is consistent with equals
+    @Override
+    public int hashCode() {
+        return Objects.hash(period, type);
+    }
+}
@@ -43,6 +43,10 @@ public class Inventory {
     @Column(name = "low_stock_threshold")
     private Integer lowStockThreshold;
 
+    // Optimistic lock version, bumped on every update
+    @Version
+    private Long version;
+
     // Auto-update timestamp
     @PrePersist
     @PreUpdate
@@ -115,4 +119,12 @@ public class Inventory {
     public void setLowStockThreshold(Integer lowStockThreshold) {
         this.lowStockThreshold = lowStockThreshold;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
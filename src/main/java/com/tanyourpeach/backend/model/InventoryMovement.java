@@ -0,0 +1,126 @@
+package com.tanyourpeach.backend.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One append-only change to an inventory item's stock or spend; rows are never updated or deleted
+@Entity
+@Table(name = "inventory_movement", indexes = {
+        @Index(name = "idx_inventory_movement_item_id", columnList = "item_id, movement_id")
+})
+public class InventoryMovement {
+
+    public enum Type {
+        RECEIPT,        // stock bought in
+        CONSUMPTION,    // used by a confirmed appointment
+        ADJUSTMENT,     // manual correction or deduction
+        WRITE_OFF       // stock thrown away or removed with its item
+    }
+
+    // Pooled sequence so the ledger can be written with batched inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_movement_seq")
+    @SequenceGenerator(name = "inventory_movement_seq", sequenceName = "inventory_movement_seq", allocationSize = 50)
+    @Column(name = "movement_id")
+    private Long movementId;
+
+    // Plain id rather than an association so appends never load or lock the item
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Type type;
+
+    @Column(name = "quantity_delta", nullable = false)
+    private int quantityDelta;
+
+    @Column(name = "cost_delta", nullable = false, precision = 10, scale = 2)
+    private BigDecimal costDelta = BigDecimal.ZERO;
+
+    @Column(name = "appointment_id")
+    private Long appointmentId;
+
+    @Column(length = 255)
+    private String note;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public InventoryMovement() {}
+
+    public InventoryMovement(Long itemId, Type type, int quantityDelta, BigDecimal costDelta, Long appointmentId, String note) {
+        this.itemId = itemId;
+        this.type = type;
+        this.quantityDelta = quantityDelta;
+        this.costDelta = costDelta;
+        this.appointmentId = appointmentId;
+        this.note = note;
+    }
+
+    public Long getMovementId() {
+        return movementId;
+    }
+
+    public void setMovementId(Long movementId) {
+        this.movementId = movementId;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public int getQuantityDelta() {
+        return quantityDelta;
+    }
+
+    public void setQuantityDelta(int quantityDelta) {
+        this.quantityDelta = quantityDelta;
+    }
+
+    public BigDecimal getCostDelta() {
+        return costDelta;
+    }
+
+    public void setCostDelta(BigDecimal costDelta) {
+        this.costDelta = costDelta;
+    }
+
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public void setAppointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    public String getNote() {
+        return note;
+    }
+
+    public void setNote(String note) {
+        this.note = note;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
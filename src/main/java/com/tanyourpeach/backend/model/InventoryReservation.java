@@ -0,0 +1,82 @@
+package com.tanyourpeach.backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Units of an inventory item promised to a pending appointment; stock is only deducted when it is confirmed
+@Entity
+@Table(name = "inventory_reservation", indexes = {
+        @Index(name = "idx_inventory_reservation_appointment_id", columnList = "appointment_id")
+})
+public class InventoryReservation {
+
+    // Pooled sequence so reservations can be written with batched inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_reservation_seq")
+    @SequenceGenerator(name = "inventory_reservation_seq", sequenceName = "inventory_reservation_seq", allocationSize = 50)
+    @Column(name = "reservation_id")
+    private Long reservationId;
+
+    @Column(name = "appointment_id", nullable = false)
+    private Long appointmentId;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    // When the appointment starts; a reservation still unconfirmed by then is released
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public InventoryReservation() {}
+
+    public InventoryReservation(Long appointmentId, Long itemId, int quantity, LocalDateTime expiresAt) {
+        this.appointmentId = appointmentId;
+        this.itemId = itemId;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(Long reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public void setAppointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
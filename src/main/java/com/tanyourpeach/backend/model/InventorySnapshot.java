@@ -0,0 +1,94 @@
+package com.tanyourpeach.backend.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// An item's stock and spend after every movement up to lastMovementId; written by InventoryLedger compaction
+@Entity
+@Table(name = "inventory_snapshot", indexes = {
+        @Index(name = "idx_inventory_snapshot_item_movement", columnList = "item_id, last_movement_id"),
+        @Index(name = "idx_inventory_snapshot_item_as_of", columnList = "item_id, as_of")
+})
+public class InventorySnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "snapshot_id")
+    private Long snapshotId;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(nullable = false)
+    private long quantity;
+
+    @Column(name = "total_spent", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalSpent = BigDecimal.ZERO;
+
+    @Column(name = "last_movement_id", nullable = false)
+    private long lastMovementId;
+
+    // Time of the last movement covered
+    @Column(name = "as_of", nullable = false)
+    private LocalDateTime asOf;
+
+    public InventorySnapshot() {}
+
+    public InventorySnapshot(Long itemId, long quantity, BigDecimal totalSpent, long lastMovementId, LocalDateTime asOf) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+        this.totalSpent = totalSpent;
+        this.lastMovementId = lastMovementId;
+        this.asOf = asOf;
+    }
+
+    public Long getSnapshotId() {
+        return snapshotId;
+    }
+
+    public void setSnapshotId(Long snapshotId) {
+        this.snapshotId = snapshotId;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getTotalSpent() {
+        return totalSpent;
+    }
+
+    public void setTotalSpent(BigDecimal totalSpent) {
+        this.totalSpent = totalSpent;
+    }
+
+    public long getLastMovementId() {
+        return lastMovementId;
+    }
+
+    public void setLastMovementId(long lastMovementId) {
+        this.lastMovementId = lastMovementId;
+    }
+
+    public LocalDateTime getAsOf() {
+        return asOf;
+    }
+
+    public void setAsOf(LocalDateTime asOf) {
+        this.asOf = asOf;
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -19,6 +20,7 @@ import java.util.Collections;
 
 @Entity
 @Table(name = "users")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) // appointments link the user by reference
 public class User implements UserDetails {
 
     @Id
@@ -42,6 +44,11 @@ public class User implements UserDetails {
 
     private Boolean isAdmin;
 
+    // Bumped to revoke every token issued before the change (password reset, admin demotion)
+    @JsonIgnore
+    @Column(name = "token_version", nullable = false)
+    private Integer tokenVersion = 0;
+
     private LocalDateTime createdAt;
 
     // Default constructor
@@ -100,6 +107,14 @@ public class User implements UserDetails {
         this.isAdmin = isAdmin;
     }
 
+    public Integer getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(Integer tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -1,15 +1,60 @@
 package com.tanyourpeach.backend.repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.tanyourpeach.backend.model.Appointment;
 
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
         List<Appointment> findByAppointmentDateTimeAfterOrderByAppointmentDateTimeAsc(LocalDateTime dateTime);
-        List<Appointment> findByUser_UserIdOrderByAppointmentDateTimeDesc(Long userId);
         long countByUserIsNull();       // Guest bookings
         long countByUserIsNotNull();   // Registered user bookings
-}
\ No newline at end of file
+
+        // First keyset page, ordered by (appointmentDateTime, appointmentId)
+        @Query("SELECT a FROM Appointment a JOIN FETCH a.service JOIN FETCH a.availability LEFT JOIN FETCH a.user " +
+               "ORDER BY a.appointmentDateTime ASC, a.appointmentId ASC")
+        List<Appointment> findFirstPage(Limit limit);
+
+        // Next keyset page, strictly after the (appointmentDateTime, appointmentId) of the last row seen
+        @Query("SELECT a FROM Appointment a JOIN FETCH a.service JOIN FETCH a.availability LEFT JOIN FETCH a.user " +
+               "WHERE a.appointmentDateTime > :afterDateTime " +
+               "OR (a.appointmentDateTime = :afterDateTime AND a.appointmentId > :afterId) " +
+               "ORDER BY a.appointmentDateTime ASC, a.appointmentId ASC")
+        List<Appointment> findPageAfter(LocalDateTime afterDateTime, Long afterId, Limit limit);
+
+        // Booking history for one client email, newest first
+        @Query("SELECT a FROM Appointment a JOIN FETCH a.service JOIN FETCH a.availability LEFT JOIN FETCH a.user " +
+               "WHERE a.clientEmail = :clientEmail " +
+               "ORDER BY a.appointmentDateTime DESC, a.appointmentId DESC")
+        List<Appointment> findHistoryByClientEmail(String clientEmail, Pageable pageable);
+
+        // Booking history for one registered user, newest first
+        @Query("SELECT a FROM Appointment a JOIN FETCH a.service JOIN FETCH a.availability JOIN FETCH a.user u " +
+               "WHERE u.userId = :userId " +
+               "ORDER BY a.appointmentDateTime DESC, a.appointmentId DESC")
+        List<Appointment> findByUser_UserIdOrderByAppointmentDateTimeDesc(Long userId, Pageable pageable);
+
+        // Bookings of each service per day and status in a window, in one grouped range scan over
+        // idx_appointments_date_status_service; the depletion forecast expands them through the cached BOMs
+        @Query("SELECT a.service.serviceId AS serviceId, CAST(a.appointmentDateTime AS LocalDate) AS day, a.status AS status, " +
+               "COUNT(a) AS bookings " +
+               "FROM Appointment a " +
+               "WHERE a.appointmentDateTime >= :from AND a.appointmentDateTime < :to AND a.status IN :statuses " +
+               "GROUP BY a.service.serviceId, CAST(a.appointmentDateTime AS LocalDate), a.status")
+        List<DailyServiceBookings> countBookingsByDay(LocalDateTime from, LocalDateTime to, Collection<Appointment.Status> statuses);
+
+        // One row of countBookingsByDay
+        interface DailyServiceBookings {
+                Long getServiceId();
+                LocalDate getDay();
+                Appointment.Status getStatus();
+                Long getBookings();
+        }
+}
@@ -1,13 +1,106 @@
 package com.tanyourpeach.backend.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.tanyourpeach.backend.model.Availability;
 
+import jakarta.persistence.LockModeType;
+
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface AvailabilityRepository extends JpaRepository<Availability, Long> {
     List<Availability> findByDate(LocalDate date);
     List<Availability> findByIsBookedFalseAndDate(LocalDate date);
-}
\ No newline at end of file
+    List<Availability> findByDateBetween(LocalDate from, LocalDate to);
+
+    // First keyset page of slots in [from, to], ordered by (date, startTime, slotId); booked = null means either state.
+    // Served by idx_availabilities_date_start_id
+    @Query("SELECT a FROM Availability a WHERE a.date BETWEEN :from AND :to " +
+           "AND (:booked IS NULL OR a.isBooked = :booked) " +
+           "ORDER BY a.date ASC, a.startTime ASC, a.slotId ASC")
+    List<Availability> findFirstPage(LocalDate from, LocalDate to, Boolean booked, Limit limit);
+
+    // Next keyset page, strictly after the (date, startTime, slotId) of the last row seen
+    @Query("SELECT a FROM Availability a WHERE a.date BETWEEN :from AND :to " +
+           "AND (:booked IS NULL OR a.isBooked = :booked) " +
+           "AND (a.date > :afterDate OR (a.date = :afterDate AND (a.startTime > :afterTime " +
+           "OR (a.startTime = :afterTime AND a.slotId > :afterId)))) " +
+           "ORDER BY a.date ASC, a.startTime ASC, a.slotId ASC")
+    List<Availability> findPageAfter(LocalDate from, LocalDate to, Boolean booked,
+                                     LocalDate afterDate, LocalTime afterTime, Long afterId, Limit limit);
+
+    // Free slots for a date range in calendar order; served by idx_availabilities_date_booked
+    List<Availability> findByIsBookedFalseAndDateBetweenOrderByDateAscStartTimeAsc(LocalDate from, LocalDate to);
+
+    // Atomically mark a free slot as booked; returns 0 if it was already taken or is held under another token
+    @Transactional
+    @Modifying
+    @Query("UPDATE Availability a SET a.isBooked = true, a.heldUntil = null, a.holdToken = null, a.version = a.version + 1 " +
+           "WHERE a.slotId = :slotId AND a.isBooked = false " +
+           "AND (a.heldUntil IS NULL OR a.heldUntil <= :now OR a.holdToken = :holdToken)")
+    int claimSlot(Long slotId, String holdToken, LocalDateTime now);
+
+    // Undo a claim whose booking rolled back
+    @Transactional
+    @Modifying
+    @Query("UPDATE Availability a SET a.isBooked = false, a.version = a.version + 1 WHERE a.slotId = :slotId AND a.isBooked = true")
+    int releaseClaim(Long slotId);
+
+    // Atomically hold a free slot that nobody else is holding; returns 0 if it is booked or held.
+    // Every hold statement bumps the version, so an admin edit saved from an older read fails instead of erasing the hold
+    @Transactional
+    @Modifying
+    @Query("UPDATE Availability a SET a.heldUntil = :until, a.holdToken = :holdToken, a.version = a.version + 1 " +
+           "WHERE a.slotId = :slotId AND a.isBooked = false AND (a.heldUntil IS NULL OR a.heldUntil <= :now)")
+    int placeHold(Long slotId, String holdToken, LocalDateTime until, LocalDateTime now);
+
+    // Give up a hold early; only the holder's token matches
+    @Transactional
+    @Modifying
+    @Query("UPDATE Availability a SET a.heldUntil = null, a.holdToken = null, a.version = a.version + 1 " +
+           "WHERE a.slotId = :slotId AND a.holdToken = :holdToken")
+    int releaseHold(Long slotId, String holdToken);
+
+    // Oldest slots before the cutoff that no appointment references, locked for the archive batch that moves them.
+    // Booked ones are included only when asked for
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Availability a WHERE a.date < :cutoff AND (a.isBooked = false OR :includeBooked = true) " +
+           "AND NOT EXISTS (SELECT 1 FROM Appointment ap WHERE ap.availability = a) " +
+           "ORDER BY a.date, a.slotId")
+    List<Availability> findArchivable(LocalDate cutoff, boolean includeBooked, Limit limit);
+
+    // Copy slots into availabilities_archive; run in the same transaction as deleteArchived
+    @Modifying
+    @Query(value = "INSERT INTO availabilities_archive (slot_id, date, start_time, end_time, is_booked, notes, created_at, archived_at) " +
+                   "SELECT slot_id, date, start_time, end_time, is_booked, notes, created_at, NOW() " +
+                   "FROM availabilities WHERE slot_id IN (:slotIds)",
+           nativeQuery = true)
+    int copyToArchive(Collection<Long> slotIds);
+
+    // Remove slots that copyToArchive has just copied
+    @Modifying
+    @Query(value = "DELETE FROM availabilities WHERE slot_id IN (:slotIds)", nativeQuery = true)
+    int deleteArchived(Collection<Long> slotIds);
+
+    // Clear the given holds in one statement if they have lapsed
+    @Transactional
+    @Modifying
+    @Query("UPDATE Availability a SET a.heldUntil = null, a.holdToken = null, a.version = a.version + 1 " +
+           "WHERE a.slotId IN :slotIds AND a.heldUntil <= :now")
+    int clearExpiredHolds(Collection<Long> slotIds, LocalDateTime now);
+
+    // Clear every lapsed hold, including ones left behind by a restart; served by idx_availabilities_held_until
+    @Transactional
+    @Modifying
+    @Query("UPDATE Availability a SET a.heldUntil = null, a.holdToken = null, a.version = a.version + 1 WHERE a.heldUntil <= :now")
+    int clearAllExpiredHolds(LocalDateTime now);
+}
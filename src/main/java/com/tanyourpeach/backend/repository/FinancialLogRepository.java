@@ -3,6 +3,7 @@ package com.tanyourpeach.backend.repository;
 import com.tanyourpeach.backend.model.FinancialLog;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -11,10 +12,17 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface FinancialLogRepository extends JpaRepository<FinancialLog, Long> {
 
-    @Query("SELECT SUM(f.amount) FROM FinancialLog f WHERE f.type = :type")
-    BigDecimal sumByType(FinancialLog.Type type);
-    
-    @Query("SELECT SUM(f.amount) FROM FinancialLog f " +
-       "WHERE f.type = :type AND FUNCTION('DATE_FORMAT', f.logDate, '%Y-%m') = :month")
-    BigDecimal sumByTypeAndMonth(FinancialLog.Type type, String month);
+    // Revenue and expense totals for every calendar month on record; used to rebuild financial_totals
+    @Query("SELECT YEAR(f.logDate) AS logYear, MONTH(f.logDate) AS logMonth, f.type AS type, SUM(f.amount) AS total " +
+       "FROM FinancialLog f " +
+       "GROUP BY YEAR(f.logDate), MONTH(f.logDate), f.type")
+    List<MonthlyTypeTotal> sumAllByMonthAndType();
+
+    // One row of sumAllByMonthAndType
+    interface MonthlyTypeTotal {
+        Integer getLogYear();
+        Integer getLogMonth();
+        FinancialLog.Type getType();
+        BigDecimal getTotal();
+    }
 }
\ No newline at end of file
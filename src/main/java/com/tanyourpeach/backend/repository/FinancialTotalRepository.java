@@ -0,0 +1,37 @@
+package com.tanyourpeach.backend.repository;
+
+import com.tanyourpeach.backend.model.FinancialLog;
+import com.tanyourpeach.backend.model.FinancialTotal;
+import com.tanyourpeach.backend.model.FinancialTotalKey;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface FinancialTotalRepository extends JpaRepository<FinancialTotal, FinancialTotalKey> {
+
+    // Atomically add a delta to one running total, creating the row on first use
+    @Modifying
+    @Query(value = "INSERT INTO financial_totals (period, type, amount) VALUES (:period, :type, :delta) " +
+                   "ON DUPLICATE KEY UPDATE amount = amount + :delta",
+           nativeQuery = true)
+    int addToTotal(String period, String type, BigDecimal delta);
+
+    // Every running total, locked until the transaction ends; on InnoDB the scan also locks the gaps,
+    // so no log write can add to a total, new or existing, until then
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM FinancialTotal t")
+    List<FinancialTotal> lockAll();
+
+    // Current amount of one running total; read as a value, so a stale managed entity is never returned
+    @Query("SELECT t.amount FROM FinancialTotal t WHERE t.id.period = :period AND t.id.type = :type")
+    BigDecimal findAmount(String period, FinancialLog.Type type);
+}
@@ -0,0 +1,42 @@
+package com.tanyourpeach.backend.repository;
+
+import com.tanyourpeach.backend.model.InventoryMovement;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long> {
+
+    // Net change of one item after a snapshot's last movement, up to a point in time; served by idx_inventory_movement_item_id
+    @Query("SELECT COALESCE(SUM(m.quantityDelta), 0) AS quantity, COALESCE(SUM(m.costDelta), 0) AS cost " +
+           "FROM InventoryMovement m WHERE m.itemId = :itemId AND m.movementId > :afterMovementId AND m.createdAt <= :at")
+    MovementSum sumTail(Long itemId, long afterMovementId, LocalDateTime at);
+
+    // Net change per item of every movement after an id and created before a cutoff, in one primary-key range scan;
+    // used to write the next snapshots
+    @Query("SELECT m.itemId AS itemId, SUM(m.quantityDelta) AS quantity, SUM(m.costDelta) AS cost, " +
+           "MAX(m.movementId) AS lastMovementId, MAX(m.createdAt) AS asOf " +
+           "FROM InventoryMovement m WHERE m.movementId > :afterMovementId AND m.createdAt < :createdBefore GROUP BY m.itemId")
+    List<ItemTail> sumTailsAfter(long afterMovementId, LocalDateTime createdBefore);
+
+    // Result of sumTail
+    interface MovementSum {
+        Long getQuantity();
+        BigDecimal getCost();
+    }
+
+    // One row of sumTailsAfter
+    interface ItemTail {
+        Long getItemId();
+        Long getQuantity();
+        BigDecimal getCost();
+        Long getLastMovementId();
+        LocalDateTime getAsOf();
+    }
+}
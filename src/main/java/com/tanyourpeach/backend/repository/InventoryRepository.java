@@ -1,17 +1,44 @@
 package com.tanyourpeach.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.tanyourpeach.backend.model.Inventory;
+
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface InventoryRepository extends JpaRepository<Inventory, Long> {
-
-    @Query("SELECT i FROM Inventory i WHERE i.quantity <= i.lowStockThreshold")
-    List<Inventory> findItemsBelowThreshold();
+public interface InventoryRepository extends JpaRepository<Inventory, Long>, InventoryRepositoryCustom {
 
     Inventory findByItemName(String itemName);  // can help prevent duplicates
+
+    // Atomically take stock out of one item; returns 0 if the item is missing or has fewer than `amount` units
+    @Transactional
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :amount, i.version = i.version + 1 " +
+           "WHERE i.itemId = :itemId AND i.quantity >= :amount")
+    int deductQuantity(Long itemId, int amount);
+
+    // Atomically add received stock and its cost; returns 0 if the item is missing
+    @Transactional
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = COALESCE(i.quantity, 0) + :addedQty, " +
+           "i.totalSpent = COALESCE(i.totalSpent, 0) + :addedCost, i.version = i.version + 1 " +
+           "WHERE i.itemId = :itemId")
+    int addQuantityAndCost(Long itemId, int addedQty, BigDecimal addedCost);
+
+    // Row versions of some items; read right after an atomic update, inside its transaction, to learn the version it produced
+    @Query("SELECT i.itemId AS itemId, i.version AS version FROM Inventory i WHERE i.itemId IN :itemIds")
+    List<ItemVersion> findVersions(Collection<Long> itemIds);
+
+    // One row of findVersions
+    interface ItemVersion {
+        Long getItemId();
+        Long getVersion();
+    }
 }
\ No newline at end of file
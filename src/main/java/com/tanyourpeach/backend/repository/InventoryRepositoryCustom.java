@@ -0,0 +1,11 @@
+package com.tanyourpeach.backend.repository;
+
+import com.tanyourpeach.backend.dto.BillOfMaterials;
+
+// Inventory statements that Spring Data cannot derive or declare with @Query
+public interface InventoryRepositoryCustom {
+
+    // Deduct every item of a bill of materials in one statement, skipping any item that is short.
+    // Returns the number of items deducted; callers compare it with the BOM size.
+    int deductForService(BillOfMaterials bom);
+}
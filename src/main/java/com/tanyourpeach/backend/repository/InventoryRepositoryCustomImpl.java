@@ -0,0 +1,35 @@
+package com.tanyourpeach.backend.repository;
+
+import com.tanyourpeach.backend.dto.BillOfMaterials;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+public class InventoryRepositoryCustomImpl implements InventoryRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // The per-item quantities go in a CASE on item_id, used both to subtract and to check stock covers it
+    @Override
+    public int deductForService(BillOfMaterials bom) {
+        if (bom.isEmpty()) return 0;
+
+        StringBuilder quantityCase = new StringBuilder("CASE item_id");
+        StringBuilder itemIds = new StringBuilder();
+        for (int i = 0; i < bom.size(); i++) {
+            quantityCase.append(" WHEN ?").append(2 * i + 1).append(" THEN ?").append(2 * i + 2);
+            itemIds.append(i == 0 ? "?" : ", ?").append(2 * i + 1);
+        }
+        quantityCase.append(" END");
+
+        Query update = entityManager.createNativeQuery(
+                "UPDATE inventory SET quantity = quantity - " + quantityCase + ", version = version + 1 " +
+                "WHERE item_id IN (" + itemIds + ") AND quantity >= " + quantityCase);
+        for (int i = 0; i < bom.size(); i++) {
+            update.setParameter(2 * i + 1, bom.itemIdAt(i));
+            update.setParameter(2 * i + 2, bom.quantityAt(i));
+        }
+        return update.executeUpdate();
+    }
+}
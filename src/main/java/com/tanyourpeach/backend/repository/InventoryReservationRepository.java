@@ -0,0 +1,19 @@
+package com.tanyourpeach.backend.repository;
+
+import com.tanyourpeach.backend.model.InventoryReservation;
+
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, Long> {
+
+    // Drop every reservation row of the given appointments in one statement
+    @Modifying
+    @Query("DELETE FROM InventoryReservation r WHERE r.appointmentId IN :appointmentIds")
+    int deleteByAppointmentIds(Collection<Long> appointmentIds);
+}
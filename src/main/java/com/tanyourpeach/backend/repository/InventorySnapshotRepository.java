@@ -0,0 +1,28 @@
+package com.tanyourpeach.backend.repository;
+
+import com.tanyourpeach.backend.model.InventorySnapshot;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InventorySnapshotRepository extends JpaRepository<InventorySnapshot, Long> {
+
+    // Latest snapshot of an item covering nothing after `at`
+    Optional<InventorySnapshot> findFirstByItemIdAndAsOfLessThanEqualOrderByLastMovementIdDesc(Long itemId, LocalDateTime at);
+
+    // Highest movement id already folded into a snapshot; every movement after it is still in the tail
+    @Query("SELECT COALESCE(MAX(s.lastMovementId), 0) FROM InventorySnapshot s")
+    long findCompactedThrough();
+
+    // Latest snapshot of each of the given items
+    @Query("SELECT s FROM InventorySnapshot s WHERE s.itemId IN :itemIds AND s.lastMovementId = " +
+           "(SELECT MAX(s2.lastMovementId) FROM InventorySnapshot s2 WHERE s2.itemId = s.itemId)")
+    List<InventorySnapshot> findLatestForItems(Collection<Long> itemIds);
+}
@@ -1,6 +1,7 @@
 package com.tanyourpeach.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.tanyourpeach.backend.model.ServiceInventoryUsage;
 import com.tanyourpeach.backend.model.ServiceInventoryUsageKey;
@@ -12,6 +13,18 @@ public interface ServiceInventoryUsageRepository extends JpaRepository<ServiceIn
     // Find all usage records for a specific service
     List<ServiceInventoryUsage> findByService_ServiceId(Long serviceId);
 
+    // Every service-item link as plain ids, ordered for building the cached bills of materials
+    @Query("SELECT u.service.serviceId AS serviceId, u.item.itemId AS itemId, u.quantityUsed AS quantityUsed " +
+           "FROM ServiceInventoryUsage u ORDER BY u.service.serviceId, u.item.itemId")
+    List<UsageLink> findAllLinks();
+
     // Find all usage records for a specific inventory item
     List<ServiceInventoryUsage> findByItem_ItemId(Long itemId);
+
+    // One row of findAllLinks
+    interface UsageLink {
+        Long getServiceId();
+        Long getItemId();
+        Integer getQuantityUsed();
+    }
 }
\ No newline at end of file
@@ -1,15 +1,17 @@
 package com.tanyourpeach.backend.service;
 
 import com.tanyourpeach.backend.dto.AdminDashboardSummary;
+import com.tanyourpeach.backend.dto.CacheStats;
+import com.tanyourpeach.backend.dto.FinancialTotalDrift;
 import com.tanyourpeach.backend.dto.MonthlyStats;
 import com.tanyourpeach.backend.model.Appointment;
 import com.tanyourpeach.backend.model.FinancialLog;
 import com.tanyourpeach.backend.model.Inventory;
 import com.tanyourpeach.backend.repository.AppointmentRepository;
 import com.tanyourpeach.backend.repository.InventoryRepository;
-import com.tanyourpeach.backend.repository.FinancialLogRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -20,6 +22,8 @@ import java.util.List;
 @Service
 public class AdminStatsService {
 
+    public static final int MAX_MONTHS = 60;
+
     @Autowired
     private AppointmentRepository appointmentRepository;
 
@@ -27,47 +31,49 @@ public class AdminStatsService {
     private InventoryRepository inventoryRepository;
 
     @Autowired
-    private FinancialLogRepository financialLogRepository;
+    private FinancialTotalsService financialTotalsService;
+
+    @Autowired
+    private OpenSlotCache openSlotCache;
+
+    @Autowired
+    private LowStockTracker lowStockTracker;
+
+    @Autowired
+    private StockAlertBroadcaster stockAlertBroadcaster;
 
-    // Retrieves the summary for the admin dashboard
+    // Retrieves the summary for the admin dashboard from the running totals
     public AdminDashboardSummary getDashboardSummary() {
         AdminDashboardSummary summary = new AdminDashboardSummary();
 
-        BigDecimal revenue = financialLogRepository.sumByType(FinancialLog.Type.revenue);
-        BigDecimal expenses = financialLogRepository.sumByType(FinancialLog.Type.expense);
-        BigDecimal profit = (revenue != null ? revenue : BigDecimal.ZERO)
-                .subtract(expenses != null ? expenses : BigDecimal.ZERO);
+        BigDecimal revenue = financialTotalsService.getTotal(FinancialLog.Type.revenue);
+        BigDecimal expenses = financialTotalsService.getTotal(FinancialLog.Type.expense);
 
-        summary.setTotalRevenue(revenue != null ? revenue : BigDecimal.ZERO);
-        summary.setTotalExpenses(expenses != null ? expenses : BigDecimal.ZERO);
-        summary.setTotalProfit(profit);
+        summary.setTotalRevenue(revenue);
+        summary.setTotalExpenses(expenses);
+        summary.setTotalProfit(revenue.subtract(expenses));
 
         return summary;
     }
 
-    // Retrieves the last four months' financial stats
-    public List<MonthlyStats> getLastFourMonthsStats() {
-        List<MonthlyStats> monthlyStatsList = new ArrayList<>();
+    // Retrieves revenue, expenses and profit for each of the last `months` complete months, newest first
+    public List<MonthlyStats> getMonthlyStats(int months) {
+        int window = Math.max(1, Math.min(months, MAX_MONTHS));
         YearMonth currentMonth = YearMonth.now();
 
-        // Loop through the last 4 months
-        for (int i = 1; i <= 4; i++) {
+        List<MonthlyStats> monthlyStatsList = new ArrayList<>();
+        for (int i = 1; i <= window; i++) {
             YearMonth month = currentMonth.minusMonths(i);
             String monthStr = String.format("%02d-%d", month.getMonthValue(), month.getYear()); // MM-YYYY
 
-            // Still pass the original format ("YYYY-MM") to the DB query
-            String dbFormat = month.toString(); // "YYYY-MM"
-
-            BigDecimal revenue = financialLogRepository.sumByTypeAndMonth(FinancialLog.Type.revenue, dbFormat);
-            BigDecimal expenses = financialLogRepository.sumByTypeAndMonth(FinancialLog.Type.expense, dbFormat);
-            BigDecimal profit = (revenue != null ? revenue : BigDecimal.ZERO)
-                    .subtract(expenses != null ? expenses : BigDecimal.ZERO);
+            BigDecimal revenue = financialTotalsService.getMonthTotal(month, FinancialLog.Type.revenue);
+            BigDecimal expenses = financialTotalsService.getMonthTotal(month, FinancialLog.Type.expense);
 
             MonthlyStats stats = new MonthlyStats();
             stats.setMonth(monthStr); // formatted for frontend
-            stats.setRevenue(revenue != null ? revenue : BigDecimal.ZERO);
-            stats.setExpenses(expenses != null ? expenses : BigDecimal.ZERO);
-            stats.setProfit(profit);
+            stats.setRevenue(revenue);
+            stats.setExpenses(expenses);
+            stats.setProfit(revenue.subtract(expenses));
 
             monthlyStatsList.add(stats);
         }
@@ -75,13 +81,29 @@ public class AdminStatsService {
         return monthlyStatsList;
     }
 
+    // Recomputes the running totals from the raw log and reports drift; rebuilds them unless dryRun
+    public List<FinancialTotalDrift> checkFinancialTotals(boolean dryRun) {
+        return dryRun ? financialTotalsService.verify() : financialTotalsService.rebuild();
+    }
+
+    // Retrieves hit/miss counters for the open-slot near-cache
+    public CacheStats getOpenSlotCacheStats() {
+        return openSlotCache.getStats();
+    }
+
     // Retrieves upcoming appointments
     public List<Appointment> getUpcomingAppointments() {
         return appointmentRepository.findByAppointmentDateTimeAfterOrderByAppointmentDateTimeAsc(LocalDateTime.now());
     }
 
-    // Retrieves inventory items that are below the low stock threshold
+    // Retrieves inventory items that are below the low stock threshold; only those items are read
     public List<Inventory> getLowStockInventory() {
-        return inventoryRepository.findItemsBelowThreshold();
+        List<Long> itemIds = lowStockTracker.getLowStockIds();
+        return itemIds.isEmpty() ? List.of() : inventoryRepository.findAllById(itemIds);
+    }
+
+    // Opens a live stream of items crossing their low stock threshold; null when at the subscriber limit
+    public SseEmitter subscribeToStockAlerts() {
+        return stockAlertBroadcaster.subscribe();
     }
 }
\ No newline at end of file
@@ -1,54 +1,90 @@
 package com.tanyourpeach.backend.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.stereotype.Service;
 
+import com.tanyourpeach.backend.dto.AuthenticatedUser;
+import com.tanyourpeach.backend.dto.BillOfMaterials;
+import com.tanyourpeach.backend.dto.CursorPage;
+import com.tanyourpeach.backend.dto.SlotEvent;
+import com.tanyourpeach.backend.exception.InsufficientInventoryException;
 import com.tanyourpeach.backend.model.Appointment;
 import com.tanyourpeach.backend.model.AppointmentStatusHistory;
 import com.tanyourpeach.backend.model.Availability;
 import com.tanyourpeach.backend.model.FinancialLog;
 import com.tanyourpeach.backend.model.Receipt;
-import com.tanyourpeach.backend.model.ServiceInventoryUsage;
 import com.tanyourpeach.backend.model.TanService;
+import com.tanyourpeach.backend.model.User;
 import com.tanyourpeach.backend.repository.AppointmentRepository;
 import com.tanyourpeach.backend.repository.AppointmentStatusHistoryRepository;
 import com.tanyourpeach.backend.repository.AvailabilityRepository;
-import com.tanyourpeach.backend.repository.InventoryRepository;
 import com.tanyourpeach.backend.repository.ReceiptRepository;
-import com.tanyourpeach.backend.repository.ServiceInventoryUsageRepository;
 import com.tanyourpeach.backend.repository.TanServiceRepository;
 import com.tanyourpeach.backend.repository.UserRepository;
 import com.tanyourpeach.backend.repository.FinancialLogRepository;
-import jakarta.servlet.http.HttpServletRequest;
+import com.tanyourpeach.backend.util.TransactionHooks;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class AppointmentService {
 
+    // A string so the controller can use it as a @RequestParam default
+    public static final String DEFAULT_PAGE_SIZE = "50";
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    public static final int MAX_UPDATE_ATTEMPTS = 3;
+
     @Autowired
     private AppointmentRepository appointmentRepository;
 
     @Autowired
     private AvailabilityRepository availabilityRepository;
 
+    @Autowired
+    private AvailabilityVersions availabilityVersions;
+
+    @Autowired
+    private SlotEventBroadcaster slotEventBroadcaster;
+
+    @Autowired
+    private SlotHoldService slotHoldService;
+
+    @Autowired
+    private InventoryForecastService inventoryForecastService;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
     @Autowired
     private FinancialLogRepository financialLogRepository;
 
+    @Autowired
+    private FinancialTotalsService financialTotalsService;
+
     @Autowired
     private TanServiceRepository tanServiceRepository;
 
     @Autowired
-    private ServiceInventoryUsageRepository usageRepository;
+    private BillOfMaterialsCache billOfMaterialsCache;
 
     @Autowired
-    private InventoryRepository inventoryRepository;
+    private InventoryService inventoryService;
 
     @Autowired
     private ReceiptRepository receiptRepository;
@@ -57,10 +93,10 @@ public class AppointmentService {
     private AppointmentStatusHistoryRepository appointmentStatusHistoryRepository;
 
     @Autowired
-    private JwtService jwtService;
+    private UserRepository userRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private TransactionTemplate transactionTemplate;
 
     // Enum for appointment status
     public enum Status {
@@ -69,9 +105,37 @@ public class AppointmentService {
         CANCELLED
     }
 
-    // GET all appointments
-    public List<Appointment> getAllAppointments() {
-        return appointmentRepository.findAll();
+    // GET one keyset page of appointments ordered by (appointmentDateTime, appointmentId)
+    // Returns empty if the cursor is malformed
+    public Optional<CursorPage<Appointment>> getAppointmentsPage(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Limit limit = Limit.of(pageSize + 1); // one extra row tells us whether another page exists
+
+        List<Appointment> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = appointmentRepository.findFirstPage(limit);
+        } else {
+            Optional<CursorPosition> position = decodeCursor(cursor);
+            if (position.isEmpty()) return Optional.empty();
+            rows = appointmentRepository.findPageAfter(position.get().dateTime(), position.get().id(), limit);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextCursor = encodeCursor(rows.get(pageSize - 1));
+        }
+        return Optional.of(new CursorPage<>(rows, nextCursor));
+    }
+
+    // GET one page of a client's appointments by email, newest first
+    public List<Appointment> getAppointmentsByClientEmail(String email, int page, int size) {
+        return appointmentRepository.findHistoryByClientEmail(email, historyPage(page, size));
+    }
+
+    // GET one page of a registered user's appointments, newest first
+    public List<Appointment> getAppointmentsByUserId(Long userId, int page, int size) {
+        return appointmentRepository.findByUser_UserIdOrderByAppointmentDateTimeDesc(userId, historyPage(page, size));
     }
 
     // GET appointment by ID
@@ -91,14 +155,10 @@ public class AppointmentService {
     }
 
     // POST create new appointment
-    public Optional<Appointment> createAppointment(Appointment appointment, HttpServletRequest request) {
-        // Attempt to extract user from JWT if logged in
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-            String email = jwtService.extractUsername(token);
-            userRepository.findByEmail(email).ifPresent(appointment::setUser);
-        }
+    @Transactional
+    public Optional<Appointment> createAppointment(Appointment appointment, AuthenticatedUser user, String holdToken) {
+        // Link the logged-in user, if any
+        findUser(user).ifPresent(appointment::setUser);
 
         // Validate client info
         if (appointment.getClientName() == null || appointment.getClientName().trim().isEmpty()) return Optional.empty();
@@ -111,15 +171,15 @@ public class AppointmentService {
             return Optional.empty();
         }
 
-        Long slotId = appointment.getAvailability().getSlotId();
-        Optional<Availability> slotOpt = availabilityRepository.findById(slotId);
+        // Claim the slot in its own short transaction; empty means it is missing, a concurrent booking got it first,
+        // or someone else holds it (the caller's own hold token, if any, lets the claim through)
+        Optional<Availability> slotOpt = claimSlot(appointment.getAvailability().getSlotId(), holdToken);
         if (slotOpt.isEmpty()) return Optional.empty();
 
         Availability slot = slotOpt.get();
-        if (slot.getIsBooked()) return Optional.empty();
-
         appointment.setAvailability(slot); // set the fully loaded Availability object
-        slot.setIsBooked(true); // mark as booked
+        availabilityVersions.bump(slot.getDate());
+        slotEventBroadcaster.publish(SlotEvent.Type.BOOKED, slot);
 
         // Set appointment time and default status
         appointment.setAppointmentDateTime(LocalDateTime.of(slot.getDate(), slot.getStartTime()));
@@ -142,8 +202,10 @@ public class AppointmentService {
 
         // Save appointment
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        inventoryForecastService.invalidate();
 
-        availabilityRepository.save(slot);
+        // Promise the service's inventory to this booking; a shortage rolls the whole booking back
+        reserveInventory(savedAppointment);
 
         // Save initial status change (PENDING)
         AppointmentStatusHistory history = new AppointmentStatusHistory();
@@ -163,12 +225,30 @@ public class AppointmentService {
     }
 
     // PUT update appointment
-    public Optional<Appointment> updateAppointment(Long id, Appointment updated, HttpServletRequest request) {
+    // Runs as one transaction; a concurrent change to the same appointment, slot or inventory row
+    // rolls the attempt back and it is retried from a fresh read, so side effects apply once per transition.
+    // Confirming without enough stock rolls everything back and returns empty.
+    public Optional<Appointment> updateAppointment(Long id, Appointment updated, AuthenticatedUser user, String holdToken) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> applyUpdate(id, updated, user, holdToken));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_UPDATE_ATTEMPTS) throw e;
+            } catch (InsufficientInventoryException e) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    // Apply an appointment update inside the caller's transaction
+    private Optional<Appointment> applyUpdate(Long id, Appointment updated, AuthenticatedUser user, String holdToken) {
         Optional<Appointment> existingOpt = appointmentRepository.findById(id);
         if (existingOpt.isEmpty()) return Optional.empty();
         Appointment existing = existingOpt.get();
 
         Appointment.Status oldStatus = existing.getStatus();
+        Long oldServiceId = existing.getService() != null ? existing.getService().getServiceId() : null;
+        LocalDateTime oldDateTime = existing.getAppointmentDateTime();
 
         // Validate input fields
         if (updated.getClientName() == null || updated.getClientName().trim().isEmpty()) return Optional.empty();
@@ -185,24 +265,9 @@ public class AppointmentService {
             newService = serviceOpt.get();
         }
 
-        // Check inventory early if status is changing to CONFIRMED
-        if (oldStatus != Appointment.Status.CONFIRMED && updated.getStatus() == Appointment.Status.CONFIRMED) {
-            Long serviceId = newService != null
-                ? newService.getServiceId()
-                : (existing.getService() != null ? existing.getService().getServiceId() : null);
-
-            List<ServiceInventoryUsage> usages = usageRepository.findByService_ServiceId(serviceId);
-
-            boolean hasInsufficientInventory = usages.stream().anyMatch(usage -> {
-                Long itemId = usage.getItem().getItemId();
-                int quantityToDeduct = usage.getQuantityUsed();
-                return inventoryRepository.findById(itemId)
-                    .map(item -> item.getQuantity() < quantityToDeduct)
-                    .orElse(true);
-            });
-
-            if (hasInsufficientInventory) return Optional.empty();
-        }
+        // Cached BOM of the service being confirmed; the deduction below checks the stock itself
+        boolean isConfirming = oldStatus != Appointment.Status.CONFIRMED && updated.getStatus() == Appointment.Status.CONFIRMED;
+        BillOfMaterials bom = isConfirming ? billOfMaterialsCache.get(newService.getServiceId()) : null;
 
         // Handle availability change
         if (updated.getAvailability() != null && updated.getAvailability().getSlotId() != null) {
@@ -211,21 +276,20 @@ public class AppointmentService {
             boolean isChangingSlot = currentSlot == null || !newSlotId.equals(currentSlot.getSlotId());
 
             if (isChangingSlot) {
-                Optional<Availability> newSlotOpt = availabilityRepository.findById(newSlotId);
-                if (newSlotOpt.isEmpty() || Boolean.TRUE.equals(newSlotOpt.get().getIsBooked())) {
-                    return Optional.empty();
-                }
-
+                // Claim the new slot before giving up the current one; empty means missing, booked or held by someone else
+                Optional<Availability> newSlotOpt = claimSlot(newSlotId, holdToken);
+                if (newSlotOpt.isEmpty()) return Optional.empty();
                 Availability newSlot = newSlotOpt.get();
+                availabilityVersions.bump(newSlot.getDate());
+                slotEventBroadcaster.publish(SlotEvent.Type.BOOKED, newSlot);
 
                 if (currentSlot != null) {
                     currentSlot.setIsBooked(false);
                     availabilityRepository.save(currentSlot);
+                    availabilityVersions.bump(currentSlot.getDate());
+                    slotEventBroadcaster.publish(SlotEvent.Type.RELEASED, currentSlot);
                 }
 
-                newSlot.setIsBooked(true);
-                availabilityRepository.save(newSlot);
-
                 existing.setAvailability(newSlot);
                 existing.setAppointmentDateTime(LocalDateTime.of(newSlot.getDate(), newSlot.getStartTime()));
             }
@@ -258,11 +322,8 @@ public class AppointmentService {
             history.setAppointment(existing);
             history.setStatus(updated.getStatus().name());
 
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                String token = authHeader.substring(7);
-                String email = jwtService.extractUsername(token);
-                userRepository.findByEmail(email).ifPresent(history::setChangedByUser);
+            if (user != null) {
+                findUser(user).ifPresent(history::setChangedByUser);
             } else {
                 history.setchangedByEmail(updated.getClientEmail());
             }
@@ -270,17 +331,9 @@ public class AppointmentService {
             appointmentStatusHistoryRepository.save(history);
         }
 
-        // Deduct inventory after confirming sufficient inventory
-        if (oldStatus != Appointment.Status.CONFIRMED && updated.getStatus() == Appointment.Status.CONFIRMED) {
-            List<ServiceInventoryUsage> usages = usageRepository.findByService_ServiceId(existing.getService().getServiceId());
-            for (ServiceInventoryUsage usage : usages) {
-                Long itemId = usage.getItem().getItemId();
-                int quantityToDeduct = usage.getQuantityUsed();
-                inventoryRepository.findById(itemId).ifPresent(item -> {
-                    item.setQuantity(item.getQuantity() - quantityToDeduct);
-                    inventoryRepository.save(item);
-                });
-            }
+        // Deduct inventory; throws if any item is short, rolling back the whole update
+        if (isConfirming) {
+            inventoryService.deductForService(bom, existing.getAppointmentId());
 
             // Log revenue
             FinancialLog log = new FinancialLog();
@@ -289,7 +342,7 @@ public class AppointmentService {
             log.setReferenceId(existing.getAppointmentId());
             log.setAmount(BigDecimal.valueOf(existing.getTotalPrice()));
             log.setDescription("Confirmed appointment for " + existing.getClientName());
-            financialLogRepository.save(log);
+            financialTotalsService.recordLog(financialLogRepository.save(log));
         }
 
         // Generate receipt if confirming for first time
@@ -304,12 +357,82 @@ public class AppointmentService {
             }
         }
 
+        // Confirmation has deducted the stock and cancellation gives it up, so either ends the reservation;
+        // a pending booking that moved or changed service is reserved again for its new service and time
+        if (isConfirming || updated.getStatus() == Appointment.Status.CANCELLED) {
+            inventoryReservationService.release(existing.getAppointmentId());
+        } else if (updated.getStatus() == Appointment.Status.PENDING
+                && (!Objects.equals(oldServiceId, existing.getService().getServiceId())
+                    || !Objects.equals(oldDateTime, existing.getAppointmentDateTime()))) {
+            reserveInventory(existing);
+        }
+
         existing.setStatus(updated.getStatus());
 
         Appointment saved = appointmentRepository.save(existing);
+        inventoryForecastService.invalidate();
         return Optional.of(saved);
     }
 
+    // Reserve every item the appointment's service uses until its start time; throws so the caller's transaction rolls back
+    private void reserveInventory(Appointment appointment) {
+        if (appointment.getService() == null) return;
+
+        Long serviceId = appointment.getService().getServiceId();
+        BillOfMaterials bom = billOfMaterialsCache.get(serviceId);
+        if (!inventoryReservationService.reserve(appointment.getAppointmentId(), bom, appointment.getAppointmentDateTime())) {
+            throw new InsufficientInventoryException("Insufficient inventory for service " + serviceId);
+        }
+    }
+
+    // Claim a slot in its own transaction, so its row lock is not held while the rest of the booking runs;
+    // if the booking then rolls back, the claim is undone
+    private Optional<Availability> claimSlot(Long slotId, String holdToken) {
+        Optional<Availability> slot = slotHoldService.claim(slotId, holdToken);
+        if (slot.isPresent()) {
+            TransactionHooks.afterCompletion(committed -> {
+                if (!committed) slotHoldService.unclaim(slotId);
+            });
+        }
+        return slot;
+    }
+
+    // The logged-in user as a reference, so linking it costs no query; tokens issued before the
+    // user id was added to the claims fall back to a lookup by email
+    private Optional<User> findUser(AuthenticatedUser user) {
+        if (user == null) return Optional.empty();
+        if (user.getUserId() != null) return Optional.of(userRepository.getReferenceById(user.getUserId()));
+        return userRepository.findByEmail(user.getEmail());
+    }
+
+    // Build a bounded page request for history lookups
+    private Pageable historyPage(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+    }
+
+    // Encode the keyset position of an appointment as an opaque token
+    private String encodeCursor(Appointment last) {
+        String raw = last.getAppointmentDateTime() + "|" + last.getAppointmentId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Decode a cursor token back into its keyset position
+    private Optional<CursorPosition> decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator < 0) return Optional.empty();
+            LocalDateTime dateTime = LocalDateTime.parse(raw.substring(0, separator));
+            Long id = Long.valueOf(raw.substring(separator + 1));
+            return Optional.of(new CursorPosition(dateTime, id));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    // Keyset position carried by a cursor token
+    private record CursorPosition(LocalDateTime dateTime, Long id) {}
+
     // DELETE appointment
     @Transactional
     public boolean deleteAppointment(Long id) {
@@ -321,11 +444,15 @@ public class AppointmentService {
         if (slot != null) {
             slot.setIsBooked(false);
             availabilityRepository.save(slot);
+            availabilityVersions.bump(slot.getDate());
+            slotEventBroadcaster.publish(SlotEvent.Type.RELEASED, slot);
         }
 
         appointmentStatusHistoryRepository.deleteAllByAppointment_AppointmentId(id);
 
         appointmentRepository.deleteById(id);
+        inventoryForecastService.invalidate();
+        inventoryReservationService.release(id);
         return true;
     }
 }
\ No newline at end of file
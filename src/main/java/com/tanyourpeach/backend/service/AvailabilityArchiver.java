@@ -0,0 +1,113 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.model.Availability;
+import com.tanyourpeach.backend.repository.AvailabilityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Nightly job that moves past availability slots into availabilities_archive so the hot table
+// stays about the size of the forward-looking schedule.
+// Works in small batches, each its own short transaction, pauses between them and stops once business hours begin.
+// Slots referenced by an appointment are never moved.
+@Service
+public class AvailabilityArchiver {
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private AvailabilityVersions availabilityVersions;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${availability.archive.enabled:true}")
+    private boolean enabled;
+
+    // Slots dated before today minus this many days are archived
+    @Value("${availability.archive.retain-days:0}")
+    private int retainDays;
+
+    // Also archive booked slots whose appointment no longer exists
+    @Value("${availability.archive.include-booked:false}")
+    private boolean includeBooked;
+
+    @Value("${availability.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${availability.archive.pause-ms:200}")
+    private long pauseMs;
+
+    // "HH:mm"; no batch starts between these times
+    @Value("${availability.archive.business-hours-start:07:00}")
+    private String businessHoursStart;
+
+    @Value("${availability.archive.business-hours-end:21:00}")
+    private String businessHoursEnd;
+
+    @Scheduled(cron = "${availability.archive.cron:0 30 2 * * *}")
+    public void archiveNightly() {
+        if (enabled) archivePastSlots();
+    }
+
+    // Archive every eligible slot, batch by batch; returns how many were moved
+    public int archivePastSlots() {
+        LocalDate cutoff = LocalDate.now().minusDays(retainDays);
+        int total = 0;
+
+        while (!isBusinessHours(LocalTime.now())) {
+            List<Availability> batch = transactionTemplate.execute(status -> moveBatch(cutoff));
+            total += batch.size();
+            forget(batch);
+            if (batch.size() < batchSize) break;
+
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return total;
+    }
+
+    // Lock one batch, copy it to the archive and delete it, all in one short transaction
+    private List<Availability> moveBatch(LocalDate cutoff) {
+        List<Availability> batch = availabilityRepository.findArchivable(cutoff, includeBooked, Limit.of(batchSize));
+        if (batch.isEmpty()) return batch;
+
+        List<Long> slotIds = batch.stream().map(Availability::getSlotId).toList();
+        availabilityRepository.copyToArchive(slotIds);
+        availabilityRepository.deleteArchived(slotIds);
+        return batch;
+    }
+
+    // Drop archived slots from the in-memory index and invalidate cached views of their dates
+    private void forget(List<Availability> archived) {
+        if (archived.isEmpty()) return;
+
+        Set<LocalDate> dates = archived.stream().map(Availability::getDate).collect(Collectors.toSet());
+        availabilityIndex.withDateLocks(dates, () -> {
+            archived.forEach(slot -> availabilityIndex.remove(slot.getDate(), slot.getSlotId()));
+            return null;
+        });
+        dates.forEach(availabilityVersions::bump);
+    }
+
+    private boolean isBusinessHours(LocalTime time) {
+        return !time.isBefore(LocalTime.parse(businessHoursStart)) && time.isBefore(LocalTime.parse(businessHoursEnd));
+    }
+}
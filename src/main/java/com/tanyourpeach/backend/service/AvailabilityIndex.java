@@ -0,0 +1,133 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.model.Availability;
+import com.tanyourpeach.backend.repository.AvailabilityRepository;
+import com.tanyourpeach.backend.util.StripedLocks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// In-memory index of availability slots per date, ordered by start time, for O(log n) overlap checks.
+// A date is loaded from the database on first use and dropped again once it has been idle for a while.
+// Reads and writes of a date must happen inside withDateLock so two overlapping slots can never both be saved.
+@Service
+public class AvailabilityIndex {
+
+    public static final int LOCK_STRIPES = 64;
+
+    public static final long IDLE_EVICT_MS = 10 * 60 * 1000;
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    private final StripedLocks locks = new StripedLocks(LOCK_STRIPES);
+
+    private final Map<LocalDate, DaySlots> days = new ConcurrentHashMap<>();
+
+    // One indexed slot; slotId is null only for a probe
+    private record Slot(LocalTime start, LocalTime end, Long slotId) {}
+
+    private static final Comparator<Slot> BY_START = Comparator.comparing(Slot::start)
+            .thenComparing(Slot::slotId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    // The slots of one date plus when they were last used
+    private static class DaySlots {
+        final TreeSet<Slot> slots = new TreeSet<>(BY_START);
+        volatile long lastUsed = System.currentTimeMillis();
+    }
+
+    // Run an action while holding the lock for a date
+    public <T> T withDateLock(LocalDate date, Supplier<T> action) {
+        return locks.withLock(date, action);
+    }
+
+    // Run an action while holding the locks for two dates
+    public <T> T withDateLocks(LocalDate first, LocalDate second, Supplier<T> action) {
+        return withDateLocks(List.of(first, second), action);
+    }
+
+    // Run an action while holding the locks for every date, taken in stripe order to avoid deadlocks
+    public <T> T withDateLocks(Collection<LocalDate> dates, Supplier<T> action) {
+        return locks.withLocks(dates, action);
+    }
+
+    // Load every date not yet in memory with one range query; callers hold the dates' locks
+    public void preload(Collection<LocalDate> dates) {
+        List<LocalDate> missing = dates.stream().filter(date -> !days.containsKey(date)).sorted().toList();
+        if (missing.isEmpty()) return;
+
+        Map<LocalDate, DaySlots> loaded = new HashMap<>();
+        missing.forEach(date -> loaded.put(date, new DaySlots()));
+        for (Availability availability : availabilityRepository.findByDateBetween(missing.get(0), missing.get(missing.size() - 1))) {
+            DaySlots day = loaded.get(availability.getDate());
+            if (day != null) day.slots.add(toSlot(availability));
+        }
+        days.putAll(loaded);
+    }
+
+    // True if [start, end) intersects another slot on the date; slots that merely touch do not overlap.
+    // Slots never overlap each other, so the last one starting before `end` is the only candidate.
+    public boolean overlaps(LocalDate date, LocalTime start, LocalTime end, Long ignoreSlotId) {
+        TreeSet<Slot> slots = day(date).slots;
+        Slot candidate = slots.lower(new Slot(end, end, null));
+        while (candidate != null && ignoreSlotId != null && ignoreSlotId.equals(candidate.slotId())) {
+            candidate = slots.lower(candidate);
+        }
+        return candidate != null && candidate.end().isAfter(start);
+    }
+
+    // Record a saved slot
+    public void add(Availability availability) {
+        day(availability.getDate()).slots.add(toSlot(availability));
+    }
+
+    // Forget a slot that was moved or deleted; takes the slot's values from before the change
+    public void remove(LocalDate date, Long slotId) {
+        DaySlots day = days.get(date);
+        if (day != null) {
+            day.slots.removeIf(slot -> slotId.equals(slot.slotId()));
+        }
+    }
+
+    // Drop dates nobody has touched recently; they are reloaded on next use
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - IDLE_EVICT_MS;
+        for (LocalDate date : days.keySet()) {
+            withDateLock(date, () -> days.computeIfPresent(date, (d, day) -> day.lastUsed < cutoff ? null : day));
+        }
+    }
+
+    // Number of dates currently held in memory
+    public int loadedDays() {
+        return days.size();
+    }
+
+    // Slots of a date, loading them on first use; callers hold the date's lock
+    private DaySlots day(LocalDate date) {
+        DaySlots day = days.computeIfAbsent(date, d -> {
+            DaySlots loaded = new DaySlots();
+            for (Availability availability : availabilityRepository.findByDate(d)) {
+                loaded.slots.add(toSlot(availability));
+            }
+            return loaded;
+        });
+        day.lastUsed = System.currentTimeMillis();
+        return day;
+    }
+
+    private Slot toSlot(Availability availability) {
+        return new Slot(availability.getStartTime(), availability.getEndTime(), availability.getSlotId());
+    }
+}
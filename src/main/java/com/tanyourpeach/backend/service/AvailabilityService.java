@@ -1,30 +1,200 @@
 package com.tanyourpeach.backend.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.tanyourpeach.backend.dto.AvailabilityDay;
+import com.tanyourpeach.backend.dto.AvailabilityTemplate;
+import com.tanyourpeach.backend.dto.CursorPage;
+import com.tanyourpeach.backend.dto.SlotEvent;
+import com.tanyourpeach.backend.dto.SlotFit;
+import com.tanyourpeach.backend.dto.SlotHold;
 import com.tanyourpeach.backend.model.Appointment;
 import com.tanyourpeach.backend.model.Availability;
+import com.tanyourpeach.backend.model.TanService;
 import com.tanyourpeach.backend.repository.AvailabilityRepository;
+import com.tanyourpeach.backend.repository.TanServiceRepository;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 public class AvailabilityService {
 
+    public static final int MAX_TEMPLATE_DAYS = 366;
+
+    public static final int MAX_CALENDAR_DAYS = 92;
+
+    public static final int MAX_FIT_RESULTS = 20;
+
+    public static final int DEFAULT_WINDOW_DAYS = 28;
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final DateTimeFormatter START_TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
     @Autowired
     private AvailabilityRepository availabilityRepository;
 
-    // GET all availability slots
-    public List<Availability> getAllAvailabilities() {
-        return availabilityRepository.findAll();
+    @Autowired
+    private TanServiceRepository tanServiceRepository;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private AvailabilityVersions availabilityVersions;
+
+    @Autowired
+    private OpenSlotCache openSlotCache;
+
+    @Autowired
+    private SlotEventBroadcaster slotEventBroadcaster;
+
+    @Autowired
+    private SlotHoldService slotHoldService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // GET one keyset page of slots in [from, to], optionally only booked or only free ones.
+    // Dates default to the coming DEFAULT_WINDOW_DAYS; empty if the range or cursor is invalid
+    public Optional<CursorPage<Availability>> getAvailabilityPage(LocalDate from, LocalDate to, Boolean booked,
+                                                                  String cursor, int size) {
+        if (from == null) from = LocalDate.now();
+        if (to == null) to = from.plusDays(DEFAULT_WINDOW_DAYS - 1);
+        if (to.isBefore(from)) return Optional.empty();
+
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Limit limit = Limit.of(pageSize + 1); // one extra row tells us whether another page exists
+
+        List<Availability> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = availabilityRepository.findFirstPage(from, to, booked, limit);
+        } else {
+            Optional<CursorPosition> position = decodeCursor(cursor);
+            if (position.isEmpty()) return Optional.empty();
+            rows = availabilityRepository.findPageAfter(from, to, booked,
+                    position.get().date(), position.get().startTime(), position.get().id(), limit);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextCursor = encodeCursor(rows.get(pageSize - 1));
+        }
+        return Optional.of(new CursorPage<>(rows, nextCursor));
     }
 
-    // GET availability slot by ID
+    // Encode the keyset position of the last row on a page as an opaque cursor token
+    private String encodeCursor(Availability last) {
+        String raw = last.getDate() + "|" + last.getStartTime() + "|" + last.getSlotId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Decode a cursor token back into its keyset position
+    private Optional<CursorPosition> decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3) return Optional.empty();
+            return Optional.of(new CursorPosition(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), Long.valueOf(parts[2])));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    // Keyset position carried by a cursor token
+    private record CursorPosition(LocalDate date, LocalTime startTime, Long id) {}
+
+    // GET free slots for a date, served from the near-cache while the date is unchanged
     public List<Availability> getAvailableSlotsByDate(LocalDate date) {
-        return availabilityRepository.findByIsBookedFalseAndDate(date);
+        return openSlotCache.getOpenSlots(date, () -> availabilityRepository.findByIsBookedFalseAndDate(date));
+    }
+
+    // GET free slots per day for [from, to], one query for the whole range.
+    // Only days with at least one free slot are listed; returns null if the range is invalid.
+    public List<AvailabilityDay> getCalendar(LocalDate from, LocalDate to) {
+        if (!isValidCalendarRange(from, to)) return null;
+
+        Map<LocalDate, List<String>> startTimesByDate = new LinkedHashMap<>();
+        for (Availability slot : availabilityRepository.findByIsBookedFalseAndDateBetweenOrderByDateAscStartTimeAsc(from, to)) {
+            startTimesByDate.computeIfAbsent(slot.getDate(), d -> new ArrayList<>())
+                .add(slot.getStartTime().format(START_TIME_FORMAT));
+        }
+
+        List<AvailabilityDay> days = new ArrayList<>();
+        startTimesByDate.forEach((date, startTimes) -> days.add(new AvailabilityDay(date, startTimes)));
+        return days;
+    }
+
+    // ETag for the calendar of [from, to]; changes whenever a slot in the range changes, computed without a query
+    public String getCalendarETag(LocalDate from, LocalDate to) {
+        if (!isValidCalendarRange(from, to)) return null;
+        return availabilityVersions.rangeTag(from, to);
+    }
+
+    private boolean isValidCalendarRange(LocalDate from, LocalDate to) {
+        return !to.isBefore(from) && !to.isAfter(from.plusDays(MAX_CALENDAR_DAYS - 1));
+    }
+
+    // GET the earliest start times in [from, to] where the service's duration fits in back-to-back free slots.
+    // One ordered range scan over the window; returns null if the service or the search is invalid
+    public List<SlotFit> findNextFits(Long serviceId, LocalDate from, LocalDate to, int limit) {
+        if (limit < 1 || limit > MAX_FIT_RESULTS || !isValidCalendarRange(from, to)) return null;
+
+        TanService service = tanServiceRepository.findById(serviceId).orElse(null);
+        if (service == null || !Boolean.TRUE.equals(service.getIsActive()) ||
+            service.getDurationMinutes() == null || service.getDurationMinutes() <= 0) {
+            return null;
+        }
+
+        LocalDate today = LocalDate.now();
+        if (to.isBefore(today)) return List.of();
+        if (from.isBefore(today)) from = today;
+        LocalTime now = LocalTime.now();
+
+        Duration duration = Duration.ofMinutes(service.getDurationMinutes());
+        List<Availability> free = availabilityRepository.findByIsBookedFalseAndDateBetweenOrderByDateAscStartTimeAsc(from, to);
+        List<SlotFit> fits = new ArrayList<>();
+
+        // Two pointers: [i, j] is the shortest contiguous run starting at slot i that could hold the service
+        int j = 0;
+        for (int i = 0; i < free.size() && fits.size() < limit; i++) {
+            Availability first = free.get(i);
+            if (j < i) j = i;
+            while (Duration.between(first.getStartTime(), free.get(j).getEndTime()).compareTo(duration) < 0 &&
+                   j + 1 < free.size() && continuesRun(free.get(j), free.get(j + 1))) {
+                j++;
+            }
+
+            boolean fitsHere = Duration.between(first.getStartTime(), free.get(j).getEndTime()).compareTo(duration) >= 0;
+            boolean started = first.getDate().equals(today) && first.getStartTime().isBefore(now);
+            if (fitsHere && !started) {
+                List<Long> slotIds = new ArrayList<>();
+                for (int k = i; k <= j; k++) slotIds.add(free.get(k).getSlotId());
+                fits.add(new SlotFit(first.getDate(), first.getStartTime(), first.getStartTime().plus(duration), slotIds));
+            }
+        }
+        return fits;
+    }
+
+    // True if the next free slot starts exactly when the previous one ends, on the same day
+    private boolean continuesRun(Availability previous, Availability next) {
+        return previous.getDate().equals(next.getDate()) && previous.getEndTime().equals(next.getStartTime());
     }
 
     // POST create new availability slot
@@ -35,38 +205,84 @@ public class AvailabilityService {
         }
 
         // Prevent end time <= start time
-        if (availability.getEndTime().isBefore(availability.getStartTime()) ||
-            availability.getEndTime().equals(availability.getStartTime())) {
+        if (!availability.getEndTime().isAfter(availability.getStartTime())) {
             return null; // or throw IllegalArgumentException if you prefer
         }
 
-        // Prevent overlap
-        List<Availability> overlaps = availabilityRepository.findByDate(availability.getDate()).stream()
-            .filter(existing ->
-                !(availability.getEndTime().isBefore(existing.getStartTime()) ||
-                availability.getStartTime().isAfter(existing.getEndTime()))
-            ).toList();
+        // Check and insert under the date's lock so concurrent creators cannot both pass the overlap check
+        return availabilityIndex.withDateLock(availability.getDate(), () -> {
+            if (availabilityIndex.overlaps(availability.getDate(), availability.getStartTime(), availability.getEndTime(), null)) {
+                return null;
+            }
 
-        if (!overlaps.isEmpty()) {
+            Availability saved = availabilityRepository.save(availability);
+            availabilityIndex.add(saved);
+            availabilityVersions.bump(saved.getDate());
+            slotEventBroadcaster.publish(SlotEvent.Type.CREATED, saved);
+            return saved;
+        });
+    }
+
+    // POST expand a weekly template into slots over a date range in one transaction.
+    // Slots that overlap an existing one are skipped; returns the slots created, or null if the template is invalid.
+    public List<Availability> generateFromTemplate(AvailabilityTemplate template) {
+        if (template.getFromDate().isBefore(LocalDate.now()) ||
+            template.getToDate().isBefore(template.getFromDate()) ||
+            template.getToDate().isAfter(template.getFromDate().plusDays(MAX_TEMPLATE_DAYS - 1)) ||
+            !template.getEndTime().isAfter(template.getStartTime())) {
             return null;
         }
 
-        return availabilityRepository.save(availability);
+        List<Availability> generated = expandTemplate(template);
+        if (generated.isEmpty()) return List.of();
+
+        Set<LocalDate> dates = new TreeSet<>();
+        generated.forEach(slot -> dates.add(slot.getDate()));
+
+        return availabilityIndex.withDateLocks(dates, () -> {
+            // One range query for every date not already indexed, then O(log n) checks per slot
+            availabilityIndex.preload(dates);
+            List<Availability> toInsert = generated.stream()
+                .filter(slot -> !availabilityIndex.overlaps(slot.getDate(), slot.getStartTime(), slot.getEndTime(), null))
+                .toList();
+            if (toInsert.isEmpty()) return List.<Availability>of();
+
+            // Ids come from the pooled sequence, so the inserts go out as JDBC batches on flush
+            List<Availability> saved = transactionTemplate.execute(status -> availabilityRepository.saveAll(toInsert));
+            saved.forEach(availabilityIndex::add);
+            dates.forEach(availabilityVersions::bump);
+            saved.forEach(slot -> slotEventBroadcaster.publish(SlotEvent.Type.CREATED, slot));
+            return saved;
+        });
+    }
+
+    // Every slot the template describes, in date and time order
+    private List<Availability> expandTemplate(AvailabilityTemplate template) {
+        List<Availability> slots = new ArrayList<>();
+        Duration length = Duration.ofMinutes(template.getSlotMinutes());
+
+        for (LocalDate date = template.getFromDate(); !date.isAfter(template.getToDate()); date = date.plusDays(1)) {
+            if (!template.getDaysOfWeek().contains(date.getDayOfWeek())) continue;
+
+            LocalTime start = template.getStartTime();
+            // Stop at the template's end time, and before wrapping past midnight
+            while (Duration.between(start, template.getEndTime()).compareTo(length) >= 0) {
+                Availability slot = new Availability();
+                slot.setDate(date);
+                slot.setStartTime(start);
+                slot.setEndTime(start.plus(length));
+                slot.setIsBooked(false);
+                slot.setNotes(template.getNotes());
+                slots.add(slot);
+                start = start.plus(length);
+            }
+        }
+        return slots;
     }
 
     // PUT update availability slot
     public Optional<Availability> updateAvailability(Long id, Availability updated) {
-        // Skip self in overlap check
-        List<Availability> overlaps = availabilityRepository.findByDate(updated.getDate()).stream()
-            .filter(existing -> !existing.getSlotId().equals(id))
-            .filter(existing ->
-                !(updated.getEndTime().isBefore(existing.getStartTime()) ||
-                updated.getStartTime().isAfter(existing.getEndTime()))
-            ).toList();
-
-        if (!overlaps.isEmpty() ||
-            updated.getEndTime().isBefore(updated.getStartTime()) ||
-            updated.getEndTime().equals(updated.getStartTime())) {
+        if (!updated.getEndTime().isAfter(updated.getStartTime())) {
             return Optional.empty();
         }
 
@@ -79,19 +295,76 @@ public class AvailabilityService {
         }
 
         Availability existing = existingOpt.get();
-        existing.setDate(updated.getDate());
-        existing.setStartTime(updated.getStartTime());
-        existing.setEndTime(updated.getEndTime());
-        existing.setIsBooked(updated.getIsBooked());
-        existing.setNotes(updated.getNotes());
+        LocalDate oldDate = existing.getDate();
+
+        // Lock both the old and the new date when the slot moves between days
+        return availabilityIndex.withDateLocks(oldDate, updated.getDate(), () -> {
+            // Skip self in overlap check
+            if (availabilityIndex.overlaps(updated.getDate(), updated.getStartTime(), updated.getEndTime(), id)) {
+                return Optional.empty();
+            }
+
+            SlotEvent before = SlotEvent.of(SlotEvent.Type.DELETED, existing);
+            boolean wasBooked = Boolean.TRUE.equals(existing.getIsBooked());
+
+            existing.setDate(updated.getDate());
+            existing.setStartTime(updated.getStartTime());
+            existing.setEndTime(updated.getEndTime());
+            existing.setIsBooked(updated.getIsBooked());
+            existing.setNotes(updated.getNotes());
+
+            Availability saved = availabilityRepository.save(existing);
+            availabilityIndex.remove(oldDate, id);
+            availabilityIndex.add(saved);
+            availabilityVersions.bump(oldDate);
+            availabilityVersions.bump(saved.getDate());
+            publishUpdate(before, wasBooked, saved);
+            return Optional.of(saved);
+        });
+    }
 
-        return Optional.of(availabilityRepository.save(existing));
+    // GET stream of changes to the slots of the given dates; null when no more streams can be opened
+    public SseEmitter subscribeToSlotEvents(Set<LocalDate> dates) {
+        return slotEventBroadcaster.subscribe(dates);
+    }
+
+    // POST hold a free slot briefly during checkout; empty if it is booked or already held
+    public Optional<SlotHold> holdSlot(Long slotId) {
+        return slotHoldService.placeHold(slotId);
+    }
+
+    // DELETE give a hold back early; false if the token does not hold the slot
+    public boolean releaseHold(Long slotId, String token) {
+        return slotHoldService.releaseHold(slotId, token);
     }
 
     // DELETE availability slot
     public boolean deleteAvailability(Long id) {
-        if (!availabilityRepository.existsById(id)) return false;
-        availabilityRepository.deleteById(id);
-        return true;
+        Optional<Availability> existing = availabilityRepository.findById(id);
+        if (existing.isEmpty()) return false;
+
+        LocalDate date = existing.get().getDate();
+        return availabilityIndex.withDateLock(date, () -> {
+            availabilityRepository.deleteById(id);
+            availabilityIndex.remove(date, id);
+            availabilityVersions.bump(date);
+            slotEventBroadcaster.publish(SlotEvent.Type.DELETED, existing.get());
+            return true;
+        });
+    }
+
+    // A moved slot is announced as deleted and re-created; otherwise only a booking change is announced
+    private void publishUpdate(SlotEvent before, boolean wasBooked, Availability saved) {
+        boolean isBooked = Boolean.TRUE.equals(saved.getIsBooked());
+        boolean moved = !before.getDate().equals(saved.getDate()) ||
+            !before.getStartTime().equals(saved.getStartTime()) ||
+            !before.getEndTime().equals(saved.getEndTime());
+
+        if (moved) {
+            slotEventBroadcaster.publish(before);
+            slotEventBroadcaster.publish(SlotEvent.Type.CREATED, saved);
+        } else if (wasBooked != isBooked) {
+            slotEventBroadcaster.publish(isBooked ? SlotEvent.Type.BOOKED : SlotEvent.Type.RELEASED, saved);
+        }
     }
-}
\ No newline at end of file
+}
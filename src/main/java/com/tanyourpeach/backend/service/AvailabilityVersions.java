@@ -0,0 +1,68 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.util.TransactionHooks;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-date change counter for availability slots.
+// Every write that adds, moves, books or frees a slot bumps its date once its transaction completes,
+// so anything derived from a date's slots (ETags, cached lists) can tell when it is out of date.
+// Until then the date counts as unsettled, so caches neither serve nor store it while the write is in flight.
+@Service
+public class AvailabilityVersions {
+
+    // Distinguishes this process's counters from a previous run's, which all restarted at zero
+    private final long epoch = System.currentTimeMillis();
+
+    private final Map<LocalDate, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    // Writes to a date whose transaction has not completed yet
+    private final Map<LocalDate, AtomicInteger> pending = new ConcurrentHashMap<>();
+
+    // Current version of a date; dates never written since startup are at zero
+    public long current(LocalDate date) {
+        AtomicLong version = versions.get(date);
+        return version != null ? version.get() : 0;
+    }
+
+    // True if no write to the date is in flight
+    public boolean isSettled(LocalDate date) {
+        AtomicInteger writes = pending.get(date);
+        return writes == null || writes.get() == 0;
+    }
+
+    // Mark a date as changed, once the surrounding transaction completes or right away when there is none
+    public void bump(LocalDate date) {
+        if (date == null) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.computeIfAbsent(date, d -> new AtomicInteger()).incrementAndGet();
+            TransactionHooks.afterCompletion(committed -> {
+                // Bump on rollback too; a spurious change only costs a reload
+                increment(date);
+                pending.get(date).decrementAndGet();
+            });
+        } else {
+            increment(date);
+        }
+    }
+
+    // Opaque tag that changes whenever any date in [from, to] changes
+    public String rangeTag(LocalDate from, LocalDate to) {
+        long hash = 17;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            hash = 31 * hash + current(date);
+        }
+        return Long.toHexString(epoch) + "-" + from + "-" + to + "-" + Long.toHexString(hash);
+    }
+
+    private void increment(LocalDate date) {
+        versions.computeIfAbsent(date, d -> new AtomicLong()).incrementAndGet();
+    }
+}
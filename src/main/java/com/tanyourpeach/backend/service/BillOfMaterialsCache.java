@@ -0,0 +1,95 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.BillOfMaterials;
+import com.tanyourpeach.backend.repository.ServiceInventoryUsageRepository;
+import com.tanyourpeach.backend.repository.ServiceInventoryUsageRepository.UsageLink;
+import com.tanyourpeach.backend.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+// In-memory bill of materials of every service, so booking, confirming and forecasting never query the usage table.
+// Readers get an immutable map that is swapped whole; ServiceInventoryUsageService reports each committed edit,
+// which replaces one service's BOM, and the table is reloaded periodically to pick up changes made outside the application.
+@Service
+public class BillOfMaterialsCache {
+
+    public static final long RELOAD_MS = 10 * 60 * 1000;
+
+    @Autowired
+    private ServiceInventoryUsageRepository usageRepository;
+
+    private volatile Map<Long, BillOfMaterials> boms;
+
+    // What a service uses; empty if it uses no inventory
+    public BillOfMaterials get(Long serviceId) {
+        BillOfMaterials bom = current().get(serviceId);
+        return bom != null ? bom : BillOfMaterials.empty(serviceId);
+    }
+
+    // Every service that uses inventory
+    public Map<Long, BillOfMaterials> getAll() {
+        return current();
+    }
+
+    // Record a service's use of an item after it is created or its quantity changes
+    public void put(Long serviceId, Long itemId, int quantity) {
+        TransactionHooks.afterCommit(() -> replace(serviceId, bom -> bom.with(itemId, quantity)));
+    }
+
+    // Record that a service no longer uses an item
+    public void remove(Long serviceId, Long itemId) {
+        TransactionHooks.afterCommit(() -> replace(serviceId, bom -> bom.without(itemId)));
+    }
+
+    // Rebuild every BOM from the table in one query
+    @Scheduled(fixedDelay = RELOAD_MS)
+    public synchronized void reload() {
+        Map<Long, List<UsageLink>> linksByService = new HashMap<>();
+        for (UsageLink link : usageRepository.findAllLinks()) {
+            linksByService.computeIfAbsent(link.getServiceId(), id -> new ArrayList<>()).add(link);
+        }
+
+        Map<Long, BillOfMaterials> fresh = new HashMap<>();
+        linksByService.forEach((serviceId, links) -> {
+            // Rows come ordered by item id, as BillOfMaterials expects
+            long[] itemIds = new long[links.size()];
+            int[] quantities = new int[links.size()];
+            for (int i = 0; i < links.size(); i++) {
+                itemIds[i] = links.get(i).getItemId();
+                quantities[i] = links.get(i).getQuantityUsed() != null ? links.get(i).getQuantityUsed() : 1;
+            }
+            fresh.put(serviceId, new BillOfMaterials(serviceId, itemIds, quantities));
+        });
+        boms = Map.copyOf(fresh);
+    }
+
+    private Map<Long, BillOfMaterials> current() {
+        Map<Long, BillOfMaterials> snapshot = boms;
+        if (snapshot != null) return snapshot;
+        synchronized (this) {
+            if (boms == null) reload();
+            return boms;
+        }
+    }
+
+    // Swap in a copy of the map with one service's BOM changed; synchronized so concurrent edits all apply
+    private synchronized void replace(Long serviceId, UnaryOperator<BillOfMaterials> change) {
+        if (boms == null) return; // not loaded yet; the first read picks up the committed rows
+
+        BillOfMaterials bom = change.apply(get(serviceId));
+        Map<Long, BillOfMaterials> next = new HashMap<>(boms);
+        if (bom.isEmpty()) {
+            next.remove(serviceId);
+        } else {
+            next.put(serviceId, bom);
+        }
+        boms = Map.copyOf(next);
+    }
+}
@@ -0,0 +1,156 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.util.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+// Pushes events of one kind to Server-Sent Event subscribers.
+// Publishing only queues the event; a small dispatcher pool drains each subscriber's bounded buffer,
+// so a slow client never blocks the writer, and when its buffer is full the oldest event is dropped.
+public abstract class EventBroadcaster<E> {
+
+    public static final int BUFFER_SIZE = 64;
+
+    public static final int MAX_SUBSCRIBERS = 1000;
+
+    public static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000;
+
+    private final Set<Subscriber<E>> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong eventIds = new AtomicLong();
+
+    private final String eventName;
+
+    private final ExecutorService dispatcher;
+
+    protected EventBroadcaster(String eventName) {
+        this.eventName = eventName;
+        this.dispatcher = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, eventName + "-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // One open stream, the events it wants and the events waiting to be written to it
+    private static class Subscriber<E> {
+        final SseEmitter emitter;
+        final Predicate<E> wants;
+        final ArrayDeque<SseEventBuilder> buffer = new ArrayDeque<>(BUFFER_SIZE);
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicLong dropped = new AtomicLong();
+
+        Subscriber(SseEmitter emitter, Predicate<E> wants) {
+            this.emitter = emitter;
+            this.wants = wants;
+        }
+
+        // Queue an event, dropping the oldest one when the buffer is full
+        synchronized void offer(SseEventBuilder event) {
+            if (buffer.size() == BUFFER_SIZE) {
+                buffer.pollFirst();
+                dropped.incrementAndGet();
+            }
+            buffer.addLast(event);
+        }
+
+        synchronized SseEventBuilder poll() {
+            return buffer.pollFirst();
+        }
+
+        synchronized boolean hasPending() {
+            return !buffer.isEmpty();
+        }
+    }
+
+    // Open a stream of the events matching a filter; returns null when the server is at its subscriber limit
+    protected SseEmitter subscribe(Predicate<E> wants) {
+        if (subscribers.size() >= MAX_SUBSCRIBERS) return null;
+
+        SseEmitter emitter = newEmitter();
+        Subscriber<E> subscriber = new Subscriber<>(emitter, wants);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    // Send an event once the surrounding transaction commits, or right away when there is none
+    public void publish(E event) {
+        TransactionHooks.afterCommit(() -> send(event));
+    }
+
+    // Send an event to every interested subscriber now
+    public void send(E event) {
+        String id = String.valueOf(eventIds.incrementAndGet());
+        for (Subscriber<E> subscriber : subscribers) {
+            if (!subscriber.wants.test(event)) continue;
+            // Builders are consumed when sent, so each subscriber gets its own
+            enqueue(subscriber, SseEmitter.event().id(id).name(eventName).data(event, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    // Number of open streams
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    // Keep idle connections open through proxies and notice clients that have gone away
+    @Scheduled(fixedDelay = 25_000)
+    public void heartbeat() {
+        for (Subscriber<E> subscriber : subscribers) {
+            enqueue(subscriber, SseEmitter.event().comment("keep-alive"));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        dispatcher.shutdownNow();
+    }
+
+    // Overridden in tests to capture what is sent
+    protected SseEmitter newEmitter() {
+        return new SseEmitter(EMITTER_TIMEOUT_MS);
+    }
+
+    private void enqueue(Subscriber<E> subscriber, SseEventBuilder event) {
+        subscriber.offer(event);
+        if (subscriber.draining.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    // Write everything buffered for one subscriber; only one drain per subscriber runs at a time
+    private void drain(Subscriber<E> subscriber) {
+        while (true) {
+            SseEventBuilder event = subscriber.poll();
+            if (event == null) {
+                subscriber.draining.set(false);
+                // An event may have arrived after the last poll but before the flag was cleared
+                if (subscriber.hasPending() && subscriber.draining.compareAndSet(false, true)) continue;
+                return;
+            }
+            try {
+                subscriber.emitter.send(event);
+            } catch (Exception e) {
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+                return;
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.tanyourpeach.backend.model.FinancialLog;
 import com.tanyourpeach.backend.repository.FinancialLogRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,6 +15,9 @@ public class FinancialLogService {
     @Autowired
     private FinancialLogRepository financialLogRepository;
 
+    @Autowired
+    private FinancialTotalsService financialTotalsService;
+
     // Get all logs
     public List<FinancialLog> getAllLogs() {
         return financialLogRepository.findAll();
@@ -25,6 +29,7 @@ public class FinancialLogService {
     }
 
     // Create a new log
+    @Transactional
     public FinancialLog createLog(FinancialLog log) {
         // Basic validation
         if (log.getAmount() == null || log.getAmount().signum() < 0 ||
@@ -32,10 +37,13 @@ public class FinancialLogService {
             return null; // or throw IllegalArgumentException if preferred
         }
 
-        return financialLogRepository.save(log);
+        FinancialLog saved = financialLogRepository.save(log);
+        financialTotalsService.recordLog(saved);
+        return saved;
     }
 
     // Update an existing log
+    @Transactional
     public Optional<FinancialLog> updateLog(Long id, FinancialLog updated) {
         // Basic validation
         if (updated.getAmount() == null || updated.getAmount().signum() < 0 ||
@@ -44,6 +52,10 @@ public class FinancialLogService {
         }
 
         return financialLogRepository.findById(id).map(existing -> {
+            // Move the old amount out of the running totals and the new one in
+            financialTotalsService.adjust(existing.getType(), existing.getLogDate(), existing.getAmount().negate());
+            financialTotalsService.adjust(updated.getType(), existing.getLogDate(), updated.getAmount());
+
             existing.setType(updated.getType());
             existing.setSource(updated.getSource());
             existing.setReferenceId(updated.getReferenceId());
@@ -54,10 +66,13 @@ public class FinancialLogService {
     }
 
     // Delete a log
+    @Transactional
     public boolean deleteLog(Long id) {
-        if (!financialLogRepository.existsById(id)) {
+        Optional<FinancialLog> existing = financialLogRepository.findById(id);
+        if (existing.isEmpty()) {
             return false;
         }
+        financialTotalsService.reverseLog(existing.get());
         financialLogRepository.deleteById(id);
         return true;
     }
@@ -0,0 +1,168 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.FinancialTotalDrift;
+import com.tanyourpeach.backend.model.FinancialLog;
+import com.tanyourpeach.backend.model.FinancialTotal;
+import com.tanyourpeach.backend.model.FinancialTotalKey;
+import com.tanyourpeach.backend.repository.FinancialLogRepository;
+import com.tanyourpeach.backend.repository.FinancialLogRepository.MonthlyTypeTotal;
+import com.tanyourpeach.backend.repository.FinancialTotalRepository;
+import com.tanyourpeach.backend.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps all-time and per-month revenue/expense totals in step with financial_log.
+// Every log write adds its delta to the financial_totals table in the caller's transaction and,
+// once that commits, re-reads the two rows it touched into an in-memory mirror, so dashboard reads never scan the log.
+@Service
+public class FinancialTotalsService {
+
+    @Autowired
+    private FinancialTotalRepository financialTotalRepository;
+
+    @Autowired
+    private FinancialLogRepository financialLogRepository;
+
+    private final Map<FinancialTotalKey, BigDecimal> totals = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded = false;
+
+    // Count a newly saved log
+    public void recordLog(FinancialLog log) {
+        adjust(log.getType(), log.getLogDate(), log.getAmount());
+    }
+
+    // Remove a deleted log from the totals
+    public void reverseLog(FinancialLog log) {
+        adjust(log.getType(), log.getLogDate(), log.getAmount().negate());
+    }
+
+    // Add a delta to the all-time total and the month bucket of the given log date.
+    // log_date is filled in by the database, so unsaved logs fall into the current month.
+    @Transactional
+    public void adjust(FinancialLog.Type type, LocalDateTime logDate, BigDecimal delta) {
+        if (type == null || delta == null || delta.signum() == 0) return;
+
+        String month = (logDate != null ? YearMonth.from(logDate) : YearMonth.now()).toString();
+        financialTotalRepository.addToTotal(FinancialTotalKey.ALL_TIME, type.name(), delta);
+        financialTotalRepository.addToTotal(month, type.name(), delta);
+
+        TransactionHooks.afterCommit(() -> refresh(List.of(new FinancialTotalKey(FinancialTotalKey.ALL_TIME, type), new FinancialTotalKey(month, type))));
+    }
+
+    // All-time total for a type
+    public BigDecimal getTotal(FinancialLog.Type type) {
+        ensureLoaded();
+        return totals.getOrDefault(new FinancialTotalKey(FinancialTotalKey.ALL_TIME, type), BigDecimal.ZERO);
+    }
+
+    // Total for a type in one calendar month
+    public BigDecimal getMonthTotal(YearMonth month, FinancialLog.Type type) {
+        ensureLoaded();
+        return totals.getOrDefault(new FinancialTotalKey(month.toString(), type), BigDecimal.ZERO);
+    }
+
+    // Recompute every total from financial_log and report the ones that disagree, without changing anything
+    @Transactional(readOnly = true)
+    public List<FinancialTotalDrift> verify() {
+        ensureLoaded();
+        return findDrift(recompute());
+    }
+
+    // Recompute every total from financial_log, overwrite the table and the mirror, and report what was wrong.
+    // The totals are locked before anything else is read, so a concurrent log write either committed before
+    // the recompute sees the log, or waits and adds its delta to the rebuilt row.
+    @Transactional
+    public synchronized List<FinancialTotalDrift> rebuild() {
+        financialTotalRepository.lockAll();
+        ensureLoaded();
+        Map<FinancialTotalKey, BigDecimal> actual = recompute();
+        List<FinancialTotalDrift> drift = findDrift(actual);
+
+        financialTotalRepository.deleteAllInBatch();
+        List<FinancialTotal> rows = new ArrayList<>();
+        actual.forEach((key, amount) -> rows.add(new FinancialTotal(key, amount)));
+        financialTotalRepository.saveAll(rows);
+
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                totals.clear();
+                totals.putAll(actual);
+            }
+        });
+        return drift;
+    }
+
+    // Sum the raw log into the same keys the running totals use
+    private Map<FinancialTotalKey, BigDecimal> recompute() {
+        Map<FinancialTotalKey, BigDecimal> actual = new HashMap<>();
+        for (MonthlyTypeTotal row : financialLogRepository.sumAllByMonthAndType()) {
+            String month = YearMonth.of(row.getLogYear(), row.getLogMonth()).toString();
+            actual.merge(new FinancialTotalKey(month, row.getType()), row.getTotal(), BigDecimal::add);
+            actual.merge(new FinancialTotalKey(FinancialTotalKey.ALL_TIME, row.getType()), row.getTotal(), BigDecimal::add);
+        }
+        return actual;
+    }
+
+    // Compare recomputed totals with the stored and cached ones; a missing row counts as zero
+    private List<FinancialTotalDrift> findDrift(Map<FinancialTotalKey, BigDecimal> actual) {
+        Map<FinancialTotalKey, BigDecimal> stored = new HashMap<>();
+        for (FinancialTotal row : financialTotalRepository.findAll()) {
+            stored.put(row.getId(), row.getAmount());
+        }
+
+        Set<FinancialTotalKey> keys = new HashSet<>(actual.keySet());
+        keys.addAll(stored.keySet());
+        keys.addAll(totals.keySet());
+
+        List<FinancialTotalDrift> drift = new ArrayList<>();
+        for (FinancialTotalKey key : keys) {
+            BigDecimal expected = actual.getOrDefault(key, BigDecimal.ZERO);
+            BigDecimal inTable = stored.getOrDefault(key, BigDecimal.ZERO);
+            BigDecimal inMemory = totals.getOrDefault(key, BigDecimal.ZERO);
+            if (expected.compareTo(inTable) != 0 || expected.compareTo(inMemory) != 0) {
+                drift.add(new FinancialTotalDrift(key.getPeriod(), key.getType(), inTable, inMemory, expected));
+            }
+        }
+        drift.sort((a, b) -> (a.getPeriod() + a.getType()).compareTo(b.getPeriod() + b.getType()));
+        return drift;
+    }
+
+    // Copy committed rows into the mirror. Copying instead of adding the delta, under the same monitor as the
+    // first load, means a load that already saw the delta cannot count it twice, and an older read never lands last.
+    private synchronized void refresh(List<FinancialTotalKey> keys) {
+        if (!loaded) return; // the first read loads the committed rows
+        for (FinancialTotalKey key : keys) {
+            BigDecimal amount = financialTotalRepository.findAmount(key.getPeriod(), key.getType());
+            if (amount != null) {
+                totals.put(key, amount);
+            } else {
+                totals.remove(key);
+            }
+        }
+    }
+
+    // Fill the mirror from the table on first use
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            for (FinancialTotal row : financialTotalRepository.findAll()) {
+                totals.put(row.getId(), row.getAmount());
+            }
+            loaded = true;
+        }
+    }
+}
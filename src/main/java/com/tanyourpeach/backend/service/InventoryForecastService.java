@@ -0,0 +1,150 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.BillOfMaterials;
+import com.tanyourpeach.backend.dto.DailyUsage;
+import com.tanyourpeach.backend.dto.ItemForecast;
+import com.tanyourpeach.backend.model.Appointment;
+import com.tanyourpeach.backend.model.Inventory;
+import com.tanyourpeach.backend.repository.AppointmentRepository;
+import com.tanyourpeach.backend.repository.AppointmentRepository.DailyServiceBookings;
+import com.tanyourpeach.backend.repository.InventoryRepository;
+import com.tanyourpeach.backend.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Projects how upcoming PENDING and CONFIRMED appointments use up inventory, day by day.
+// Bookings per service and day come from one grouped query and are cached until a booking changes or the day rolls over;
+// each call expands them into per-item demand through the cached bills of materials, so BOM edits show up right away.
+// Stock on hand is read fresh on every call, so receipts and deductions never leave the forecast stale.
+@Service
+public class InventoryForecastService {
+
+    public static final int DEFAULT_HORIZON_DAYS = 60;
+
+    public static final int MAX_HORIZON_DAYS = 180;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private BillOfMaterialsCache billOfMaterialsCache;
+
+    // Bumped after every committed change that affects demand; a cached demand from an older generation is discarded
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile Demand cached;
+
+    // Bookings per service for each day of the maximum horizon, starting at `from`
+    private record Demand(LocalDate from, long generation, Map<Long, long[]> pending, Map<Long, long[]> confirmed) {}
+
+    // Forecast every item over the next `days` days, items that run out soonest first
+    public List<ItemForecast> getForecast(int days) {
+        int horizon = Math.max(1, Math.min(days, MAX_HORIZON_DAYS));
+        Demand demand = currentDemand();
+        Map<Long, long[]> pending = itemDemand(demand.pending());
+        Map<Long, long[]> confirmed = itemDemand(demand.confirmed());
+
+        List<ItemForecast> forecasts = new ArrayList<>();
+        for (Inventory item : inventoryRepository.findAll()) {
+            forecasts.add(project(item, demand.from(), pending.get(item.getItemId()), confirmed.get(item.getItemId()), horizon));
+        }
+        forecasts.sort(Comparator.comparing(ItemForecast::getStockOutDate, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(ItemForecast::getItemName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return forecasts;
+    }
+
+    // Drop the cached demand once the surrounding transaction commits, or right away when there is none
+    public void invalidate() {
+        TransactionHooks.afterCommit(generation::incrementAndGet);
+    }
+
+    // Walk one item's booked days, taking pending demand out of the stock on hand
+    private ItemForecast project(Inventory item, LocalDate from, long[] pending, long[] confirmed, int horizon) {
+        int onHand = item.getQuantity() != null ? item.getQuantity() : 0;
+
+        long remaining = onHand;
+        long pendingDemand = 0;
+        LocalDate stockOutDate = null;
+        List<DailyUsage> days = new ArrayList<>();
+        if (pending != null || confirmed != null) {
+            for (int day = 0; day < horizon; day++) {
+                long pendingUnits = pending != null ? pending[day] : 0;
+                long confirmedUnits = confirmed != null ? confirmed[day] : 0;
+                if (pendingUnits == 0 && confirmedUnits == 0) continue;
+
+                // Confirmed bookings were deducted when they were confirmed, so only pending ones draw stock down
+                remaining -= pendingUnits;
+                pendingDemand += pendingUnits;
+                LocalDate date = from.plusDays(day);
+                if (stockOutDate == null && remaining < 0) stockOutDate = date;
+                days.add(new DailyUsage(date, pendingUnits, confirmedUnits, remaining));
+            }
+        }
+        return new ItemForecast(item.getItemId(), item.getItemName(), onHand, pendingDemand, stockOutDate, days);
+    }
+
+    // Cached demand if it is from today and nothing has changed since, otherwise a fresh load
+    private Demand currentDemand() {
+        LocalDate today = LocalDate.now();
+        Demand demand = cached;
+        if (isCurrent(demand, today)) return demand;
+
+        synchronized (this) {
+            demand = cached;
+            if (isCurrent(demand, today)) return demand;
+
+            long loadedAt = generation.get();
+            demand = load(today, loadedAt);
+            // Cache only if no booking changed while the query ran
+            if (generation.get() == loadedAt) cached = demand;
+            return demand;
+        }
+    }
+
+    private boolean isCurrent(Demand demand, LocalDate today) {
+        return demand != null && demand.from().equals(today) && demand.generation() == generation.get();
+    }
+
+    private Demand load(LocalDate from, long loadedAt) {
+        Map<Long, long[]> pending = new HashMap<>();
+        Map<Long, long[]> confirmed = new HashMap<>();
+        List<DailyServiceBookings> rows = appointmentRepository.countBookingsByDay(from.atStartOfDay(),
+                from.plusDays(MAX_HORIZON_DAYS).atStartOfDay(), List.of(Appointment.Status.PENDING, Appointment.Status.CONFIRMED));
+
+        for (DailyServiceBookings row : rows) {
+            int day = (int) ChronoUnit.DAYS.between(from, row.getDay());
+            if (day < 0 || day >= MAX_HORIZON_DAYS || row.getServiceId() == null) continue;
+            Map<Long, long[]> target = row.getStatus() == Appointment.Status.PENDING ? pending : confirmed;
+            target.computeIfAbsent(row.getServiceId(), id -> new long[MAX_HORIZON_DAYS])[day] += row.getBookings();
+        }
+        return new Demand(from, loadedAt, pending, confirmed);
+    }
+
+    // Turn bookings per service into units per item with each service's current BOM
+    private Map<Long, long[]> itemDemand(Map<Long, long[]> bookingsByService) {
+        Map<Long, long[]> byItem = new HashMap<>();
+        bookingsByService.forEach((serviceId, bookings) -> {
+            BillOfMaterials bom = billOfMaterialsCache.get(serviceId);
+            for (int i = 0; i < bom.size(); i++) {
+                long[] units = byItem.computeIfAbsent(bom.itemIdAt(i), id -> new long[MAX_HORIZON_DAYS]);
+                int quantity = bom.quantityAt(i);
+                for (int day = 0; day < MAX_HORIZON_DAYS; day++) {
+                    units[day] += bookings[day] * quantity;
+                }
+            }
+        });
+        return byItem;
+    }
+}
@@ -0,0 +1,100 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.StockLevel;
+import com.tanyourpeach.backend.model.InventoryMovement;
+import com.tanyourpeach.backend.model.InventorySnapshot;
+import com.tanyourpeach.backend.repository.InventoryMovementRepository;
+import com.tanyourpeach.backend.repository.InventoryMovementRepository.ItemTail;
+import com.tanyourpeach.backend.repository.InventoryMovementRepository.MovementSum;
+import com.tanyourpeach.backend.repository.InventorySnapshotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Append-only ledger of inventory movements with periodic per-item snapshots.
+// Each movement is inserted in the transaction that changes the stock, so it commits or rolls back with it;
+// pooled ids and hibernate.jdbc.batch_size turn a transaction's movements into one batched insert.
+// Stock at any time is the latest snapshot at or before it plus the movements after that snapshot,
+// so a point-in-time query reads at most one compaction interval of ledger rows.
+@Service
+public class InventoryLedger {
+
+    // Compaction leaves the newest movements alone, since a transaction still in flight may hold lower ids;
+    // assumes no transaction that records movements runs this long
+    public static final Duration COMPACTION_LAG = Duration.ofMinutes(5);
+
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+
+    @Autowired
+    private InventorySnapshotRepository snapshotRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Insert a movement in the caller's transaction
+    @Transactional
+    public void record(Long itemId, InventoryMovement.Type type, int quantityDelta, BigDecimal costDelta,
+                       Long appointmentId, String note) {
+        if (itemId == null || (quantityDelta == 0 && (costDelta == null || costDelta.signum() == 0))) return;
+
+        InventoryMovement movement = new InventoryMovement(itemId, type, quantityDelta,
+                costDelta != null ? costDelta : BigDecimal.ZERO, appointmentId, note);
+        movement.setCreatedAt(LocalDateTime.now());
+        movementRepository.save(movement);
+    }
+
+    // Stock according to the ledger right now
+    public StockLevel currentStock(Long itemId) {
+        return stockAt(itemId, LocalDateTime.now());
+    }
+
+    // Stock according to the ledger at a point in time
+    public StockLevel stockAt(Long itemId, LocalDateTime at) {
+        InventorySnapshot snapshot = snapshotRepository
+                .findFirstByItemIdAndAsOfLessThanEqualOrderByLastMovementIdDesc(itemId, at)
+                .orElse(null);
+        long baseQuantity = snapshot != null ? snapshot.getQuantity() : 0;
+        BigDecimal baseSpent = snapshot != null ? snapshot.getTotalSpent() : BigDecimal.ZERO;
+        long afterMovementId = snapshot != null ? snapshot.getLastMovementId() : 0;
+
+        MovementSum tail = movementRepository.sumTail(itemId, afterMovementId, at);
+        return new StockLevel(itemId, baseQuantity + tail.getQuantity(), baseSpent.add(tail.getCost()), at);
+    }
+
+    // Fold every item's settled ledger tail into a new snapshot; the tail is found with one range scan past the last compaction
+    @Scheduled(cron = "0 15 * * * *")
+    public synchronized int compactSnapshots() {
+        LocalDateTime settledBefore = LocalDateTime.now().minus(COMPACTION_LAG);
+        Integer written = transactionTemplate.execute(status -> {
+            List<ItemTail> tails = movementRepository.sumTailsAfter(snapshotRepository.findCompactedThrough(), settledBefore);
+            if (tails.isEmpty()) return 0;
+
+            Map<Long, InventorySnapshot> latest = snapshotRepository
+                    .findLatestForItems(tails.stream().map(ItemTail::getItemId).toList()).stream()
+                    .collect(Collectors.toMap(InventorySnapshot::getItemId, Function.identity()));
+
+            List<InventorySnapshot> snapshots = new ArrayList<>();
+            for (ItemTail tail : tails) {
+                InventorySnapshot previous = latest.get(tail.getItemId());
+                long quantity = (previous != null ? previous.getQuantity() : 0) + tail.getQuantity();
+                BigDecimal spent = (previous != null ? previous.getTotalSpent() : BigDecimal.ZERO).add(tail.getCost());
+                snapshots.add(new InventorySnapshot(tail.getItemId(), quantity, spent, tail.getLastMovementId(), tail.getAsOf()));
+            }
+            snapshotRepository.saveAll(snapshots);
+            return snapshots.size();
+        });
+        return written != null ? written : 0;
+    }
+}
@@ -0,0 +1,244 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.BillOfMaterials;
+import com.tanyourpeach.backend.model.InventoryReservation;
+import com.tanyourpeach.backend.repository.InventoryReservationRepository;
+import com.tanyourpeach.backend.util.StripedLocks;
+import com.tanyourpeach.backend.util.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+// Soft reservations of inventory for pending appointments.
+// Available-to-promise is stock on hand (from LowStockTracker) minus units reserved, kept in memory per item
+// behind striped locks, so booking checks and reserves without a database round trip.
+// Reservation rows are written to inventory_reservation in batches and only used to rebuild the counters on startup.
+@Service
+public class InventoryReservationService {
+
+    public static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private LowStockTracker lowStockTracker;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final StripedLocks locks = new StripedLocks(LOCK_STRIPES);
+
+    private final Map<Long, Long> reservedByItem = new ConcurrentHashMap<>();
+
+    private final Map<Long, Reservation> reservations = new ConcurrentHashMap<>();
+
+    private final ConcurrentLinkedDeque<Write> pending = new ConcurrentLinkedDeque<>();
+
+    private volatile boolean loaded;
+
+    // Units one appointment holds of each item, until expiresAt
+    private record Reservation(Map<Long, Integer> quantities, LocalDateTime expiresAt) {}
+
+    // One change waiting to be written; no rows means the appointment's rows are deleted
+    private record Write(Long appointmentId, List<InventoryReservation> rows) {}
+
+    // Reserve what a service uses for an appointment, replacing any reservation it already holds.
+    // False, with nothing reserved, if any item has less available than needed. Undone if the transaction rolls back.
+    public boolean reserve(Long appointmentId, BillOfMaterials bom, LocalDateTime expiresAt) {
+        ensureLoaded();
+
+        Map<Long, Integer> wanted = new HashMap<>();
+        for (int i = 0; i < bom.size(); i++) {
+            wanted.put(bom.itemIdAt(i), bom.quantityAt(i));
+        }
+        Reservation next = wanted.isEmpty() ? null : new Reservation(Map.copyOf(wanted), expiresAt);
+
+        // Lock the items of the reservation seen before locking, then check it is still the current one;
+        // if another call replaced it meanwhile, retry so its items are locked too
+        Reservation seen;
+        Set<Long> lockedIds;
+        Boolean reserved;
+        do {
+            Reservation current = reservations.get(appointmentId);
+            if (current == null && next == null) return true;
+
+            seen = current;
+            lockedIds = new HashSet<>(wanted.keySet());
+            if (current != null) lockedIds.addAll(current.quantities().keySet());
+
+            reserved = locks.withLocks(lockedIds, () -> {
+                if (reservations.get(appointmentId) != current) return null;
+                for (Map.Entry<Long, Integer> entry : wanted.entrySet()) {
+                    // The appointment's own current reservation counts as available to it
+                    int own = current != null ? current.quantities().getOrDefault(entry.getKey(), 0) : 0;
+                    if (getAvailable(entry.getKey()) + own < entry.getValue()) return false;
+                }
+                swap(appointmentId, current, next);
+                return true;
+            });
+        } while (reserved == null);
+        if (!reserved) return false;
+
+        Reservation previous = seen;
+        Set<Long> itemIds = lockedIds;
+
+        TransactionHooks.afterCompletion(committed -> {
+            if (committed) {
+                if (previous != null) pending.addLast(new Write(appointmentId, List.of()));
+                if (next != null) pending.addLast(new Write(appointmentId, rows(appointmentId, next)));
+            } else {
+                locks.withLocks(itemIds, () -> {
+                    swap(appointmentId, next, previous);
+                    return null;
+                });
+            }
+        });
+        return true;
+    }
+
+    // Give back an appointment's reservation once the surrounding transaction commits (cancelled, deleted,
+    // or confirmed so the deduction has taken its place)
+    public void release(Long appointmentId) {
+        TransactionHooks.afterCompletion(committed -> {
+            if (committed) releaseNow(appointmentId);
+        });
+    }
+
+    // Units of an item that can still be promised to new bookings
+    public long getAvailable(Long itemId) {
+        ensureLoaded();
+        Integer onHand = lowStockTracker.getQuantity(itemId);
+        return (onHand != null ? onHand : 0) - reservedByItem.getOrDefault(itemId, 0L);
+    }
+
+    // Units of an item held by pending appointments
+    public long getReserved(Long itemId) {
+        ensureLoaded();
+        return reservedByItem.getOrDefault(itemId, 0L);
+    }
+
+    // Release reservations of appointments whose start has passed without a confirmation
+    @Scheduled(fixedDelay = 60_000)
+    public int releaseExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int released = 0;
+        for (Map.Entry<Long, Reservation> entry : reservations.entrySet()) {
+            if (entry.getValue().expiresAt().isBefore(now) && releaseNow(entry.getKey())) released++;
+        }
+        return released;
+    }
+
+    // Write queued changes in one transaction, batching consecutive inserts and deletes;
+    // on failure everything is put back in order so the next flush retries it
+    @Scheduled(fixedDelay = 1000)
+    public synchronized void flush() {
+        List<Write> batch = new ArrayList<>();
+        Write next;
+        while ((next = pending.pollFirst()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) return;
+
+        try {
+            transactionTemplate.execute(status -> {
+                List<InventoryReservation> inserts = new ArrayList<>();
+                Set<Long> deletes = new LinkedHashSet<>();
+                for (Write write : batch) {
+                    if (write.rows().isEmpty()) {
+                        if (!inserts.isEmpty()) {
+                            reservationRepository.saveAll(inserts);
+                            inserts = new ArrayList<>();
+                        }
+                        deletes.add(write.appointmentId());
+                    } else {
+                        if (!deletes.isEmpty()) {
+                            reservationRepository.deleteByAppointmentIds(deletes);
+                            deletes = new LinkedHashSet<>();
+                        }
+                        inserts.addAll(write.rows());
+                    }
+                }
+                if (!inserts.isEmpty()) reservationRepository.saveAll(inserts);
+                if (!deletes.isEmpty()) reservationRepository.deleteByAppointmentIds(deletes);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                batch.get(i).rows().forEach(row -> row.setReservationId(null));
+                pending.addFirst(batch.get(i));
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Drop a reservation from the counters and queue its rows for deletion; false if there was none
+    private boolean releaseNow(Long appointmentId) {
+        Reservation current = reservations.get(appointmentId);
+        if (current == null) return false;
+
+        boolean removed = locks.withLocks(current.quantities().keySet(), () -> {
+            if (reservations.get(appointmentId) != current) return false;
+            swap(appointmentId, current, null);
+            return true;
+        });
+        if (removed) pending.addLast(new Write(appointmentId, List.of()));
+        return removed;
+    }
+
+    // Replace one reservation with another in the counters; callers hold the locks of both item sets
+    private void swap(Long appointmentId, Reservation from, Reservation to) {
+        if (from != null) {
+            from.quantities().forEach((itemId, quantity) -> reservedByItem.merge(itemId, (long) -quantity, Long::sum));
+        }
+        if (to != null) {
+            to.quantities().forEach((itemId, quantity) -> reservedByItem.merge(itemId, (long) quantity, Long::sum));
+            reservations.put(appointmentId, to);
+        } else {
+            reservations.remove(appointmentId);
+        }
+    }
+
+    private List<InventoryReservation> rows(Long appointmentId, Reservation reservation) {
+        List<InventoryReservation> rows = new ArrayList<>();
+        reservation.quantities().forEach((itemId, quantity) ->
+                rows.add(new InventoryReservation(appointmentId, itemId, quantity, reservation.expiresAt())));
+        return rows;
+    }
+
+    // Rebuild the counters from the table on first use
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            Map<Long, Map<Long, Integer>> quantities = new HashMap<>();
+            Map<Long, LocalDateTime> expiries = new HashMap<>();
+            for (InventoryReservation row : reservationRepository.findAll()) {
+                quantities.computeIfAbsent(row.getAppointmentId(), id -> new HashMap<>())
+                        .merge(row.getItemId(), row.getQuantity(), Integer::sum);
+                expiries.put(row.getAppointmentId(), row.getExpiresAt());
+            }
+            quantities.forEach((appointmentId, items) ->
+                    swap(appointmentId, null, new Reservation(Map.copyOf(items), expiries.get(appointmentId))));
+            loaded = true;
+        }
+    }
+}
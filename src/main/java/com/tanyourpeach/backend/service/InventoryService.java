@@ -1,14 +1,24 @@
 package com.tanyourpeach.backend.service;
 
+import com.tanyourpeach.backend.dto.BillOfMaterials;
+import com.tanyourpeach.backend.dto.ItemForecast;
+import com.tanyourpeach.backend.dto.StockLevel;
+import com.tanyourpeach.backend.exception.InsufficientInventoryException;
 import com.tanyourpeach.backend.model.Inventory;
+import com.tanyourpeach.backend.model.InventoryMovement;
 import com.tanyourpeach.backend.model.FinancialLog;
 import com.tanyourpeach.backend.repository.InventoryRepository;
+import com.tanyourpeach.backend.repository.InventoryRepository.ItemVersion;
 import com.tanyourpeach.backend.repository.FinancialLogRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -20,6 +30,18 @@ public class InventoryService {
     @Autowired
     private FinancialLogRepository financialLogRepository;
 
+    @Autowired
+    private FinancialTotalsService financialTotalsService;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Autowired
+    private LowStockTracker lowStockTracker;
+
+    @Autowired
+    private InventoryForecastService inventoryForecastService;
+
     // Get all inventory items
     public List<Inventory> getAllInventory() {
         return inventoryRepository.findAll();
@@ -30,7 +52,19 @@ public class InventoryService {
         return inventoryRepository.findById(id);
     }
 
+    // Stock of an item according to the movement ledger, now or at a past time
+    public Optional<StockLevel> getStockLevel(Long id, LocalDateTime at) {
+        if (!inventoryRepository.existsById(id)) return Optional.empty();
+        return Optional.of(at == null ? inventoryLedger.currentStock(id) : inventoryLedger.stockAt(id, at));
+    }
+
+    // Projected use of every item by upcoming appointments over the next `days` days
+    public List<ItemForecast> getForecast(int days) {
+        return inventoryForecastService.getForecast(days);
+    }
+
     // Create new inventory item
+    @Transactional
     public Inventory createInventory(Inventory inventory) {
         // Basic validation
         if (inventory.getItemName() == null || inventory.getItemName().isBlank()) return null;
@@ -39,11 +73,16 @@ public class InventoryService {
         if (inventory.getQuantity() == null || inventory.getQuantity() < 0) inventory.setQuantity(0);
         if (inventory.getTotalSpent() == null) inventory.setTotalSpent(BigDecimal.ZERO);
 
-        return inventoryRepository.save(inventory);
+        Inventory saved = inventoryRepository.save(inventory);
+        inventoryLedger.record(saved.getItemId(), InventoryMovement.Type.RECEIPT, saved.getQuantity(),
+                saved.getTotalSpent(), null, "Opening stock");
+        lowStockTracker.track(saved);
+        return saved;
     }
 
 
     // Update existing inventory item with expense logging
+    @Transactional
     public Optional<Inventory> updateInventory(Long id, Inventory updated) {
         // Basic validation
         if (updated.getItemName() == null || updated.getItemName().isBlank()) return Optional.empty();
@@ -71,16 +110,25 @@ public class InventoryService {
                 log.setReferenceId(existing.getItemId());
                 log.setAmount(addedCost);
                 log.setDescription("Added " + addedQty + " units of " + existing.getItemName());
-                financialLogRepository.save(log);
+                financialTotalsService.recordLog(financialLogRepository.save(log));
+                inventoryLedger.record(existing.getItemId(), InventoryMovement.Type.RECEIPT, addedQty, addedCost, null, null);
             } else {
                 existing.setTotalSpent(updated.getTotalSpent()); // maintain current manual edit behavior
+
+                int newQuantity = updated.getQuantity() != null ? updated.getQuantity() : 0;
+                BigDecimal newTotalSpent = updated.getTotalSpent() != null ? updated.getTotalSpent() : BigDecimal.ZERO;
+                inventoryLedger.record(existing.getItemId(), InventoryMovement.Type.ADJUSTMENT, newQuantity - oldQuantity,
+                        newTotalSpent.subtract(oldTotalSpent), null, "Manual edit");
             }
 
-            return inventoryRepository.save(existing);
+            Inventory saved = inventoryRepository.save(existing);
+            lowStockTracker.track(saved);
+            return saved;
         });
     }
 
     // Delete inventory item with logging
+    @Transactional
     public boolean deleteInventory(Long id) {
         Optional<Inventory> optional = inventoryRepository.findById(id);
         if (optional.isEmpty()) return false;
@@ -97,38 +145,78 @@ public class InventoryService {
             log.setReferenceId(item.getItemId());
             log.setAmount(totalSpent);
             log.setDescription("Deleted inventory item '" + item.getItemName() + "' with " + quantity + " units remaining");
-            financialLogRepository.save(log);
+            financialTotalsService.recordLog(financialLogRepository.save(log));
         }
 
+        inventoryLedger.record(item.getItemId(), InventoryMovement.Type.WRITE_OFF, -quantity, totalSpent.negate(),
+                null, "Item deleted");
+        lowStockTracker.untrack(id);
         inventoryRepository.deleteById(id);
         return true;
     }
 
-    // Deduct quantity from inventory item
+    // Deduct quantity from inventory item in one conditional UPDATE, so concurrent deductions never lose
+    // an update or push stock below zero; false if the item is missing or short
+    @Transactional
     public boolean deductQuantity(Long itemId, int amount) {
         if (amount <= 0) return false;
-        
-        Optional<Inventory> optional = inventoryRepository.findById(itemId);
-        if (optional.isEmpty()) return false;
+        if (inventoryRepository.deductQuantity(itemId, amount) != 1) return false;
 
-        Inventory item = optional.get();
-        if (item.getQuantity() < amount) return false;
+        inventoryLedger.record(itemId, InventoryMovement.Type.ADJUSTMENT, -amount, BigDecimal.ZERO, null, "Manual deduction");
+        adjustTracker(Map.of(itemId, -amount));
+        return true;
+    }
+
+    // Deduct every item of a BOM in one conditional UPDATE built from the BOM itself, so the statement,
+    // the count check and the recorded movements all follow the same BOM.
+    // If any item is short the whole deduction is rolled back.
+    @Transactional
+    public void deductForService(BillOfMaterials bom, Long appointmentId) {
+        if (bom.isEmpty()) return;
+
+        int deducted = inventoryRepository.deductForService(bom);
+        if (deducted != bom.size()) {
+            throw new InsufficientInventoryException("Insufficient inventory for service " + bom.getServiceId());
+        }
 
-        item.setQuantity(item.getQuantity() - amount);
-        return inventoryRepository.save(item) != null;
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (int i = 0; i < bom.size(); i++) {
+            inventoryLedger.record(bom.itemIdAt(i), InventoryMovement.Type.CONSUMPTION,
+                    -bom.quantityAt(i), BigDecimal.ZERO, appointmentId, null);
+            deltas.put(bom.itemIdAt(i), -bom.quantityAt(i));
+        }
+        adjustTracker(deltas);
     }
 
-    // Add quantity and cost to inventory item
-    public boolean addQuantityAndCost(Long itemId, int addedQty, BigDecimal costPerUnit) {
-        Optional<Inventory> optional = inventoryRepository.findById(itemId);
-        if (optional.isEmpty() || addedQty <= 0 || costPerUnit == null) return false;
+    // Throw away stock of an item; false if the item is missing or has fewer units
+    @Transactional
+    public boolean writeOff(Long itemId, int amount, String note) {
+        if (amount <= 0) return false;
+        if (inventoryRepository.deductQuantity(itemId, amount) != 1) return false;
 
-        Inventory item = optional.get();
-        item.setQuantity(item.getQuantity() + addedQty);
+        inventoryLedger.record(itemId, InventoryMovement.Type.WRITE_OFF, -amount, BigDecimal.ZERO, null, note);
+        adjustTracker(Map.of(itemId, -amount));
+        return true;
+    }
+
+    // Add quantity and cost to inventory item; both are accumulated in one UPDATE so concurrent receipts all count
+    @Transactional
+    public boolean addQuantityAndCost(Long itemId, int addedQty, BigDecimal costPerUnit) {
+        if (addedQty <= 0 || costPerUnit == null) return false;
 
         BigDecimal addedCost = costPerUnit.multiply(BigDecimal.valueOf(addedQty));
-        item.setTotalSpent(item.getTotalSpent().add(addedCost));
+        if (inventoryRepository.addQuantityAndCost(itemId, addedQty, addedCost) != 1) return false;
 
-        return inventoryRepository.save(item) != null;
+        inventoryLedger.record(itemId, InventoryMovement.Type.RECEIPT, addedQty, addedCost, null, null);
+        adjustTracker(Map.of(itemId, addedQty));
+        return true;
+    }
+
+    // Report stock changed by atomic updates to the tracker, with the row version each update produced,
+    // so a tracker reload that already read the change does not count it again
+    private void adjustTracker(Map<Long, Integer> deltas) {
+        for (ItemVersion row : inventoryRepository.findVersions(deltas.keySet())) {
+            lowStockTracker.adjust(row.getItemId(), deltas.get(row.getItemId()), row.getVersion());
+        }
     }
 }
\ No newline at end of file
@@ -1,10 +1,13 @@
 package com.tanyourpeach.backend.service;
 
+import com.tanyourpeach.backend.dto.AuthenticatedUser;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -23,6 +26,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService customUserDetailsService;
 
+    @Autowired
+    private TokenVersionCache tokenVersionCache;
+
+    // When true, authorities come from the verified token claims instead of a users lookup per request
+    @Value("${jwt.stateless:true}")
+    private boolean stateless;
+
     /**
      * This method is called for every request to check if the JWT token is valid
      * and to set the authentication in the security context.
@@ -50,6 +60,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7); // remove "Bearer "
+
+        if (stateless) {
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                authenticateFromClaims(jwt, request);
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         userEmail = jwtService.extractUsername(jwt);
 
         // If the userEmail is not null and the authentication is not already set
@@ -58,11 +77,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             // Check if the JWT is valid and set the authentication in the context
             if (jwtService.isTokenValid(jwt, userDetails)) {
+                boolean isAdmin = userDetails.getAuthorities().stream()
+                        .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+                AuthenticatedUser principal = new AuthenticatedUser(userDetails.getUsername(), isAdmin);
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
-                                userDetails,
+                                principal,
                                 null,
-                                userDetails.getAuthorities()
+                                principal.getAuthorities()
                         );
                 authToken.setDetails(
                         new WebAuthenticationDetailsSource().buildDetails(request)
@@ -73,4 +95,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    // Build the authentication from verified claims; the token version check is the only lookup, and it is cached
+    private void authenticateFromClaims(String jwt, HttpServletRequest request) {
+        Claims claims = jwtService.parseVerifiedClaims(jwt);
+        if (claims == null || claims.getSubject() == null) return;
+
+        String userEmail = claims.getSubject();
+        Integer tokenVersion = claims.get("tokenVersion", Integer.class);
+        Integer currentVersion = tokenVersionCache.getTokenVersion(userEmail);
+
+        // Tokens issued before a revocation carry an older version; tokens issued before versioning count as 0
+        if (currentVersion == null || !currentVersion.equals(tokenVersion != null ? tokenVersion : 0)) return;
+
+        boolean isAdmin = Boolean.TRUE.equals(claims.get("isAdmin", Boolean.class));
+        AuthenticatedUser principal = new AuthenticatedUser(claims.get("userId", Long.class), userEmail, isAdmin);
+
+        UsernamePasswordAuthenticationToken authToken =
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+}
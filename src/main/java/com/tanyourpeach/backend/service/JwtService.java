@@ -2,6 +2,7 @@ package com.tanyourpeach.backend.service;
 
 import com.tanyourpeach.backend.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -11,10 +12,15 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Service
@@ -23,10 +29,21 @@ public class JwtService {
     private static final String SECRET_KEY = "MzI3NjM0NzVENEY2NDU1NzY4NTY2QjU5NzAzMzczMzY3NjM5NzkyNDQyMjY0NTI5NDg0MDRENjM1MTY2NTQ2QQ==";
     private static final long EXPIRATION_MS = 1000 * 60 * 60 * 24; // 24 hours
 
+    // Decoded and built once; both are immutable and thread-safe
+    private static final Key SIGNING_KEY = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+    private static final JwtParser PARSER = Jwts.parserBuilder().setSigningKey(SIGNING_KEY).build();
+
+    // Recently verified tokens, keyed by SHA-256 digest
+    private static final long CLAIMS_CACHE_TTL_MS = 1000 * 60; // 1 minute
+    private static final int CLAIMS_CACHE_MAX_ENTRIES = 10_000;
+    private final Map<String, CachedClaims> claimsCache = new ConcurrentHashMap<>();
+
     // Generate token with user info
     public String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", user.getUserId());
         claims.put("isAdmin", user.getIsAdmin());
+        claims.put("tokenVersion", user.getTokenVersion() != null ? user.getTokenVersion() : 0);
         return buildToken(claims, user.getEmail());
     }
 
@@ -52,11 +69,8 @@ public class JwtService {
 
     // Extract username from token
     public String extractUsername(String token) {
-        try {
-            return extractClaim(token, Claims::getSubject);
-        } catch (Exception e) {
-            return null;
-        }
+        Claims claims = parseVerifiedClaims(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
     // Extract user email from token
@@ -65,35 +79,57 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
+    // Verify signature and expiry once and return the claims, or null if the token is not valid
+    public Claims parseVerifiedClaims(String token) {
+        try {
+            return extractAllClaims(token);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     // Validate token against user details
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        final Claims claims = extractAllClaims(token);
+        return claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date());
     }
 
-    // Check if token is expired
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
+    // Extract all claims from token, reusing a recent verification of the same token
+    private Claims extractAllClaims(String token) {
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+
+        CachedClaims cached = claimsCache.get(digest);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.claims();
+        }
+
+        Claims claims = PARSER.parseClaimsJws(token).getBody();
 
-    // Extract expiration date from token
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        // Never keep claims past the token's own expiry
+        long expiresAt = Math.min(now + CLAIMS_CACHE_TTL_MS, claims.getExpiration() != null ? claims.getExpiration().getTime() : now);
+        if (claimsCache.size() >= CLAIMS_CACHE_MAX_ENTRIES) {
+            claimsCache.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (claimsCache.size() >= CLAIMS_CACHE_MAX_ENTRIES) claimsCache.clear();
+        }
+        claimsCache.put(digest, new CachedClaims(claims, expiresAt));
+        return claims;
     }
 
-    // Extract all claims from token
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // SHA-256 of the compact token, so the cache never holds bearer tokens themselves
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     // Get signing key for token generation
     private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return SIGNING_KEY;
     }
-}
\ No newline at end of file
+
+    private record CachedClaims(Claims claims, long expiresAt) {}
+}
@@ -0,0 +1,150 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.StockAlert;
+import com.tanyourpeach.backend.model.Inventory;
+import com.tanyourpeach.backend.repository.InventoryRepository;
+import com.tanyourpeach.backend.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory stock level and threshold of every inventory item, plus the set of items at or below their threshold.
+// InventoryService reports each committed change, so the low-stock set is kept up to date without scanning the table,
+// and each crossing of a threshold is pushed to StockAlertBroadcaster subscribers.
+// The levels are loaded at startup and reloaded periodically to pick up changes made outside the application.
+// Changes are applied under the tracker's monitor; single levels are read from a concurrent map without it.
+// Each level remembers the inventory row version it was read at, so a change the level already includes is not applied twice.
+@Service
+public class LowStockTracker {
+
+    public static final long RELOAD_MS = 10 * 60 * 1000;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StockAlertBroadcaster stockAlertBroadcaster;
+
+    private final Map<Long, Level> levels = new ConcurrentHashMap<>();
+
+    private final Set<Long> lowStock = new LinkedHashSet<>();
+
+    private volatile boolean loaded;
+
+    // What the tracker knows about one item; version is the row version of the last full read,
+    // adjustments made after it are added on top
+    private record Level(String itemName, int quantity, Integer threshold, long version) {
+        boolean isLow() {
+            return threshold != null && quantity <= threshold;
+        }
+    }
+
+    // Ids of the items at or below their threshold
+    public synchronized List<Long> getLowStockIds() {
+        ensureLoaded();
+        return List.copyOf(lowStock);
+    }
+
+    // Committed stock on hand of an item; null if the item is unknown.
+    // Lock-free, so availability checks under InventoryReservationService's stripes stay independent per item
+    public Integer getQuantity(Long itemId) {
+        ensureLoaded();
+        Level level = levels.get(itemId);
+        return level != null ? level.quantity() : null;
+    }
+
+    // Record an item's full state after it is created or edited; ignored if the tracker already read a later version
+    public void track(Inventory item) {
+        TransactionHooks.afterCommit(() -> {
+            // Read after the commit, once the flush has set the version the save produced
+            Level level = levelOf(item);
+            synchronized (this) {
+                Level current = levels.get(item.getItemId());
+                if (loaded && (current == null || current.version() <= level.version())) apply(item.getItemId(), level);
+            }
+        });
+    }
+
+    // Record stock added (positive) or taken out (negative) by an atomic update that left the row at `version`;
+    // ignored if the level was read at that version or later, since it already includes the change
+    public void adjust(Long itemId, int quantityDelta, long version) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                Level current = levels.get(itemId);
+                if (current == null || current.version() >= version) return;
+                apply(itemId, new Level(current.itemName(), current.quantity() + quantityDelta, current.threshold(), current.version()));
+            }
+        });
+    }
+
+    // Forget a deleted item
+    public void untrack(Long itemId) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                levels.remove(itemId);
+                lowStock.remove(itemId);
+            }
+        });
+    }
+
+    // Reload every level from the table; crossings found on the way are announced like any other.
+    // The table is read under the monitor, so adjustments applied before the read are in it, and the version check
+    // drops those whose commit the read saw but whose hook runs afterwards
+    @Scheduled(fixedDelay = RELOAD_MS)
+    public synchronized void reload() {
+        Map<Long, Level> fresh = new HashMap<>();
+        for (Inventory item : inventoryRepository.findAll()) {
+            fresh.put(item.getItemId(), levelOf(item));
+        }
+
+        boolean announce = loaded;
+        levels.keySet().retainAll(fresh.keySet());
+        lowStock.retainAll(fresh.keySet());
+        fresh.forEach((itemId, level) -> {
+            if (announce) {
+                apply(itemId, level);
+            } else {
+                levels.put(itemId, level);
+                if (level.isLow()) lowStock.add(itemId);
+            }
+        });
+        loaded = true;
+    }
+
+    // Store a new level and announce the change if it crosses the threshold
+    private void apply(Long itemId, Level level) {
+        Level previous = levels.put(itemId, level);
+        boolean wasLow = previous != null && previous.isLow();
+        if (level.isLow()) {
+            lowStock.add(itemId);
+            if (!wasLow) alert(StockAlert.Type.LOW, itemId, level);
+        } else {
+            lowStock.remove(itemId);
+            if (wasLow) alert(StockAlert.Type.RESTOCKED, itemId, level);
+        }
+    }
+
+    private Level levelOf(Inventory item) {
+        return new Level(item.getItemName(), item.getQuantity() != null ? item.getQuantity() : 0, item.getLowStockThreshold(),
+                item.getVersion() != null ? item.getVersion() : 0);
+    }
+
+    private void alert(StockAlert.Type type, Long itemId, Level level) {
+        // Already past the commit here, so send straight away
+        stockAlertBroadcaster.send(new StockAlert(type, itemId, level.itemName(), level.quantity(), level.threshold()));
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (!loaded) reload();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.CacheStats;
+import com.tanyourpeach.backend.model.Availability;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Bounded LRU cache of the free slots per date.
+// Each entry remembers the AvailabilityVersions version it was loaded at and is only served while that is
+// still current, so every booking, release, swap or slot edit invalidates exactly the dates it touched.
+@Service
+public class OpenSlotCache {
+
+    public static final int MAX_ENTRIES = 512;
+
+    @Autowired
+    private AvailabilityVersions availabilityVersions;
+
+    private record Entry(long version, List<Availability> slots) {}
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Access-ordered, so the eldest entry is the least recently used
+    private final Map<LocalDate, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, Entry> eldest) {
+            if (size() <= MAX_ENTRIES) return false;
+            evictions.incrementAndGet();
+            return true;
+        }
+    };
+
+    // Free slots for a date, from memory when the cached copy is current, otherwise from the loader
+    public List<Availability> getOpenSlots(LocalDate date, Supplier<List<Availability>> loader) {
+        long version = availabilityVersions.current(date);
+        if (availabilityVersions.isSettled(date)) {
+            Entry entry;
+            synchronized (entries) {
+                entry = entries.get(date);
+            }
+            if (entry != null && entry.version() == version) {
+                hits.incrementAndGet();
+                return entry.slots();
+            }
+        }
+
+        misses.incrementAndGet();
+        List<Availability> slots = List.copyOf(loader.get());
+
+        // Only keep the result if no write to the date started or finished while it was loading
+        if (availabilityVersions.isSettled(date) && availabilityVersions.current(date) == version) {
+            synchronized (entries) {
+                entries.put(date, new Entry(version, slots));
+            }
+        }
+        return slots;
+    }
+
+    // Hit/miss counters and current size
+    public CacheStats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), size, MAX_ENTRIES);
+    }
+}
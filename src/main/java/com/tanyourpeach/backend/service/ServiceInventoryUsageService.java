@@ -23,6 +23,9 @@ public class ServiceInventoryUsageService {
     @Autowired
     private InventoryRepository inventoryRepository;
 
+    @Autowired
+    private BillOfMaterialsCache billOfMaterialsCache;
+
     // Get all service-inventory usage records
     public List<ServiceInventoryUsage> getAllUsages() {
         return usageRepository.findAll();
@@ -60,7 +63,9 @@ public class ServiceInventoryUsageService {
         usage.setService(serviceOpt.get());
         usage.setItem(itemOpt.get());
 
-        return Optional.of(usageRepository.save(usage));
+        ServiceInventoryUsage saved = usageRepository.save(usage);
+        billOfMaterialsCache.put(serviceId, itemId, saved.getQuantityUsed());
+        return Optional.of(saved);
     }
 
     // Update the quantity used for a specific service-inventory usage record
@@ -73,7 +78,9 @@ public class ServiceInventoryUsageService {
 
         ServiceInventoryUsage usage = usageOpt.get();
         usage.setQuantityUsed(newQuantityUsed);
-        return Optional.of(usageRepository.save(usage));
+        ServiceInventoryUsage saved = usageRepository.save(usage);
+        billOfMaterialsCache.put(serviceId, itemId, newQuantityUsed);
+        return Optional.of(saved);
     }
 
     // Delete a service-inventory usage record
@@ -81,6 +88,7 @@ public class ServiceInventoryUsageService {
         ServiceInventoryUsageKey key = new ServiceInventoryUsageKey(serviceId, itemId);
         if (!usageRepository.existsById(key)) return false;
         usageRepository.deleteById(key);
+        billOfMaterialsCache.remove(serviceId, itemId);
         return true;
     }
 }
\ No newline at end of file
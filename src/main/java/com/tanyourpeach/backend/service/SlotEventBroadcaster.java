@@ -0,0 +1,31 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.SlotEvent;
+import com.tanyourpeach.backend.model.Availability;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+// Pushes slot changes to Server-Sent Event subscribers watching the affected dates
+@Service
+public class SlotEventBroadcaster extends EventBroadcaster<SlotEvent> {
+
+    public static final int MAX_DATES_PER_SUBSCRIPTION = 31;
+
+    public SlotEventBroadcaster() {
+        super("slot");
+    }
+
+    // Open a stream of events for the given dates; returns null when the server is at its subscriber limit
+    public SseEmitter subscribe(Set<LocalDate> dates) {
+        Set<LocalDate> watched = Set.copyOf(dates);
+        return subscribe(event -> watched.contains(event.getDate()));
+    }
+
+    // Announce a change to a slot once the surrounding transaction commits, or right away when there is none
+    public void publish(SlotEvent.Type type, Availability slot) {
+        publish(SlotEvent.of(type, slot));
+    }
+}
@@ -0,0 +1,156 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.SlotHold;
+import com.tanyourpeach.backend.model.Availability;
+import com.tanyourpeach.backend.repository.AvailabilityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Short checkout holds on availability slots.
+// The held_until/hold_token columns are the source of truth, so holds survive restarts and claimSlot honors them;
+// the in-memory table answers "already held" without a query and a timing wheel finds lapsed holds
+// so they are cleared in one batched UPDATE per tick instead of one query per hold.
+@Service
+public class SlotHoldService {
+
+    public static final String HOLD_TOKEN_HEADER = "X-Hold-Token";
+
+    public static final long HOLD_TTL_MS = 5 * 60 * 1000;
+
+    public static final long TICK_MS = 1000;
+
+    // One lap of the wheel must cover the TTL so a hold never waits more than one lap
+    public static final int WHEEL_SIZE = 512;
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    // A hold placed by this instance
+    private record Hold(String token, long expiresAtMs) {}
+
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    private final Set<Long>[] wheel = new Set[WHEEL_SIZE];
+
+    private long lastTick = System.currentTimeMillis() / TICK_MS;
+
+    public SlotHoldService() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+    }
+
+    // Hold a free slot for HOLD_TTL_MS; empty if it is booked, missing or held by someone else
+    public Optional<SlotHold> placeHold(Long slotId) {
+        long now = System.currentTimeMillis();
+        Hold existing = holds.get(slotId);
+        if (existing != null && existing.expiresAtMs() > now) return Optional.empty();
+
+        Hold hold = new Hold(UUID.randomUUID().toString(), now + HOLD_TTL_MS);
+        LocalDateTime until = toDateTime(hold.expiresAtMs());
+        if (availabilityRepository.placeHold(slotId, hold.token(), until, toDateTime(now)) == 0) {
+            return Optional.empty();
+        }
+
+        holds.put(slotId, hold);
+        wheel[bucket(expiryTick(hold.expiresAtMs()))].add(slotId);
+        return Optional.of(new SlotHold(slotId, hold.token(), until));
+    }
+
+    // Give a hold back before it lapses; false if the token does not hold the slot
+    public boolean releaseHold(Long slotId, String token) {
+        if (token == null || availabilityRepository.releaseHold(slotId, token) == 0) return false;
+        holds.computeIfPresent(slotId, (id, hold) -> hold.token().equals(token) ? null : hold);
+        return true;
+    }
+
+    // Book a slot and load it, committing right away so the row lock is released before the caller's booking
+    // continues; empty if it is missing, booked or held under another token
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Optional<Availability> claim(Long slotId, String holdToken) {
+        if (availabilityRepository.claimSlot(slotId, holdToken, LocalDateTime.now()) == 0) return Optional.empty();
+        forget(slotId);
+        return availabilityRepository.findById(slotId);
+    }
+
+    // Free a claimed slot again when the booking that claimed it rolled back; runs after that transaction ends
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void unclaim(Long slotId) {
+        availabilityRepository.releaseClaim(slotId);
+    }
+
+    // Drop the local entry once the slot has been booked (booking clears the columns)
+    public void forget(Long slotId) {
+        holds.remove(slotId);
+    }
+
+    // Number of holds placed by this instance that have not been cleared yet
+    public int activeHolds() {
+        return holds.size();
+    }
+
+    @Scheduled(fixedRate = TICK_MS)
+    public void tick() {
+        expireDue(System.currentTimeMillis());
+    }
+
+    // Safety net for holds this instance does not know about, e.g. ones placed before a restart
+    @Scheduled(fixedDelay = 60_000)
+    public void clearLapsedHolds() {
+        availabilityRepository.clearAllExpiredHolds(LocalDateTime.now());
+    }
+
+    // Advance the wheel to `now`, collecting every lapsed hold in the buckets passed, and clear them in one statement
+    synchronized void expireDue(long now) {
+        long nowTick = now / TICK_MS;
+        long firstTick = Math.max(lastTick + 1, nowTick - WHEEL_SIZE + 1);
+        List<Long> expired = new ArrayList<>();
+
+        for (long t = firstTick; t <= nowTick; t++) {
+            Set<Long> bucket = wheel[bucket(t)];
+            for (Long slotId : bucket) {
+                Hold hold = holds.get(slotId);
+                if (hold != null && hold.expiresAtMs() > now && bucket(expiryTick(hold.expiresAtMs())) == bucket(t)) {
+                    continue; // re-held for a later lap of the wheel
+                }
+                bucket.remove(slotId);
+                if (hold != null && hold.expiresAtMs() <= now && holds.remove(slotId, hold)) {
+                    expired.add(slotId);
+                }
+            }
+        }
+        lastTick = Math.max(lastTick, nowTick);
+
+        if (!expired.isEmpty()) {
+            availabilityRepository.clearExpiredHolds(expired, toDateTime(now));
+        }
+    }
+
+    // First tick at or after the expiry, so the hold is due when that bucket is processed
+    private long expiryTick(long expiresAtMs) {
+        return (expiresAtMs + TICK_MS - 1) / TICK_MS;
+    }
+
+    private int bucket(long tick) {
+        return (int) Math.floorMod(tick, (long) WHEEL_SIZE);
+    }
+
+    private LocalDateTime toDateTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,19 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.StockAlert;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Pushes low-stock crossings to admin Server-Sent Event subscribers
+@Service
+public class StockAlertBroadcaster extends EventBroadcaster<StockAlert> {
+
+    public StockAlertBroadcaster() {
+        super("stock");
+    }
+
+    // Open a stream of every stock alert; returns null when the server is at its subscriber limit
+    public SseEmitter subscribe() {
+        return subscribe(alert -> true);
+    }
+}
@@ -0,0 +1,38 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.model.User;
+import com.tanyourpeach.backend.repository.UserRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class TokenVersionCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Cached for an email with no user, since computeIfAbsent stores no null and would query on every request
+    private static final int MISSING = Integer.MIN_VALUE;
+
+    // Current token version per user email; one row per registered user, so it stays small
+    private final Map<String, Integer> versions = new ConcurrentHashMap<>();
+
+    // Current token version for a user, loaded once and then served from memory; null if the user does not exist
+    public Integer getTokenVersion(String email) {
+        if (email == null) return null;
+        String key = email.toLowerCase();
+        int version = versions.computeIfAbsent(key, k -> userRepository.findByEmail(k)
+                .map(User::getTokenVersion)
+                .orElse(MISSING));
+        return version != MISSING ? version : null;
+    }
+
+    // Drop a cached version after a user is created or deleted, or their credentials, role or email change
+    public void evict(String email) {
+        if (email != null) versions.remove(email.toLowerCase());
+    }
+}
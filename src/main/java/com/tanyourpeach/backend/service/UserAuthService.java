@@ -20,6 +20,9 @@ public class UserAuthService {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private TokenVersionCache tokenVersionCache;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -52,6 +55,7 @@ public class UserAuthService {
         user.setIsAdmin(request.getIsAdmin() != null && request.getIsAdmin()); // default false if null
 
         userRepository.save(user);
+        tokenVersionCache.evict(user.getEmail()); // a token for this email may have cached it as missing
 
         String jwtToken = jwtService.generateToken(user);
         return new AuthenticationResponse(jwtToken);
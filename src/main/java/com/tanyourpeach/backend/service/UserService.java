@@ -7,6 +7,7 @@ import com.tanyourpeach.backend.model.User;
 import com.tanyourpeach.backend.repository.UserRepository;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -15,6 +16,9 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TokenVersionCache tokenVersionCache;
+
     // GET all users
     public List<User> getAllUsers() {
         return userRepository.findAll();
@@ -28,7 +32,9 @@ public class UserService {
     // POST create new user
     public User createUser(User user) {
         validateUserFields(user);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        tokenVersionCache.evict(saved.getEmail()); // a token for this email may have cached it as missing
+        return saved;
     }
 
     // PUT update user
@@ -37,19 +43,39 @@ public class UserService {
         validateUserFields(updatedUser);
 
         return userRepository.findById(id).map(user -> {
+            String oldEmail = user.getEmail();
+
+            // Changing credentials, login or role revokes every token issued so far
+            boolean revokeTokens = !Objects.equals(oldEmail, updatedUser.getEmail())
+                    || !Objects.equals(user.getPasswordHash(), updatedUser.getPasswordHash())
+                    || !Objects.equals(user.getIsAdmin(), updatedUser.getIsAdmin());
+
             user.setName(updatedUser.getName());
             user.setEmail(updatedUser.getEmail());
             user.setPasswordHash(updatedUser.getPasswordHash());
             user.setAddress(updatedUser.getAddress());
             user.setIsAdmin(updatedUser.getIsAdmin());
-            return userRepository.save(user);
+
+            if (revokeTokens) {
+                int current = user.getTokenVersion() != null ? user.getTokenVersion() : 0;
+                user.setTokenVersion(current + 1);
+            }
+
+            User saved = userRepository.save(user);
+            if (revokeTokens) {
+                tokenVersionCache.evict(oldEmail);
+                tokenVersionCache.evict(saved.getEmail());
+            }
+            return saved;
         });
     }
 
     // DELETE user
     public boolean deleteUser(Long id) {
-        if (!userRepository.existsById(id)) return false;
+        Optional<User> user = userRepository.findById(id);
+        if (user.isEmpty()) return false;
         userRepository.deleteById(id);
+        tokenVersionCache.evict(user.get().getEmail());
         return true;
     }
 
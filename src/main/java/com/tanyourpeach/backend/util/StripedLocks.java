@@ -0,0 +1,51 @@
+package com.tanyourpeach.backend.util;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// A fixed set of locks that keys hash onto, so per-key locking needs no lock map that grows with the keys.
+// Several keys are locked in stripe order, so callers locking overlapping sets never deadlock.
+public final class StripedLocks {
+
+    private final ReentrantLock[] stripes;
+
+    public StripedLocks(int count) {
+        stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // Run an action while holding the lock for a key
+    public <T> T withLock(Object key, Supplier<T> action) {
+        ReentrantLock lock = stripes[indexOf(key)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Run an action while holding the locks for every key
+    public <T> T withLocks(Collection<?> keys, Supplier<T> action) {
+        int[] order = keys.stream().mapToInt(this::indexOf).distinct().sorted().toArray();
+        int locked = 0;
+        try {
+            for (int index : order) {
+                stripes[index].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[order[i]].unlock();
+            }
+        }
+    }
+
+    private int indexOf(Object key) {
+        return Math.floorMod(key.hashCode(), stripes.length);
+    }
+}
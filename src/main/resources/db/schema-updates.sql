@@ -0,0 +1,103 @@
+-- Schema changes applied on top of the existing tanyourpeach database.
+-- spring.jpa.hibernate.ddl-auto is "none", so run these manually, in order.
+
+-- Keyset pagination for GET /api/appointments
+CREATE INDEX idx_appointments_date_id ON appointments (appointment_date, appointment_id);
+
+-- Per-client and per-user appointment history
+CREATE INDEX idx_appointments_client_email_date ON appointments (client_email, appointment_date);
+CREATE INDEX idx_appointments_user_date ON appointments (user_id, appointment_date);
+
+-- Optimistic locking for the appointment update pipeline
+ALTER TABLE appointments ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE availabilities ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE inventory ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- Token version for revoking stateless JWTs
+ALTER TABLE users ADD COLUMN token_version INT NOT NULL DEFAULT 0;
+
+-- Running revenue/expense totals for the admin dashboard; period is 'ALL' or 'YYYY-MM'.
+-- Seeded from the existing log; repair with POST /api/admin/stats/totals/rebuild
+CREATE TABLE financial_totals (
+    period VARCHAR(7) NOT NULL,
+    type VARCHAR(10) NOT NULL,
+    amount DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (period, type)
+);
+INSERT INTO financial_totals (period, type, amount)
+SELECT DATE_FORMAT(log_date, '%Y-%m'), type, SUM(amount) FROM financial_log
+WHERE log_date IS NOT NULL GROUP BY DATE_FORMAT(log_date, '%Y-%m'), type;
+INSERT INTO financial_totals (period, type, amount)
+SELECT 'ALL', type, SUM(amount) FROM financial_log GROUP BY type;
+
+-- Pooled id generator for availabilities (MySQL has no sequences, so Hibernate uses a one-row table).
+-- Seeded past the current ids so the first allocated block cannot collide.
+CREATE TABLE availability_seq (next_val BIGINT);
+INSERT INTO availability_seq SELECT COALESCE(MAX(slot_id), 0) + 51 FROM availabilities;
+
+-- Free-slot range scans for GET /api/availabilities/calendar
+CREATE INDEX idx_availabilities_date_booked ON availabilities (date, is_booked);
+
+-- Checkout holds on availability slots (POST /api/availabilities/{id}/hold)
+ALTER TABLE availabilities ADD COLUMN held_until DATETIME NULL, ADD COLUMN hold_token VARCHAR(36) NULL;
+CREATE INDEX idx_availabilities_held_until ON availabilities (held_until);
+
+-- Past availability slots moved out of the hot table by the nightly archive job
+CREATE TABLE availabilities_archive (
+    slot_id BIGINT NOT NULL PRIMARY KEY,
+    date DATE NOT NULL,
+    start_time TIME NOT NULL,
+    end_time TIME NOT NULL,
+    is_booked BIT(1),
+    notes TEXT,
+    created_at DATETIME(6),
+    archived_at DATETIME NOT NULL,
+    INDEX idx_availabilities_archive_date (date)
+);
+
+-- Keyset pagination for GET /api/availabilities
+CREATE INDEX idx_availabilities_date_start_id ON availabilities (date, start_time, slot_id);
+
+-- Append-only inventory ledger; written in batches by InventoryLedger, so ids come from a pooled table generator
+CREATE TABLE inventory_movement (
+    movement_id BIGINT NOT NULL PRIMARY KEY,
+    item_id BIGINT NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    quantity_delta INT NOT NULL,
+    cost_delta DECIMAL(10, 2) NOT NULL,
+    appointment_id BIGINT NULL,
+    note VARCHAR(255),
+    created_at DATETIME(6) NOT NULL,
+    INDEX idx_inventory_movement_item_id (item_id, movement_id)
+);
+CREATE TABLE inventory_movement_seq (next_val BIGINT);
+INSERT INTO inventory_movement_seq VALUES (1);
+
+-- Per-item stock snapshots folded from the ledger every hour; seeded with each item's opening balance
+CREATE TABLE inventory_snapshot (
+    snapshot_id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    item_id BIGINT NOT NULL,
+    quantity BIGINT NOT NULL,
+    total_spent DECIMAL(12, 2) NOT NULL,
+    last_movement_id BIGINT NOT NULL,
+    as_of DATETIME(6) NOT NULL,
+    INDEX idx_inventory_snapshot_item_movement (item_id, last_movement_id),
+    INDEX idx_inventory_snapshot_item_as_of (item_id, as_of)
+);
+INSERT INTO inventory_snapshot (item_id, quantity, total_spent, last_movement_id, as_of)
+SELECT item_id, COALESCE(quantity, 0), COALESCE(total_spent, 0), 0, NOW(6) FROM inventory;
+
+-- Covering range scan for the inventory depletion forecast (GET /api/inventory/forecast)
+CREATE INDEX idx_appointments_date_status_service ON appointments (appointment_date, status, service_id);
+
+-- Soft reservations of inventory for pending appointments; rebuilt into memory on startup
+CREATE TABLE inventory_reservation (
+    reservation_id BIGINT NOT NULL PRIMARY KEY,
+    appointment_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    INDEX idx_inventory_reservation_appointment_id (appointment_id)
+);
+CREATE TABLE inventory_reservation_seq (next_val BIGINT);
+INSERT INTO inventory_reservation_seq VALUES (1);
@@ -0,0 +1,94 @@
+package com.tanyourpeach.backend.benchmark;
+
+import com.tanyourpeach.backend.model.User;
+import com.tanyourpeach.backend.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request JWT verification cost: the original JwtService path (decode the key and build a parser
+ * on every call, parse the token three times in isTokenValid) against the cached key/parser and
+ * verified-claims cache.
+ *
+ * Not part of the test suite. After mvn test-compile, run main() on the test classpath, e.g.
+ * java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main JwtVerificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET_KEY = "MzI3NjM0NzVENEY2NDU1NzY4NTY2QjU5NzAzMzczMzY3NjM5NzkyNDQyMjY0NTI5NDg0MDRENjM1MTY2NTQ2QQ==";
+
+    private JwtService jwtService;
+    private String token;
+    private org.springframework.security.core.userdetails.UserDetails userDetails;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService();
+
+        User user = new User();
+        user.setEmail("bench@example.com");
+        user.setIsAdmin(false);
+        token = jwtService.generateToken(user);
+
+        userDetails = org.springframework.security.core.userdetails.User
+                .withUsername("bench@example.com")
+                .password("")
+                .roles("USER")
+                .build();
+    }
+
+    // Original per-request path: extractUsername + isTokenValid, each call re-deriving the key and parser
+    @Benchmark
+    public boolean legacyVerification() {
+        String username = legacyClaims(token).getSubject();
+        if (username == null) return false;
+        boolean sameUser = legacyClaims(token).getSubject().equals(userDetails.getUsername());
+        return sameUser && !legacyClaims(token).getExpiration().before(new Date());
+    }
+
+    // Current path for a token seen within the cache TTL
+    @Benchmark
+    public boolean cachedVerification() {
+        String username = jwtService.extractUsername(token);
+        return username != null && jwtService.isTokenValid(token, userDetails);
+    }
+
+    // Current path on the first request of a session: one full verification with the shared parser
+    @Benchmark
+    public Claims firstVerification() {
+        return SharedParser.PARSER.parseClaimsJws(token).getBody();
+    }
+
+    private static Claims legacyClaims(String token) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+
+    private static final class SharedParser {
+        private static final JwtParser PARSER = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)))
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtVerificationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
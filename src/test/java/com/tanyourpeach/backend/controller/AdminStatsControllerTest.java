@@ -1,14 +1,13 @@
 package com.tanyourpeach.backend.controller;
 
 import com.tanyourpeach.backend.dto.AdminDashboardSummary;
+import com.tanyourpeach.backend.dto.CacheStats;
 import com.tanyourpeach.backend.dto.MonthlyStats;
 import com.tanyourpeach.backend.model.Appointment;
 import com.tanyourpeach.backend.model.Inventory;
-import com.tanyourpeach.backend.model.User;
 import com.tanyourpeach.backend.service.AdminStatsService;
-import com.tanyourpeach.backend.service.JwtService;
-import com.tanyourpeach.backend.repository.UserRepository;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -16,12 +15,13 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import jakarta.servlet.http.HttpServletRequest;
-
-import java.util.Optional;
 import java.util.List;
 
+import static com.tanyourpeach.backend.util.MethodSecurityTestHelper.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -30,149 +30,168 @@ class AdminStatsControllerTest {
     @Mock
     private AdminStatsService adminStatsService;
 
-    @Mock
-    private JwtService jwtService;
-
-    @Mock
-    private UserRepository userRepository;
-
-    @Mock
-    private HttpServletRequest request;
-
     @InjectMocks
     private AdminStatsController controller;
 
-    private final String jwtToken = "Bearer mocktoken";
     private final String email = "admin@example.com";
-    private User adminUser;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        adminUser = new User();
-        adminUser.setEmail(email);
-        adminUser.setIsAdmin(true);
+        controller = withMethodSecurity(controller);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clearAuthentication();
     }
 
     @Test
     void getSummary_shouldReturn200_ifAdmin() {
         AdminDashboardSummary summaryMock = mock(AdminDashboardSummary.class);
 
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(adminUser));
+        authenticateAs(email, true);
         when(adminStatsService.getDashboardSummary()).thenReturn(summaryMock);
 
-        ResponseEntity<?> response = controller.getSummary(request);
+        ResponseEntity<?> response = controller.getSummary();
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(summaryMock, response.getBody());
     }
 
     @Test
-    void getSummary_shouldReturn403_ifTokenMissing() {
-        when(request.getHeader("Authorization")).thenReturn(null); // no token
-
-        ResponseEntity<?> response = controller.getSummary(request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    void getSummary_shouldBeRejected_ifNotAuthenticated() {
+        assertThrows(AuthenticationException.class, () -> controller.getSummary());
+        verifyNoInteractions(adminStatsService);
     }
 
     @Test
-    void getSummary_shouldReturn403_ifTokenMalformed() {
-        when(request.getHeader("Authorization")).thenReturn("badformat"); // not "Bearer ..."
+    void getSummary_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
 
-        ResponseEntity<?> response = controller.getSummary(request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertThrows(AccessDeniedException.class, () -> controller.getSummary());
+        verifyNoInteractions(adminStatsService);
     }
 
     @Test
-    void getSummary_shouldReturn403_ifNotAdmin() {
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(new User())); // not admin
+    void getMonthlyStats_shouldReturn200_ifAdmin() {
+        List<MonthlyStats> monthlyMock = List.of(mock(MonthlyStats.class));
+
+        authenticateAs(email, true);
+        when(adminStatsService.getMonthlyStats(4)).thenReturn(monthlyMock);
 
-        ResponseEntity<?> response = controller.getSummary(request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        ResponseEntity<?> response = controller.getMonthlyStats(4);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(monthlyMock, response.getBody());
     }
 
     @Test
-    void getSummary_shouldReturn403_ifEmailNotFound() {
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.empty());
+    void getMonthlyStats_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
 
-        ResponseEntity<?> response = controller.getSummary(request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertThrows(AccessDeniedException.class, () -> controller.getMonthlyStats(4));
     }
 
     @Test
-    void getMonthlyStats_shouldReturn200_ifAdmin() {
-        List<MonthlyStats> monthlyMock = List.of(mock(MonthlyStats.class));
+    void getUpcomingAppointments_shouldReturn200_ifAdmin() {
+        List<Appointment> upcomingMock = List.of(mock(Appointment.class));
 
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(adminUser));
-        when(adminStatsService.getLastFourMonthsStats()).thenReturn(monthlyMock);
+        authenticateAs(email, true);
+        when(adminStatsService.getUpcomingAppointments()).thenReturn(upcomingMock);
 
-        ResponseEntity<?> response = controller.getMonthlyStats(request);
+        ResponseEntity<?> response = controller.getUpcomingAppointments();
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(monthlyMock, response.getBody());
+        assertEquals(upcomingMock, response.getBody());
     }
 
     @Test
-    void getMonthlyStats_shouldReturn403_ifNotAdmin() {
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(new User())); // not admin
+    void getUpcomingAppointments_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
 
-        ResponseEntity<?> response = controller.getMonthlyStats(request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertThrows(AccessDeniedException.class, () -> controller.getUpcomingAppointments());
     }
 
     @Test
-    void getUpcomingAppointments_shouldReturn200_ifAdmin() {
-        List<Appointment> upcomingMock = List.of(mock(Appointment.class));
+    void getSlotCacheStats_shouldReturn200_ifAdmin() {
+        CacheStats stats = new CacheStats(5, 5, 0, 2, 512);
 
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(adminUser));
-        when(adminStatsService.getUpcomingAppointments()).thenReturn(upcomingMock);
+        authenticateAs(email, true);
+        when(adminStatsService.getOpenSlotCacheStats()).thenReturn(stats);
 
-        ResponseEntity<?> response = controller.getUpcomingAppointments(request);
+        ResponseEntity<?> response = controller.getSlotCacheStats();
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(upcomingMock, response.getBody());
+        assertEquals(stats, response.getBody());
     }
 
     @Test
-    void getUpcomingAppointments_shouldReturn403_ifNotAdmin() {
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(new User())); // not admin
+    void getSlotCacheStats_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
 
-        ResponseEntity<?> response = controller.getUpcomingAppointments(request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertThrows(AccessDeniedException.class, () -> controller.getSlotCacheStats());
     }
 
     @Test
     void getLowStockItems_shouldReturn200_ifAdmin() {
         List<Inventory> lowStockMock = List.of(mock(Inventory.class));
 
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(adminUser));
+        authenticateAs(email, true);
         when(adminStatsService.getLowStockInventory()).thenReturn(lowStockMock);
 
-        ResponseEntity<?> response = controller.getLowStockItems(request);
+        ResponseEntity<?> response = controller.getLowStockItems();
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(lowStockMock, response.getBody());
     }
 
     @Test
-    void getLowStockItems_shouldReturn403_ifNotAdmin() {
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(new User())); // not admin
+    void getLowStockItems_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
+
+        assertThrows(AccessDeniedException.class, () -> controller.getLowStockItems());
+    }
+
+    @Test
+    void streamLowStockAlerts_shouldReturnEmitter_ifAdmin() {
+        SseEmitter emitter = new SseEmitter();
+
+        authenticateAs(email, true);
+        when(adminStatsService.subscribeToStockAlerts()).thenReturn(emitter);
+
+        ResponseEntity<?> response = controller.streamLowStockAlerts();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(emitter, response.getBody());
+    }
+
+    @Test
+    void streamLowStockAlerts_shouldReturn503_whenAtSubscriberLimit() {
+        authenticateAs(email, true);
+        when(adminStatsService.subscribeToStockAlerts()).thenReturn(null);
+
+        ResponseEntity<?> response = controller.streamLowStockAlerts();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+
+    @Test
+    void streamLowStockAlerts_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
+
+        assertThrows(AccessDeniedException.class, () -> controller.streamLowStockAlerts());
+        verifyNoInteractions(adminStatsService);
+    }
+
+    @Test
+    void rebuildFinancialTotals_shouldReturn200_ifAdmin() {
+        authenticateAs(email, true);
+        when(adminStatsService.checkFinancialTotals(true)).thenReturn(List.of());
+
+        ResponseEntity<?> response = controller.rebuildFinancialTotals(true);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(adminStatsService).checkFinancialTotals(true);
+    }
+
+    @Test
+    void rebuildFinancialTotals_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
 
-        ResponseEntity<?> response = controller.getLowStockItems(request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertThrows(AccessDeniedException.class, () -> controller.rebuildFinancialTotals(false));
+        verifyNoInteractions(adminStatsService);
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,11 @@
 package com.tanyourpeach.backend.controller;
 
+import com.tanyourpeach.backend.dto.AuthenticatedUser;
+import com.tanyourpeach.backend.dto.CursorPage;
 import com.tanyourpeach.backend.model.Appointment;
-import com.tanyourpeach.backend.model.User;
-import com.tanyourpeach.backend.repository.UserRepository;
 import com.tanyourpeach.backend.service.AppointmentService;
-import com.tanyourpeach.backend.service.JwtService;
 
-import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -14,12 +13,16 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
 
 import java.util.List;
 import java.util.Optional;
 
+import static com.tanyourpeach.backend.util.MethodSecurityTestHelper.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -28,101 +31,70 @@ class AppointmentControllerTest {
     @Mock
     private AppointmentService appointmentService;
 
-    @Mock
-    private JwtService jwtService;
-
-    @Mock
-    private UserRepository userRepository;
-
-    @Mock
-    private HttpServletRequest request;
-
     @InjectMocks
     private AppointmentController controller;
 
-    private final String jwtToken = "Bearer mocktoken";
     private final String email = "user@example.com";
     private final String adminEmail = "admin@example.com";
-    private User adminUser;
-    private User normalUser;
+    private AuthenticatedUser adminUser;
+    private AuthenticatedUser normalUser;
     private Appointment testAppointment;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        controller = withMethodSecurity(controller);
 
-        adminUser = new User();
-        adminUser.setEmail(adminEmail);
-        adminUser.setIsAdmin(true);
-
-        normalUser = new User();
-        normalUser.setEmail(email);
-        normalUser.setIsAdmin(false);
+        adminUser = new AuthenticatedUser(adminEmail, true);
+        normalUser = new AuthenticatedUser(email, false);
 
         testAppointment = new Appointment();
         testAppointment.setAppointmentId(1L);
         testAppointment.setClientEmail(email);
     }
 
+    @AfterEach
+    void tearDown() {
+        clearAuthentication();
+    }
+
     @Test
     void getAllAppointments_shouldReturn200_ifAdmin() {
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(adminEmail);
-        when(userRepository.findByEmail(adminEmail)).thenReturn(Optional.of(adminUser));
-        when(appointmentService.getAllAppointments()).thenReturn(List.of(testAppointment));
+        authenticateAs(adminEmail, true);
+        when(appointmentService.getAppointmentsPage(null, 50))
+                .thenReturn(Optional.of(new CursorPage<>(List.of(testAppointment), null)));
 
-        ResponseEntity<?> response = controller.getAllAppointments(request);
+        ResponseEntity<?> response = controller.getAllAppointments(null, 50);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
-    void getAllAppointments_shouldReturn403_ifNotAdmin() {
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(normalUser));
+    void getAllAppointments_shouldReturn400_ifCursorInvalid() {
+        authenticateAs(adminEmail, true);
+        when(appointmentService.getAppointmentsPage("garbage", 50)).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = controller.getAllAppointments(request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        ResponseEntity<?> response = controller.getAllAppointments("garbage", 50);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
     @Test
-    void getAllAppointments_shouldReturn403_ifTokenMalformed() {
-        when(request.getHeader("Authorization")).thenReturn("BadTokenFormat");
+    void getAllAppointments_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
 
-        ResponseEntity<?> response = controller.getAllAppointments(request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertThrows(AccessDeniedException.class, () -> controller.getAllAppointments(null, 50));
+        verify(appointmentService, never()).getAppointmentsPage(any(), anyInt());
     }
 
     @Test
-    void getAllAppointments_shouldReturn403_ifUserIsAdminNull() {
-        User nullAdmin = new User();
-        nullAdmin.setEmail(adminEmail);
-        nullAdmin.setIsAdmin(null);  // explicitly null
-
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(adminEmail);
-        when(userRepository.findByEmail(adminEmail)).thenReturn(Optional.of(nullAdmin));
-
-        ResponseEntity<?> response = controller.getAllAppointments(request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
-    }
-
-    @Test
-    void getAllAppointments_shouldReturn403_ifTokenInvalid() {
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenThrow(new RuntimeException("invalid token"));
-
-        ResponseEntity<?> response = controller.getAllAppointments(request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    void getAllAppointments_shouldBeRejected_ifNotAuthenticated() {
+        assertThrows(AuthenticationException.class, () -> controller.getAllAppointments(null, 50));
     }
 
     @Test
     void getAppointmentById_shouldReturn200_ifOwner() {
         when(appointmentService.getAppointmentById(1L)).thenReturn(Optional.of(testAppointment));
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
 
-        ResponseEntity<?> response = controller.getAppointmentById(1L, request);
+        ResponseEntity<?> response = controller.getAppointmentById(1L, normalUser);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
@@ -130,11 +102,8 @@ class AppointmentControllerTest {
     void getAppointmentById_shouldReturn200_ifAdmin() {
         testAppointment.setClientEmail("someone@example.com");
         when(appointmentService.getAppointmentById(1L)).thenReturn(Optional.of(testAppointment));
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(adminEmail);
-        when(userRepository.findByEmail(adminEmail)).thenReturn(Optional.of(adminUser));
 
-        ResponseEntity<?> response = controller.getAppointmentById(1L, request);
+        ResponseEntity<?> response = controller.getAppointmentById(1L, adminUser);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
@@ -142,20 +111,16 @@ class AppointmentControllerTest {
     void getAppointmentById_shouldReturn403_ifNotOwnerOrAdmin() {
         testAppointment.setClientEmail("someone@example.com");
         when(appointmentService.getAppointmentById(1L)).thenReturn(Optional.of(testAppointment));
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(normalUser));
 
-        ResponseEntity<?> response = controller.getAppointmentById(1L, request);
+        ResponseEntity<?> response = controller.getAppointmentById(1L, normalUser);
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
     }
 
     @Test
-    void getAppointmentById_shouldReturn403_ifTokenMissing() {
+    void getAppointmentById_shouldReturn403_ifNoPrincipal() {
         when(appointmentService.getAppointmentById(1L)).thenReturn(Optional.of(testAppointment));
-        when(request.getHeader("Authorization")).thenReturn(null);
 
-        ResponseEntity<?> response = controller.getAppointmentById(1L, request);
+        ResponseEntity<?> response = controller.getAppointmentById(1L, null);
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
     }
 
@@ -163,50 +128,63 @@ class AppointmentControllerTest {
     void getAppointmentById_shouldReturn404_ifNotFound() {
         when(appointmentService.getAppointmentById(1L)).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = controller.getAppointmentById(1L, request);
+        ResponseEntity<?> response = controller.getAppointmentById(1L, normalUser);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void getUserAppointments_shouldReturnAppointmentsForUser() {
-        Appointment a2 = new Appointment();
-        a2.setClientEmail("someone@example.com");
-        when(appointmentService.getAllAppointments()).thenReturn(List.of(testAppointment, a2));
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
+        when(appointmentService.getAppointmentsByClientEmail(email, 0, 50)).thenReturn(List.of(testAppointment));
 
-        ResponseEntity<?> response = controller.getUserAppointments(request);
+        ResponseEntity<?> response = controller.getUserAppointments(0, 50, normalUser);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         List<?> list = (List<?>) response.getBody();
         assertEquals(1, list.size());
+        verify(appointmentService).getAppointmentsByClientEmail(email, 0, 50);
+    }
+
+    @Test
+    void getAppointmentsByUser_shouldReturn200_ifAdmin() {
+        authenticateAs(adminEmail, true);
+        when(appointmentService.getAppointmentsByUserId(7L, 0, 50)).thenReturn(List.of(testAppointment));
+
+        ResponseEntity<?> response = controller.getAppointmentsByUser(7L, 0, 50);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    void getAppointmentsByUser_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
+
+        assertThrows(AccessDeniedException.class, () -> controller.getAppointmentsByUser(7L, 0, 50));
+        verify(appointmentService, never()).getAppointmentsByUserId(any(), anyInt(), anyInt());
     }
 
     @Test
-    void getUserAppointments_shouldReturn401_ifEmailNull() {
-        when(request.getHeader("Authorization")).thenReturn(null);
-        ResponseEntity<?> response = controller.getUserAppointments(request);
+    void getUserAppointments_shouldReturn401_ifNoPrincipal() {
+        ResponseEntity<?> response = controller.getUserAppointments(0, 50, null);
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
 
     @Test
     void createAppointment_shouldReturn200_ifSuccess() {
-        when(appointmentService.createAppointment(any(), eq(request))).thenReturn(Optional.of(testAppointment));
-        ResponseEntity<Appointment> response = controller.createAppointment(testAppointment, request);
+        when(appointmentService.createAppointment(any(), eq(normalUser), eq("hold-token"))).thenReturn(Optional.of(testAppointment));
+        ResponseEntity<Appointment> response = controller.createAppointment(testAppointment, normalUser, "hold-token");
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
     void createAppointment_shouldPass_ifAnonymous() {
-        when(appointmentService.createAppointment(any(), eq(request))).thenReturn(Optional.of(testAppointment));
+        when(appointmentService.createAppointment(any(), isNull(), isNull())).thenReturn(Optional.of(testAppointment));
 
-        ResponseEntity<Appointment> response = controller.createAppointment(testAppointment, request);
+        ResponseEntity<Appointment> response = controller.createAppointment(testAppointment, null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
     void createAppointment_shouldReturn400_ifFailure() {
-        when(appointmentService.createAppointment(any(), eq(request))).thenReturn(Optional.empty());
-        ResponseEntity<Appointment> response = controller.createAppointment(testAppointment, request);
+        when(appointmentService.createAppointment(any(), any(), any())).thenReturn(Optional.empty());
+        ResponseEntity<Appointment> response = controller.createAppointment(testAppointment, normalUser, null);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
@@ -216,12 +194,9 @@ class AppointmentControllerTest {
         updated.setClientEmail("someone@example.com");
 
         when(appointmentService.getAppointmentById(1L)).thenReturn(Optional.of(testAppointment));
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(adminEmail);
-        when(userRepository.findByEmail(adminEmail)).thenReturn(Optional.of(adminUser));
-        when(appointmentService.updateAppointment(eq(1L), any(), eq(request))).thenReturn(Optional.of(updated));
+        when(appointmentService.updateAppointment(eq(1L), any(), eq(adminUser), isNull())).thenReturn(Optional.of(updated));
 
-        ResponseEntity<?> response = controller.updateAppointment(1L, updated, request);
+        ResponseEntity<?> response = controller.updateAppointment(1L, updated, adminUser, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
@@ -230,20 +205,17 @@ class AppointmentControllerTest {
         testAppointment.setClientEmail("someone@example.com");
 
         when(appointmentService.getAppointmentById(1L)).thenReturn(Optional.of(testAppointment));
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(normalUser));
 
-        ResponseEntity<?> response = controller.updateAppointment(1L, new Appointment(), request);
+        ResponseEntity<?> response = controller.updateAppointment(1L, new Appointment(), normalUser, null);
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        verify(appointmentService, never()).updateAppointment(any(), any(), any(), any());
     }
 
     @Test
-    void updateAppointment_shouldReturn403_ifTokenMissing() {
+    void updateAppointment_shouldReturn403_ifNoPrincipal() {
         when(appointmentService.getAppointmentById(1L)).thenReturn(Optional.of(testAppointment));
-        when(request.getHeader("Authorization")).thenReturn(null);
 
-        ResponseEntity<?> response = controller.updateAppointment(1L, new Appointment(), request);
+        ResponseEntity<?> response = controller.updateAppointment(1L, new Appointment(), null, null);
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
     }
 
@@ -251,73 +223,52 @@ class AppointmentControllerTest {
     void updateAppointment_shouldReturn404_ifNotFound() {
         when(appointmentService.getAppointmentById(1L)).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = controller.updateAppointment(1L, new Appointment(), request);
+        ResponseEntity<?> response = controller.updateAppointment(1L, new Appointment(), normalUser, null);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void updateAppointment_shouldReturn400_ifUpdateFails() {
         when(appointmentService.getAppointmentById(1L)).thenReturn(Optional.of(testAppointment));
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(normalUser));
-        when(appointmentService.updateAppointment(eq(1L), any(), eq(request))).thenReturn(Optional.empty());
+        when(appointmentService.updateAppointment(eq(1L), any(), any(), any())).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = controller.updateAppointment(1L, new Appointment(), request);
+        ResponseEntity<?> response = controller.updateAppointment(1L, new Appointment(), normalUser, null);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
     @Test
     void updateAppointment_shouldReturn403_ifUserNotAuthorized() {
         when(appointmentService.getAppointmentById(1L)).thenReturn(Optional.of(testAppointment));
-        when(request.getHeader("Authorization")).thenReturn("Bearer mocktoken");
-        when(jwtService.extractUsername("mocktoken")).thenReturn("unauthorized@example.com");
-        when(userRepository.findByEmail("unauthorized@example.com")).thenReturn(Optional.of(normalUser));
 
-        ResponseEntity<?> response = controller.updateAppointment(1L, new Appointment(), request);
+        AuthenticatedUser stranger = new AuthenticatedUser("unauthorized@example.com", false);
+        ResponseEntity<?> response = controller.updateAppointment(1L, new Appointment(), stranger, null);
 
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
     }
 
-    @Test
-    void updateAppointment_shouldReturn404_whenAppointmentNotFound() {
-        when(appointmentService.getAppointmentById(1L)).thenReturn(Optional.empty());
-        when(request.getHeader("Authorization")).thenReturn("Bearer mocktoken");
-
-        ResponseEntity<?> response = controller.updateAppointment(1L, new Appointment(), request);
-
-        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
-    }
-
     @Test
     void deleteAppointment_shouldReturn204_ifAdminAndDeleted() {
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(adminEmail);
-        when(userRepository.findByEmail(adminEmail)).thenReturn(Optional.of(adminUser));
+        authenticateAs(adminEmail, true);
         when(appointmentService.deleteAppointment(1L)).thenReturn(true);
 
-        ResponseEntity<?> response = controller.deleteAppointment(1L, request);
+        ResponseEntity<?> response = controller.deleteAppointment(1L);
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
     }
 
     @Test
-    void deleteAppointment_shouldReturn403_ifNotAdmin() {
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(normalUser));
+    void deleteAppointment_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
 
-        ResponseEntity<?> response = controller.deleteAppointment(1L, request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertThrows(AccessDeniedException.class, () -> controller.deleteAppointment(1L));
+        verify(appointmentService, never()).deleteAppointment(any());
     }
 
     @Test
     void deleteAppointment_shouldReturn404_ifNotFound() {
-        when(request.getHeader("Authorization")).thenReturn(jwtToken);
-        when(jwtService.extractUsername("mocktoken")).thenReturn(adminEmail);
-        when(userRepository.findByEmail(adminEmail)).thenReturn(Optional.of(adminUser));
+        authenticateAs(adminEmail, true);
         when(appointmentService.deleteAppointment(1L)).thenReturn(false);
 
-        ResponseEntity<?> response = controller.deleteAppointment(1L, request);
+        ResponseEntity<?> response = controller.deleteAppointment(1L);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
-}
\ No newline at end of file
+}
@@ -65,7 +65,7 @@ class AvailabilityControllerIntegrationTest {
     void getAllAvailabilities_shouldReturnList() throws Exception {
         mockMvc.perform(get("/api/availabilities"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].slotId").value(testSlot.getSlotId()));
+                .andExpect(jsonPath("$.items[0].slotId").value(testSlot.getSlotId()));
     }
 
     @Test
@@ -1,7 +1,13 @@
 package com.tanyourpeach.backend.controller;
 
+import com.tanyourpeach.backend.dto.AvailabilityDay;
+import com.tanyourpeach.backend.dto.AvailabilityTemplate;
+import com.tanyourpeach.backend.dto.CursorPage;
+import com.tanyourpeach.backend.dto.SlotFit;
+import com.tanyourpeach.backend.dto.SlotHold;
 import com.tanyourpeach.backend.model.Availability;
 import com.tanyourpeach.backend.service.AvailabilityService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -9,14 +15,20 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
+import static com.tanyourpeach.backend.util.MethodSecurityTestHelper.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -41,13 +53,28 @@ class AvailabilityControllerTest {
         testAvailability.setEndTime(LocalTime.of(10, 0));
     }
 
+    @AfterEach
+    void tearDown() {
+        clearAuthentication();
+    }
+
     @Test
-    void getAllAvailabilities_shouldReturnList() {
-        when(availabilityService.getAllAvailabilities()).thenReturn(List.of(testAvailability));
+    void getAvailabilities_shouldReturnPage() {
+        CursorPage<Availability> page = new CursorPage<>(List.of(testAvailability), null);
+        when(availabilityService.getAvailabilityPage(LocalDate.of(2025, 7, 1), null, false, null, 50))
+                .thenReturn(Optional.of(page));
 
-        List<Availability> result = availabilityController.getAllAvailabilities();
-        assertEquals(1, result.size());
-        assertEquals(testAvailability.getSlotId(), result.get(0).getSlotId());
+        ResponseEntity<?> response = availabilityController.getAvailabilities("2025-07-01", null, false, null, 50);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(page, response.getBody());
+    }
+
+    @Test
+    void getAvailabilities_shouldReturn400_ifDateOrCursorInvalid() {
+        when(availabilityService.getAvailabilityPage(null, null, null, "garbage", 50)).thenReturn(Optional.empty());
+
+        assertEquals(HttpStatus.BAD_REQUEST, availabilityController.getAvailabilities("junk", null, null, null, 50).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, availabilityController.getAvailabilities(null, null, null, "garbage", 50).getStatusCode());
     }
 
    @Test
@@ -74,6 +101,49 @@ class AvailabilityControllerTest {
         assertEquals("Invalid date format", response.getBody());
     }
 
+    @Test
+    void getCalendar_shouldReturnDaysWithETag() {
+        LocalDate from = LocalDate.of(2030, 6, 1);
+        LocalDate to = LocalDate.of(2030, 6, 30);
+        List<AvailabilityDay> days = List.of(new AvailabilityDay(from, List.of("09:00")));
+        when(availabilityService.getCalendarETag(from, to)).thenReturn("abc");
+        when(availabilityService.getCalendar(from, to)).thenReturn(days);
+
+        ResponseEntity<?> response = availabilityController.getCalendar("2030-06-01", "2030-06-30", null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"abc\"", response.getHeaders().getETag());
+        assertEquals(days, response.getBody());
+    }
+
+    @Test
+    void getCalendar_shouldReturn304_whenETagMatches() {
+        LocalDate from = LocalDate.of(2030, 6, 1);
+        LocalDate to = LocalDate.of(2030, 6, 30);
+        when(availabilityService.getCalendarETag(from, to)).thenReturn("abc");
+
+        ResponseEntity<?> response = availabilityController.getCalendar("2030-06-01", "2030-06-30", "W/\"old\", \"abc\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(availabilityService, never()).getCalendar(any(), any());
+    }
+
+    @Test
+    void getCalendar_shouldReturn400_forBadDate() {
+        ResponseEntity<?> response = availabilityController.getCalendar("June", "2030-06-30", null);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void getCalendar_shouldReturn400_forInvalidRange() {
+        when(availabilityService.getCalendarETag(any(), any())).thenReturn(null);
+
+        ResponseEntity<?> response = availabilityController.getCalendar("2030-06-30", "2030-06-01", null);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(availabilityService, never()).getCalendar(any(), any());
+    }
+
     @Test
     void createAvailability_shouldReturnCreatedSlot() {
         when(availabilityService.createAvailability(any())).thenReturn(testAvailability);
@@ -90,6 +160,34 @@ class AvailabilityControllerTest {
         assertThrows(RuntimeException.class, () -> availabilityController.createAvailability(testAvailability));
     }
 
+    @Test
+    void generateAvailabilities_shouldReturnCreatedSlots_ifAdmin() {
+        AvailabilityController secured = withMethodSecurity(availabilityController);
+        authenticateAs("admin@example.com", true);
+        when(availabilityService.generateFromTemplate(any())).thenReturn(List.of(testAvailability));
+
+        ResponseEntity<List<Availability>> response = secured.generateAvailabilities(new AvailabilityTemplate());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().size());
+    }
+
+    @Test
+    void generateAvailabilities_shouldReturn400_ifTemplateInvalid() {
+        when(availabilityService.generateFromTemplate(any())).thenReturn(null);
+
+        ResponseEntity<List<Availability>> response = availabilityController.generateAvailabilities(new AvailabilityTemplate());
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void generateAvailabilities_shouldBeDenied_ifNotAdmin() {
+        AvailabilityController secured = withMethodSecurity(availabilityController);
+        authenticateAs("user@example.com", false);
+
+        assertThrows(AccessDeniedException.class, () -> secured.generateAvailabilities(new AvailabilityTemplate()));
+        verifyNoInteractions(availabilityService);
+    }
+
     @Test
     void updateAvailability_shouldReturnUpdatedSlot() {
         when(availabilityService.updateAvailability(eq(1L), any())).thenReturn(Optional.of(testAvailability));
@@ -122,4 +220,82 @@ class AvailabilityControllerTest {
         ResponseEntity<Void> response = availabilityController.deleteAvailability(1L);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void streamSlotEvents_shouldReturnEmitter_forValidDates() {
+        SseEmitter emitter = new SseEmitter();
+        when(availabilityService.subscribeToSlotEvents(Set.of(LocalDate.of(2025, 7, 20)))).thenReturn(emitter);
+
+        ResponseEntity<?> response = availabilityController.streamSlotEvents(List.of("2025-07-20"));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(emitter, response.getBody());
+    }
+
+    @Test
+    void streamSlotEvents_shouldReturn400_ifDateInvalid() {
+        ResponseEntity<?> response = availabilityController.streamSlotEvents(List.of("not-a-date"));
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(availabilityService, never()).subscribeToSlotEvents(any());
+    }
+
+    @Test
+    void streamSlotEvents_shouldReturn400_ifTooManyDates() {
+        List<String> dates = LocalDate.of(2025, 7, 1).datesUntil(LocalDate.of(2025, 8, 2)).map(LocalDate::toString).toList();
+
+        ResponseEntity<?> response = availabilityController.streamSlotEvents(dates);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void streamSlotEvents_shouldReturn503_ifSubscriberLimitReached() {
+        when(availabilityService.subscribeToSlotEvents(any())).thenReturn(null);
+
+        ResponseEntity<?> response = availabilityController.streamSlotEvents(List.of("2025-07-20"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+
+    @Test
+    void findNextFits_shouldReturn200_withFits() {
+        LocalDate from = LocalDate.of(2030, 6, 1);
+        List<SlotFit> fits = List.of(new SlotFit(from, LocalTime.of(9, 0), LocalTime.of(10, 30), List.of(1L, 2L)));
+        when(availabilityService.findNextFits(1L, from, from.plusDays(6), 5)).thenReturn(fits);
+
+        ResponseEntity<?> response = availabilityController.findNextFits(1L, "2030-06-01", "2030-06-07", 5);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(fits, response.getBody());
+    }
+
+    @Test
+    void findNextFits_shouldReturn400_ifSearchInvalid() {
+        when(availabilityService.findNextFits(eq(1L), any(), any(), anyInt())).thenReturn(null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, availabilityController.findNextFits(1L, "2030-06-01", "2030-06-07", 5).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, availabilityController.findNextFits(1L, "junk", "2030-06-07", 5).getStatusCode());
+    }
+
+    @Test
+    void holdSlot_shouldReturn200_withHold() {
+        SlotHold hold = new SlotHold(1L, "token", LocalDateTime.of(2030, 6, 1, 9, 5));
+        when(availabilityService.holdSlot(1L)).thenReturn(Optional.of(hold));
+
+        ResponseEntity<?> response = availabilityController.holdSlot(1L);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(hold, response.getBody());
+    }
+
+    @Test
+    void holdSlot_shouldReturn409_ifBookedOrHeld() {
+        when(availabilityService.holdSlot(1L)).thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = availabilityController.holdSlot(1L);
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    @Test
+    void releaseHold_shouldReturn204_orNotFound() {
+        when(availabilityService.releaseHold(1L, "token")).thenReturn(true);
+
+        assertEquals(HttpStatus.NO_CONTENT, availabilityController.releaseHold(1L, "token").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, availabilityController.releaseHold(1L, "wrong").getStatusCode());
+    }
+}
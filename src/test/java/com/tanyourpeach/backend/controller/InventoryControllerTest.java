@@ -1,12 +1,11 @@
 package com.tanyourpeach.backend.controller;
 
+import com.tanyourpeach.backend.dto.ItemForecast;
+import com.tanyourpeach.backend.dto.StockLevel;
 import com.tanyourpeach.backend.model.Inventory;
-import com.tanyourpeach.backend.model.User;
-import com.tanyourpeach.backend.repository.UserRepository;
 import com.tanyourpeach.backend.service.InventoryService;
-import com.tanyourpeach.backend.service.JwtService;
 
-import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -14,11 +13,14 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
+import static com.tanyourpeach.backend.util.MethodSecurityTestHelper.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -29,37 +31,26 @@ class InventoryControllerTest {
     @Mock
     private InventoryService inventoryService;
 
-    @Mock
-    private JwtService jwtService;
-
-    @Mock
-    private UserRepository userRepository;
-
-    @Mock
-    private HttpServletRequest request;
-
     @InjectMocks
     private InventoryController controller;
 
     private Inventory testItem;
-    private User adminUser;
-    private final String token = "Bearer mock-token";
     private final String email = "admin@example.com";
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        controller = withMethodSecurity(controller);
 
         testItem = new Inventory();
         testItem.setItemId(1L);
 
-        adminUser = new User();
-        adminUser.setEmail(email);
-        adminUser.setIsAdmin(true);
+        authenticateAs(email, true);
+    }
 
-        when(request.getHeader("Authorization")).thenReturn(token);
-        when(jwtService.extractUsername("mock-token")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(adminUser));
+    @AfterEach
+    void tearDown() {
+        clearAuthentication();
     }
 
     @Test
@@ -90,61 +81,45 @@ class InventoryControllerTest {
     void createInventory_shouldReturnItem_ifAdmin() {
         when(inventoryService.createInventory(testItem)).thenReturn(testItem);
 
-        ResponseEntity<?> response = controller.createInventory(testItem, request);
+        ResponseEntity<?> response = controller.createInventory(testItem);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
-    void createInventory_shouldReturn403_ifNotAdmin() {
-        adminUser.setIsAdmin(false);
-        ResponseEntity<?> response = controller.createInventory(testItem, request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
-    }
+    void createInventory_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
 
-    @Test
-    void createInventory_shouldReturn403_whenAuthorizationHeaderMissing() {
-        when(request.getHeader("Authorization")).thenReturn(null);
-        ResponseEntity<?> response = controller.createInventory(testItem, request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertThrows(AccessDeniedException.class, () -> controller.createInventory(testItem));
+        verify(inventoryService, never()).createInventory(any());
     }
 
     @Test
-    void createInventory_shouldReturn403_whenAuthorizationHeaderMalformed() {
-        when(request.getHeader("Authorization")).thenReturn("bad");
-        ResponseEntity<?> response = controller.createInventory(testItem, request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    void createInventory_shouldBeRejected_whenNotAuthenticated() {
+        clearAuthentication();
+
+        assertThrows(AuthenticationException.class, () -> controller.createInventory(testItem));
     }
 
     @Test
     void updateInventory_shouldReturnItem_ifFound() {
         when(inventoryService.updateInventory(eq(1L), any())).thenReturn(Optional.of(testItem));
 
-        ResponseEntity<?> response = controller.updateInventory(1L, testItem, request);
+        ResponseEntity<?> response = controller.updateInventory(1L, testItem);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
-    void updateInventory_shouldReturn403_whenUserNotFound() {
-        when(request.getHeader("Authorization")).thenReturn(token);
-        when(jwtService.extractUsername("mock-token")).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.empty());
+    void updateInventory_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
 
-        ResponseEntity<?> response = controller.updateInventory(1L, testItem, request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
-    }
-
-    @Test
-    void updateInventory_shouldReturn403_ifNotAdmin() {
-        adminUser.setIsAdmin(false);
-        ResponseEntity<?> response = controller.updateInventory(1L, testItem, request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertThrows(AccessDeniedException.class, () -> controller.updateInventory(1L, testItem));
     }
 
     @Test
     void updateInventory_shouldReturn404_ifNotFound() {
         when(inventoryService.updateInventory(eq(1L), any())).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = controller.updateInventory(1L, testItem, request);
+        ResponseEntity<?> response = controller.updateInventory(1L, testItem);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
@@ -152,22 +127,23 @@ class InventoryControllerTest {
     void deleteInventory_shouldReturn204_ifDeleted() {
         when(inventoryService.deleteInventory(1L)).thenReturn(true);
 
-        ResponseEntity<?> response = controller.deleteInventory(1L, request);
+        ResponseEntity<?> response = controller.deleteInventory(1L);
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
     }
 
     @Test
-    void deleteInventory_shouldReturn403_ifNotAdmin() {
-        adminUser.setIsAdmin(false);
-        ResponseEntity<?> response = controller.deleteInventory(1L, request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    void deleteInventory_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
+
+        assertThrows(AccessDeniedException.class, () -> controller.deleteInventory(1L));
+        verify(inventoryService, never()).deleteInventory(any());
     }
 
     @Test
     void deleteInventory_shouldReturn404_ifNotFound() {
         when(inventoryService.deleteInventory(1L)).thenReturn(false);
 
-        ResponseEntity<?> response = controller.deleteInventory(1L, request);
+        ResponseEntity<?> response = controller.deleteInventory(1L);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
@@ -191,7 +167,7 @@ class InventoryControllerTest {
     void addStock_shouldReturn200_ifSuccessAndAdmin() {
         when(inventoryService.addQuantityAndCost(1L, 5, new BigDecimal("2.50"))).thenReturn(true);
 
-        ResponseEntity<?> response = controller.addStock(1L, 5, new BigDecimal("2.50"), request);
+        ResponseEntity<?> response = controller.addStock(1L, 5, new BigDecimal("2.50"));
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
@@ -199,14 +175,79 @@ class InventoryControllerTest {
     void addStock_shouldReturn400_ifFails() {
         when(inventoryService.addQuantityAndCost(1L, 5, new BigDecimal("2.50"))).thenReturn(false);
 
-        ResponseEntity<?> response = controller.addStock(1L, 5, new BigDecimal("2.50"), request);
+        ResponseEntity<?> response = controller.addStock(1L, 5, new BigDecimal("2.50"));
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
     @Test
-    void addStock_shouldReturn403_ifNotAdmin() {
-        adminUser.setIsAdmin(false);
-        ResponseEntity<?> response = controller.addStock(1L, 5, new BigDecimal("2.50"), request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    void addStock_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
+
+        assertThrows(AccessDeniedException.class, () -> controller.addStock(1L, 5, new BigDecimal("2.50")));
+    }
+
+    @Test
+    void getStockLevel_shouldReturn200_ifAdmin() {
+        StockLevel level = new StockLevel(1L, 8, new BigDecimal("40.00"), null);
+        when(inventoryService.getStockLevel(1L, null)).thenReturn(Optional.of(level));
+
+        ResponseEntity<StockLevel> response = controller.getStockLevel(1L, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(level, response.getBody());
+    }
+
+    @Test
+    void getStockLevel_shouldReturn404_ifNotFound() {
+        when(inventoryService.getStockLevel(9L, null)).thenReturn(Optional.empty());
+
+        ResponseEntity<StockLevel> response = controller.getStockLevel(9L, null);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void getStockLevel_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
+
+        assertThrows(AccessDeniedException.class, () -> controller.getStockLevel(1L, null));
+    }
+
+    @Test
+    void writeOff_shouldReturn200_ifSuccessAndAdmin() {
+        when(inventoryService.writeOff(1L, 2, "Expired")).thenReturn(true);
+
+        ResponseEntity<?> response = controller.writeOff(1L, 2, "Expired");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    void writeOff_shouldReturn400_ifFails() {
+        when(inventoryService.writeOff(1L, 50, null)).thenReturn(false);
+
+        ResponseEntity<?> response = controller.writeOff(1L, 50, null);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void writeOff_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
+
+        assertThrows(AccessDeniedException.class, () -> controller.writeOff(1L, 2, null));
+        verify(inventoryService, never()).writeOff(any(), anyInt(), any());
+    }
+
+    @Test
+    void getForecast_shouldReturnForecast_ifAdmin() {
+        List<ItemForecast> forecast = List.of(new ItemForecast(1L, "Gloves", 4, 6, null, List.of()));
+        when(inventoryService.getForecast(30)).thenReturn(forecast);
+
+        assertEquals(forecast, controller.getForecast(30));
+    }
+
+    @Test
+    void getForecast_shouldBeDenied_ifNotAdmin() {
+        authenticateAs(email, false);
+
+        assertThrows(AccessDeniedException.class, () -> controller.getForecast(30));
+        verify(inventoryService, never()).getForecast(anyInt());
     }
-}
\ No newline at end of file
+}
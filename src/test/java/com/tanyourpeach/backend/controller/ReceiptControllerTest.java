@@ -1,14 +1,11 @@
 package com.tanyourpeach.backend.controller;
 
+import com.tanyourpeach.backend.dto.AuthenticatedUser;
 import com.tanyourpeach.backend.model.Appointment;
 import com.tanyourpeach.backend.model.Receipt;
-import com.tanyourpeach.backend.model.User;
-import com.tanyourpeach.backend.repository.UserRepository;
-import com.tanyourpeach.backend.service.JwtService;
 import com.tanyourpeach.backend.service.ReceiptService;
 
-import jakarta.servlet.http.HttpServletRequest;
-
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -16,10 +13,13 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
 
 import java.util.Optional;
 import java.util.List;
 
+import static com.tanyourpeach.backend.util.MethodSecurityTestHelper.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -28,36 +28,22 @@ class ReceiptControllerTest {
     @Mock
     private ReceiptService receiptService;
 
-    @Mock
-    private JwtService jwtService;
-
-    @Mock
-    private UserRepository userRepository;
-
-    @Mock
-    private HttpServletRequest request;
-
     @InjectMocks
     private ReceiptController controller;
 
-    private final String token = "Bearer test-token";
     private final String email = "user@example.com";
 
-    private User adminUser;
-    private User regularUser;
+    private AuthenticatedUser adminUser;
+    private AuthenticatedUser regularUser;
     private Receipt testReceipt;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        controller = withMethodSecurity(controller);
 
-        adminUser = new User();
-        adminUser.setEmail(email);
-        adminUser.setIsAdmin(true);
-
-        regularUser = new User();
-        regularUser.setEmail(email);
-        regularUser.setIsAdmin(false);
+        adminUser = new AuthenticatedUser(email, true);
+        regularUser = new AuthenticatedUser(email, false);
 
         Appointment appt = new Appointment();
         appt.setClientEmail(email);
@@ -65,65 +51,57 @@ class ReceiptControllerTest {
         testReceipt = new Receipt();
         testReceipt.setReceiptId(1L);
         testReceipt.setAppointment(appt);
+    }
 
-        when(request.getHeader("Authorization")).thenReturn(token);
-        when(jwtService.extractUsername("test-token")).thenReturn(email);
+    @AfterEach
+    void tearDown() {
+        clearAuthentication();
     }
 
     @Test
     void getAllReceipts_shouldReturnReceipts_whenAdmin() {
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(adminUser));
+        authenticateAs(email, true);
         when(receiptService.getAllReceipts()).thenReturn(List.of(testReceipt));
 
-        ResponseEntity<?> response = controller.getAllReceipts(request);
+        ResponseEntity<?> response = controller.getAllReceipts();
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
-    void getAllReceipts_shouldReturn403_whenNotAdmin() {
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(regularUser));
+    void getAllReceipts_shouldBeDenied_whenNotAdmin() {
+        authenticateAs(email, false);
 
-        ResponseEntity<?> response = controller.getAllReceipts(request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
-    }
-
-    @Test
-    void getAllReceipts_shouldReturn403_whenTokenMalformed() {
-        when(request.getHeader("Authorization")).thenReturn("bad");
-        ResponseEntity<?> response = controller.getAllReceipts(request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertThrows(AccessDeniedException.class, () -> controller.getAllReceipts());
+        verifyNoInteractions(receiptService);
     }
 
     @Test
-    void getAllReceipts_shouldReturn403_whenUserNotFound() {
-        when(userRepository.findByEmail(email)).thenReturn(Optional.empty());
-        ResponseEntity<?> response = controller.getAllReceipts(request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    void getAllReceipts_shouldBeRejected_whenNotAuthenticated() {
+        assertThrows(AuthenticationException.class, () -> controller.getAllReceipts());
     }
 
     @Test
     void getReceiptById_shouldReturnReceipt_whenAdminAndExists() {
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(adminUser));
+        authenticateAs(email, true);
         when(receiptService.getReceiptById(1L)).thenReturn(Optional.of(testReceipt));
 
-        ResponseEntity<?> response = controller.getReceiptById(1L, request);
+        ResponseEntity<?> response = controller.getReceiptById(1L);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
-    void getReceiptById_shouldReturn403_whenNotAdmin() {
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(regularUser));
+    void getReceiptById_shouldBeDenied_whenNotAdmin() {
+        authenticateAs(email, false);
 
-        ResponseEntity<?> response = controller.getReceiptById(1L, request);
-        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertThrows(AccessDeniedException.class, () -> controller.getReceiptById(1L));
     }
 
     @Test
     void getReceiptById_shouldReturn404_whenNotFound() {
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(adminUser));
+        authenticateAs(email, true);
         when(receiptService.getReceiptById(1L)).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = controller.getReceiptById(1L, request);
+        ResponseEntity<?> response = controller.getReceiptById(1L);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
@@ -131,7 +109,7 @@ class ReceiptControllerTest {
     void getReceiptByAppointmentId_shouldReturnReceipt_whenOwner() {
         when(receiptService.getReceiptByAppointmentId(1L)).thenReturn(Optional.of(testReceipt));
 
-        ResponseEntity<?> response = controller.getReceiptByAppointmentId(1L, request);
+        ResponseEntity<?> response = controller.getReceiptByAppointmentId(1L, regularUser);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
@@ -142,17 +120,14 @@ class ReceiptControllerTest {
         testReceipt.setAppointment(otherAppt);
 
         when(receiptService.getReceiptByAppointmentId(1L)).thenReturn(Optional.of(testReceipt));
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(adminUser));
 
-        ResponseEntity<?> response = controller.getReceiptByAppointmentId(1L, request);
+        ResponseEntity<?> response = controller.getReceiptByAppointmentId(1L, adminUser);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
-    void getReceiptByAppointmentId_shouldReturn401_whenTokenMissing() {
-        when(request.getHeader("Authorization")).thenReturn(null);
-
-        ResponseEntity<?> response = controller.getReceiptByAppointmentId(1L, request);
+    void getReceiptByAppointmentId_shouldReturn401_whenNoPrincipal() {
+        ResponseEntity<?> response = controller.getReceiptByAppointmentId(1L, null);
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
 
@@ -163,9 +138,8 @@ class ReceiptControllerTest {
         testReceipt.setAppointment(otherAppt);
 
         when(receiptService.getReceiptByAppointmentId(1L)).thenReturn(Optional.of(testReceipt));
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(regularUser));
 
-        ResponseEntity<?> response = controller.getReceiptByAppointmentId(1L, request);
+        ResponseEntity<?> response = controller.getReceiptByAppointmentId(1L, regularUser);
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
     }
 
@@ -173,7 +147,7 @@ class ReceiptControllerTest {
     void getReceiptByAppointmentId_shouldReturn404_whenNotFound() {
         when(receiptService.getReceiptByAppointmentId(1L)).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = controller.getReceiptByAppointmentId(1L, request);
+        ResponseEntity<?> response = controller.getReceiptByAppointmentId(1L, regularUser);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
-}
\ No newline at end of file
+}
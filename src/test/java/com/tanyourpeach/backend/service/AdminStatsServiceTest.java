@@ -1,12 +1,13 @@
 package com.tanyourpeach.backend.service;
 
 import com.tanyourpeach.backend.dto.AdminDashboardSummary;
+import com.tanyourpeach.backend.dto.CacheStats;
+import com.tanyourpeach.backend.dto.FinancialTotalDrift;
 import com.tanyourpeach.backend.dto.MonthlyStats;
 import com.tanyourpeach.backend.model.Appointment;
 import com.tanyourpeach.backend.model.FinancialLog;
 import com.tanyourpeach.backend.model.Inventory;
 import com.tanyourpeach.backend.repository.AppointmentRepository;
-import com.tanyourpeach.backend.repository.FinancialLogRepository;
 import com.tanyourpeach.backend.repository.InventoryRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,12 +16,11 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.math.BigDecimal;
+import java.time.YearMonth;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class AdminStatsServiceTest {
@@ -32,7 +32,16 @@ class AdminStatsServiceTest {
     private InventoryRepository inventoryRepository;
 
     @Mock
-    private FinancialLogRepository financialLogRepository;
+    private FinancialTotalsService financialTotalsService;
+
+    @Mock
+    private OpenSlotCache openSlotCache;
+
+    @Mock
+    private LowStockTracker lowStockTracker;
+
+    @Mock
+    private StockAlertBroadcaster stockAlertBroadcaster;
 
     @InjectMocks
     private AdminStatsService adminStatsService;
@@ -44,8 +53,8 @@ class AdminStatsServiceTest {
 
     @Test
     void getDashboardSummary_shouldReturnCorrectProfit() {
-        when(financialLogRepository.sumByType(FinancialLog.Type.revenue)).thenReturn(BigDecimal.valueOf(500));
-        when(financialLogRepository.sumByType(FinancialLog.Type.expense)).thenReturn(BigDecimal.valueOf(200));
+        when(financialTotalsService.getTotal(FinancialLog.Type.revenue)).thenReturn(BigDecimal.valueOf(500));
+        when(financialTotalsService.getTotal(FinancialLog.Type.expense)).thenReturn(BigDecimal.valueOf(200));
 
         AdminDashboardSummary summary = adminStatsService.getDashboardSummary();
 
@@ -55,9 +64,8 @@ class AdminStatsServiceTest {
     }
 
     @Test
-    void getDashboardSummary_shouldHandleNullValuesSafely() {
-        when(financialLogRepository.sumByType(FinancialLog.Type.revenue)).thenReturn(null);
-        when(financialLogRepository.sumByType(FinancialLog.Type.expense)).thenReturn(null);
+    void getDashboardSummary_shouldHandleEmptyTotals() {
+        when(financialTotalsService.getTotal(any())).thenReturn(BigDecimal.ZERO);
 
         AdminDashboardSummary summary = adminStatsService.getDashboardSummary();
 
@@ -67,10 +75,10 @@ class AdminStatsServiceTest {
     }
 
     @Test
-    void getLastFourMonthsStats_shouldReturnValidStatsList() {
-        when(financialLogRepository.sumByTypeAndMonth(any(FinancialLog.Type.class), anyString()))
-                .thenReturn(BigDecimal.valueOf(100));
-        List<MonthlyStats> stats = adminStatsService.getLastFourMonthsStats();
+    void getMonthlyStats_shouldReturnValidStatsList() {
+        when(financialTotalsService.getMonthTotal(any(), any())).thenReturn(BigDecimal.valueOf(100));
+
+        List<MonthlyStats> stats = adminStatsService.getMonthlyStats(4);
 
         assertEquals(4, stats.size());
         for (MonthlyStats stat : stats) {
@@ -81,59 +89,66 @@ class AdminStatsServiceTest {
     }
 
     @Test
-    void getLastFourMonthsStats_shouldCalculateCorrectProfit_withMixedValues() {
-        when(financialLogRepository.sumByTypeAndMonth(eq(FinancialLog.Type.revenue), anyString()))
-            .thenReturn(BigDecimal.valueOf(150))  // Month 1
-            .thenReturn(null)                     // Month 2
-            .thenReturn(BigDecimal.ZERO)         // Month 3
-            .thenReturn(BigDecimal.valueOf(50)); // Month 4
+    void getMonthlyStats_shouldCalculateCorrectProfit_withMixedValues() {
+        YearMonth now = YearMonth.now();
+        when(financialTotalsService.getMonthTotal(any(), any())).thenReturn(BigDecimal.ZERO);
+        stubMonth(now.minusMonths(1), 150, 100);  // Month 1
+        stubMonth(now.minusMonths(2), 0, 200);    // Month 2, no revenue
+        stubMonth(now.minusMonths(4), 50, 20);    // Month 4; month 3 is empty
 
-        when(financialLogRepository.sumByTypeAndMonth(eq(FinancialLog.Type.expense), anyString()))
-            .thenReturn(BigDecimal.valueOf(100))  // Month 1
-            .thenReturn(BigDecimal.valueOf(200))  // Month 2
-            .thenReturn(null)                     // Month 3
-            .thenReturn(BigDecimal.valueOf(20));  // Month 4
-
-        List<MonthlyStats> stats = adminStatsService.getLastFourMonthsStats();
+        List<MonthlyStats> stats = adminStatsService.getMonthlyStats(4);
 
         assertEquals(BigDecimal.valueOf(50), stats.get(0).getProfit());   // 150 - 100
-        assertEquals(BigDecimal.ZERO.subtract(BigDecimal.valueOf(200)), stats.get(1).getProfit()); // 0 - 200
+        assertEquals(BigDecimal.valueOf(-200), stats.get(1).getProfit()); // 0 - 200
         assertEquals(BigDecimal.ZERO, stats.get(2).getProfit());          // 0 - 0
         assertEquals(BigDecimal.valueOf(30), stats.get(3).getProfit());   // 50 - 20
     }
 
     @Test
-    void getLastFourMonthsStats_shouldHandleAllNullValues() {
-        when(financialLogRepository.sumByTypeAndMonth(eq(FinancialLog.Type.revenue), anyString()))
-            .thenReturn(null, null, null, null);
-        when(financialLogRepository.sumByTypeAndMonth(eq(FinancialLog.Type.expense), anyString()))
-            .thenReturn(null, null, null, null);
+    void getMonthlyStats_shouldLabelMonthsNewestFirst() {
+        when(financialTotalsService.getMonthTotal(any(), any())).thenReturn(BigDecimal.ZERO);
 
-        List<MonthlyStats> stats = adminStatsService.getLastFourMonthsStats();
+        List<MonthlyStats> stats = adminStatsService.getMonthlyStats(12);
 
-        assertEquals(4, stats.size());
-        for (MonthlyStats stat : stats) {
-            assertEquals(BigDecimal.ZERO, stat.getRevenue());
-            assertEquals(BigDecimal.ZERO, stat.getExpenses());
-            assertEquals(BigDecimal.ZERO, stat.getProfit());
-        }
+        YearMonth lastMonth = YearMonth.now().minusMonths(1);
+        assertEquals(12, stats.size());
+        assertEquals(String.format("%02d-%d", lastMonth.getMonthValue(), lastMonth.getYear()), stats.get(0).getMonth());
+        verify(financialTotalsService).getMonthTotal(YearMonth.now().minusMonths(12), FinancialLog.Type.revenue);
+        verify(financialTotalsService, never()).getMonthTotal(YearMonth.now(), FinancialLog.Type.revenue);
     }
 
     @Test
-    void getLastFourMonthsStats_shouldHandleAllZeroValues() {
-        when(financialLogRepository.sumByTypeAndMonth(eq(FinancialLog.Type.revenue), anyString()))
-            .thenReturn(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
-        when(financialLogRepository.sumByTypeAndMonth(eq(FinancialLog.Type.expense), anyString()))
-            .thenReturn(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+    void getMonthlyStats_shouldClampWindow() {
+        when(financialTotalsService.getMonthTotal(any(), any())).thenReturn(BigDecimal.ZERO);
 
-        List<MonthlyStats> stats = adminStatsService.getLastFourMonthsStats();
+        assertEquals(1, adminStatsService.getMonthlyStats(0).size());
+        assertEquals(AdminStatsService.MAX_MONTHS, adminStatsService.getMonthlyStats(10_000).size());
+    }
 
-        assertEquals(4, stats.size());
-        for (MonthlyStats stat : stats) {
-            assertEquals(BigDecimal.ZERO, stat.getRevenue());
-            assertEquals(BigDecimal.ZERO, stat.getExpenses());
-            assertEquals(BigDecimal.ZERO, stat.getProfit());
-        }
+    @Test
+    void getOpenSlotCacheStats_shouldReturnCacheStats() {
+        CacheStats stats = new CacheStats(9, 1, 0, 3, OpenSlotCache.MAX_ENTRIES);
+        when(openSlotCache.getStats()).thenReturn(stats);
+
+        assertEquals(stats, adminStatsService.getOpenSlotCacheStats());
+        assertEquals(0.9, stats.getHitRate());
+    }
+
+    @Test
+    void checkFinancialTotals_shouldOnlyVerify_whenDryRun() {
+        List<FinancialTotalDrift> drift = List.of(new FinancialTotalDrift());
+        when(financialTotalsService.verify()).thenReturn(drift);
+
+        assertEquals(drift, adminStatsService.checkFinancialTotals(true));
+        verify(financialTotalsService, never()).rebuild();
+    }
+
+    @Test
+    void checkFinancialTotals_shouldRebuild_whenNotDryRun() {
+        when(financialTotalsService.rebuild()).thenReturn(List.of());
+
+        assertTrue(adminStatsService.checkFinancialTotals(false).isEmpty());
+        verify(financialTotalsService).rebuild();
     }
 
     @Test
@@ -159,18 +174,26 @@ class AdminStatsServiceTest {
     @Test
     void getLowStockInventory_shouldReturnLowStockItems() {
         List<Inventory> mockItems = List.of(new Inventory());
-        when(inventoryRepository.findItemsBelowThreshold()).thenReturn(mockItems);
+        when(lowStockTracker.getLowStockIds()).thenReturn(List.of(3L));
+        when(inventoryRepository.findAllById(List.of(3L))).thenReturn(mockItems);
 
         List<Inventory> result = adminStatsService.getLowStockInventory();
         assertEquals(1, result.size());
+        verify(inventoryRepository, never()).findAll(); // only the low-stock rows are read
     }
 
     @Test
     void getLowStockInventory_shouldReturnEmptyList_whenNoLowStockItemsExist() {
-        when(inventoryRepository.findItemsBelowThreshold()).thenReturn(List.of());
+        when(lowStockTracker.getLowStockIds()).thenReturn(List.of());
 
         List<Inventory> result = adminStatsService.getLowStockInventory();
         assertNotNull(result);
         assertTrue(result.isEmpty());
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    private void stubMonth(YearMonth month, long revenue, long expenses) {
+        when(financialTotalsService.getMonthTotal(month, FinancialLog.Type.revenue)).thenReturn(BigDecimal.valueOf(revenue));
+        when(financialTotalsService.getMonthTotal(month, FinancialLog.Type.expense)).thenReturn(BigDecimal.valueOf(expenses));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.model.Appointment;
+import com.tanyourpeach.backend.model.Availability;
+import com.tanyourpeach.backend.model.TanService;
+import com.tanyourpeach.backend.repository.AppointmentRepository;
+import com.tanyourpeach.backend.repository.AvailabilityRepository;
+import com.tanyourpeach.backend.repository.TanServiceRepository;
+import com.tanyourpeach.backend.util.TestDataCleaner;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class AppointmentBookingConcurrencyIntegrationTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private TanServiceRepository tanServiceRepository;
+
+    @Autowired
+    private TestDataCleaner testDataCleaner;
+
+    private TanService service;
+
+    @BeforeEach
+    void setup() {
+        testDataCleaner.cleanAll();
+
+        service = new TanService();
+        service.setName("Race Tan");
+        service.setBasePrice(40.0);
+        service.setDurationMinutes(30);
+        service.setIsActive(true);
+        service = tanServiceRepository.save(service);
+    }
+
+    @Test
+    void concurrentBookingsOfOneSlot_shouldProduceExactlyOneAppointment() throws Exception {
+        Availability slot = saveSlot(LocalDate.now().plusDays(3), LocalTime.of(10, 0));
+
+        AtomicInteger successes = new AtomicInteger();
+        runConcurrently(THREADS, i -> {
+            if (appointmentService.createAppointment(newAppointment(slot.getSlotId(), i), null, null).isPresent()) {
+                successes.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, successes.get());
+        assertEquals(1, appointmentRepository.count());
+        assertTrue(availabilityRepository.findById(slot.getSlotId()).orElseThrow().getIsBooked());
+    }
+
+    @Test
+    void bookingBurstAcrossSlots_shouldNeverDoubleBook() throws Exception {
+        int slotCount = 50;
+        int attemptsPerSlot = 4;
+        List<Long> slotIds = new ArrayList<>();
+        LocalDate date = LocalDate.now().plusDays(5);
+        for (int i = 0; i < slotCount; i++) {
+            slotIds.add(saveSlot(date.plusDays(i / 8), LocalTime.of(9 + i % 8, 0)).getSlotId());
+        }
+
+        AtomicInteger successes = new AtomicInteger();
+        AtomicInteger rejections = new AtomicInteger();
+        int attempts = slotCount * attemptsPerSlot;
+        runConcurrently(attempts, i -> {
+            Long slotId = slotIds.get(i % slotCount);
+            if (appointmentService.createAppointment(newAppointment(slotId, i), null, null).isPresent()) {
+                successes.incrementAndGet();
+            } else {
+                rejections.incrementAndGet();
+            }
+        });
+
+        // Every slot booked exactly once and every losing attempt turned away cleanly, no slot shared by two appointments
+        assertEquals(slotCount, successes.get());
+        assertEquals(attempts - slotCount, rejections.get());
+        assertEquals(slotCount, appointmentRepository.count());
+        Map<Long, Long> perSlot = appointmentRepository.findAll().stream()
+                .collect(Collectors.groupingBy(a -> a.getAvailability().getSlotId(), Collectors.counting()));
+        assertEquals(slotCount, perSlot.size());
+        assertTrue(perSlot.values().stream().allMatch(count -> count == 1));
+    }
+
+    private Availability saveSlot(LocalDate date, LocalTime start) {
+        Availability slot = new Availability();
+        slot.setDate(date);
+        slot.setStartTime(start);
+        slot.setEndTime(start.plusMinutes(30));
+        slot.setIsBooked(false);
+        return availabilityRepository.save(slot);
+    }
+
+    private Appointment newAppointment(Long slotId, int attempt) {
+        Availability ref = new Availability();
+        ref.setSlotId(slotId);
+
+        TanService serviceRef = new TanService();
+        serviceRef.setServiceId(service.getServiceId());
+
+        Appointment appointment = new Appointment();
+        appointment.setService(serviceRef);
+        appointment.setClientName("Racer " + attempt);
+        appointment.setClientEmail("racer" + attempt + "@example.com");
+        appointment.setClientAddress("1 Race Way");
+        appointment.setAvailability(ref);
+        return appointment;
+    }
+
+    private interface Attempt {
+        void run(int index) throws Exception;
+    }
+
+    // Release all attempts at once from a fixed pool and wait for every one to finish
+    private void runConcurrently(int attempts, Attempt attempt) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            final int index = i;
+            Callable<Void> task = () -> {
+                start.await();
+                attempt.run(index);
+                return null;
+            };
+            futures.add(pool.submit(task));
+        }
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+}
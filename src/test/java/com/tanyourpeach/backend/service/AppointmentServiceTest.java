@@ -2,6 +2,7 @@ package com.tanyourpeach.backend.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
@@ -11,16 +12,35 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
-
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.tanyourpeach.backend.dto.AuthenticatedUser;
+import com.tanyourpeach.backend.dto.BillOfMaterials;
+import com.tanyourpeach.backend.dto.CursorPage;
+import com.tanyourpeach.backend.dto.SlotEvent;
+import com.tanyourpeach.backend.exception.InsufficientInventoryException;
 import com.tanyourpeach.backend.model.*;
 import com.tanyourpeach.backend.repository.*;
 
-import jakarta.servlet.http.HttpServletRequest;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @SpringBootTest
 class AppointmentServiceTest {
@@ -33,23 +53,34 @@ class AppointmentServiceTest {
     @Mock
     private AvailabilityRepository availabilityRepository;
     @Mock
+    private AvailabilityVersions availabilityVersions;
+    @Mock
+    private SlotEventBroadcaster slotEventBroadcaster;
+    @Mock
+    private SlotHoldService slotHoldService;
+    @Mock
+    private InventoryForecastService inventoryForecastService;
+    @Mock
+    private InventoryReservationService inventoryReservationService;
+    @Mock
     private FinancialLogRepository financialLogRepository;
+
+    @Mock
+    private FinancialTotalsService financialTotalsService;
     @Mock
     private TanServiceRepository tanServiceRepository;
     @Mock
-    private ServiceInventoryUsageRepository usageRepository;
+    private BillOfMaterialsCache billOfMaterialsCache;
     @Mock
-    private InventoryRepository inventoryRepository;
+    private InventoryService inventoryService;
     @Mock
     private ReceiptRepository receiptRepository;
     @Mock
     private AppointmentStatusHistoryRepository appointmentStatusHistoryRepository;
     @Mock
-    private JwtService jwtService;
-    @Mock
     private UserRepository userRepository;
     @Mock
-    private HttpServletRequest request;
+    private TransactionTemplate transactionTemplate;
 
     private Appointment testAppointment;
     private Availability testSlot;
@@ -73,17 +104,89 @@ class AppointmentServiceTest {
         testAppointment.setClientName("Test Client");
         testAppointment.setClientAddress("123 Peach St");
         testAppointment.setAvailability(testSlot);
+
+        // Run transactional callbacks inline
+        when(transactionTemplate.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(inventoryReservationService.reserve(any(), any(), any())).thenReturn(true);
+        when(billOfMaterialsCache.get(any())).thenAnswer(i -> BillOfMaterials.empty(i.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
-    void getAllAppointments_shouldReturnAllAppointments() {
+    void getAppointmentsByClientEmail_shouldQueryByEmailWithBoundedPage() {
         List<Appointment> mockList = List.of(new Appointment(), new Appointment());
 
-        when(appointmentRepository.findAll()).thenReturn(mockList);
+        when(appointmentRepository.findHistoryByClientEmail("client@example.com", PageRequest.of(1, 20)))
+                .thenReturn(mockList);
 
-        List<Appointment> result = appointmentService.getAllAppointments();
+        List<Appointment> result = appointmentService.getAppointmentsByClientEmail("client@example.com", 1, 20);
 
         assertEquals(2, result.size());
+        verify(appointmentRepository, never()).findAll();
+    }
+
+    @Test
+    void getAppointmentsByUserId_shouldClampPageSize() {
+        when(appointmentRepository.findByUser_UserIdOrderByAppointmentDateTimeDesc(any(), any())).thenReturn(List.of());
+
+        appointmentService.getAppointmentsByUserId(42L, -1, 100_000);
+
+        verify(appointmentRepository).findByUser_UserIdOrderByAppointmentDateTimeDesc(
+                42L, PageRequest.of(0, AppointmentService.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    void getAppointmentsPage_shouldReturnNextCursor_whenMoreRowsExist() {
+        Appointment a1 = new Appointment();
+        a1.setAppointmentId(1L);
+        a1.setAppointmentDateTime(LocalDateTime.of(2030, 1, 1, 9, 0));
+        Appointment a2 = new Appointment();
+        a2.setAppointmentId(2L);
+        a2.setAppointmentDateTime(LocalDateTime.of(2030, 1, 1, 10, 0));
+        Appointment a3 = new Appointment();
+        a3.setAppointmentId(3L);
+        a3.setAppointmentDateTime(LocalDateTime.of(2030, 1, 1, 11, 0));
+
+        when(appointmentRepository.findFirstPage(Limit.of(3))).thenReturn(List.of(a1, a2, a3));
+
+        Optional<CursorPage<Appointment>> result = appointmentService.getAppointmentsPage(null, 2);
+
+        assertTrue(result.isPresent());
+        assertEquals(2, result.get().getItems().size());
+        assertNotNull(result.get().getNextCursor());
+
+        // The cursor resumes strictly after the last returned row
+        when(appointmentRepository.findPageAfter(LocalDateTime.of(2030, 1, 1, 10, 0), 2L, Limit.of(3)))
+                .thenReturn(List.of(a3));
+
+        Optional<CursorPage<Appointment>> next = appointmentService.getAppointmentsPage(result.get().getNextCursor(), 2);
+
+        assertTrue(next.isPresent());
+        assertEquals(1, next.get().getItems().size());
+        assertNull(next.get().getNextCursor());
+    }
+
+    @Test
+    void getAppointmentsPage_shouldClampPageSize() {
+        when(appointmentRepository.findFirstPage(any())).thenReturn(List.of());
+
+        appointmentService.getAppointmentsPage(null, 10_000);
+
+        verify(appointmentRepository).findFirstPage(Limit.of(AppointmentService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void getAppointmentsPage_shouldReturnEmpty_whenCursorMalformed() {
+        Optional<CursorPage<Appointment>> result = appointmentService.getAppointmentsPage("not-a-cursor", 10);
+
+        assertTrue(result.isEmpty());
+        verify(appointmentRepository, never()).findPageAfter(any(), any(), any());
     }
 
     @Test
@@ -112,7 +215,7 @@ class AppointmentServiceTest {
 
     @Test
     void createAppointment_shouldSucceed_whenSlotAvailable() {
-        when(availabilityRepository.findById(1L)).thenReturn(Optional.of(testSlot));
+        when(slotHoldService.claim(eq(1L), any())).thenReturn(Optional.of(testSlot));
         when(tanServiceRepository.findById(1L)).thenReturn(Optional.of(testService));
         when(appointmentRepository.save(any())).thenAnswer(i -> {
             Appointment a = i.getArgument(0);
@@ -120,12 +223,74 @@ class AppointmentServiceTest {
             return a;
         });
 
-        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, request);
+        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, null, null);
 
         assertTrue(result.isPresent());
         assertEquals(Appointment.Status.PENDING, result.get().getStatus());
         assertEquals(50.0, result.get().getBasePrice());
         assertNotNull(result.get().getAppointmentDateTime());
+        verify(availabilityVersions).bump(testSlot.getDate()); // booked slot's date changed
+        verify(slotEventBroadcaster).publish(SlotEvent.Type.BOOKED, testSlot);
+    }
+
+    @Test
+    void createAppointment_shouldReserveServiceInventory() {
+        BillOfMaterials bom = new BillOfMaterials(1L, new long[] {200L}, new int[] {2});
+        when(slotHoldService.claim(eq(1L), any())).thenReturn(Optional.of(testSlot));
+        when(tanServiceRepository.findById(1L)).thenReturn(Optional.of(testService));
+        when(billOfMaterialsCache.get(1L)).thenReturn(bom);
+        when(appointmentRepository.save(any())).thenAnswer(i -> {
+            Appointment a = i.getArgument(0);
+            a.setAppointmentId(99L);
+            return a;
+        });
+
+        appointmentService.createAppointment(testAppointment, null, null);
+
+        // Held until the appointment starts
+        verify(inventoryReservationService).reserve(99L, bom, LocalDateTime.of(testSlot.getDate(), testSlot.getStartTime()));
+    }
+
+    @Test
+    void createAppointment_shouldThrow_whenInventoryCannotBeReserved() {
+        when(slotHoldService.claim(eq(1L), any())).thenReturn(Optional.of(testSlot));
+        when(tanServiceRepository.findById(1L)).thenReturn(Optional.of(testService));
+        when(appointmentRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+        when(inventoryReservationService.reserve(any(), any(), any())).thenReturn(false);
+
+        // Thrown so the transaction rolls back the booking, which undoes the slot claim
+        assertThrows(InsufficientInventoryException.class, () -> appointmentService.createAppointment(testAppointment, null, null));
+    }
+
+    @Test
+    void createAppointment_shouldUndoClaim_whenBookingRollsBack() {
+        when(slotHoldService.claim(eq(1L), any())).thenReturn(Optional.of(testSlot));
+        when(appointmentRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        appointmentService.createAppointment(testAppointment, null, null);
+        verify(slotHoldService, never()).unclaim(any()); // claim already committed on its own
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(slotHoldService).unclaim(1L);
+    }
+
+    @Test
+    void createAppointment_shouldKeepClaim_whenBookingCommits() {
+        when(slotHoldService.claim(eq(1L), any())).thenReturn(Optional.of(testSlot));
+        when(appointmentRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        appointmentService.createAppointment(testAppointment, null, null);
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        verify(slotHoldService, never()).unclaim(any());
     }
 
     @Test
@@ -133,7 +298,7 @@ class AppointmentServiceTest {
         testAppointment.setAvailability(testSlot);
         testAppointment.setClientEmail("guest@example.com");
 
-        when(availabilityRepository.findById(1L)).thenReturn(Optional.of(testSlot));
+        when(slotHoldService.claim(eq(1L), any())).thenReturn(Optional.of(testSlot));
         when(tanServiceRepository.findById(1L)).thenReturn(Optional.of(testService));
         when(appointmentRepository.save(any())).thenAnswer(i -> {
             Appointment a = i.getArgument(0);
@@ -141,7 +306,7 @@ class AppointmentServiceTest {
             return a;
         });
 
-        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, request);
+        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, null, null);
 
         assertTrue(result.isPresent());
         verify(appointmentStatusHistoryRepository).save(argThat(history ->
@@ -152,18 +317,16 @@ class AppointmentServiceTest {
 
     @Test
     void createAppointment_shouldLinkUserIfTokenPresent() {
-        String token = "fake-jwt-token";
         String email = "testuser@example.com";
 
         User mockUser = new User();
         mockUser.setUserId(42L);
         mockUser.setEmail(email);
 
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtService.extractUsername(token)).thenReturn(email);
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(mockUser));
+        // The principal carries the user id, so the user is linked by reference without a query
+        when(userRepository.getReferenceById(42L)).thenReturn(mockUser);
 
-        when(availabilityRepository.findById(1L)).thenReturn(Optional.of(testSlot));
+        when(slotHoldService.claim(eq(1L), any())).thenReturn(Optional.of(testSlot));
         when(tanServiceRepository.findById(1L)).thenReturn(Optional.of(testService));
         when(appointmentRepository.save(any())).thenAnswer(i -> {
             Appointment a = i.getArgument(0);
@@ -171,7 +334,26 @@ class AppointmentServiceTest {
             return a;
         });
 
-        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, request);
+        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, new AuthenticatedUser(42L, email, false), null);
+
+        assertTrue(result.isPresent());
+        assertEquals(mockUser, result.get().getUser());
+        verify(userRepository, never()).findByEmail(any());
+    }
+
+    @Test
+    void createAppointment_shouldLookUpUserByEmail_forTokenWithoutUserId() {
+        String email = "testuser@example.com";
+
+        User mockUser = new User();
+        mockUser.setUserId(42L);
+        mockUser.setEmail(email);
+
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(mockUser));
+        when(slotHoldService.claim(eq(1L), any())).thenReturn(Optional.of(testSlot));
+        when(appointmentRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, new AuthenticatedUser(email, false), null);
 
         assertTrue(result.isPresent());
         assertEquals(mockUser, result.get().getUser());
@@ -181,11 +363,11 @@ class AppointmentServiceTest {
     void createAppointment_shouldHandleMissingServiceGracefully() {
         testAppointment.setService(null); // simulate missing service
         testAppointment.setAvailability(testSlot); // ensure slot is present
-        when(availabilityRepository.findById(1L)).thenReturn(Optional.of(testSlot));
+        when(slotHoldService.claim(eq(1L), any())).thenReturn(Optional.of(testSlot));
         when(appointmentRepository.save(any())).thenAnswer(i -> i.getArgument(0));
         when(availabilityRepository.save(any())).thenReturn(testSlot);
 
-        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, request);
+        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, null, null);
 
         assertTrue(result.isPresent());
         assertEquals(Appointment.Status.PENDING, result.get().getStatus());
@@ -212,15 +394,12 @@ class AppointmentServiceTest {
         appointment.setAvailability(slot);
 
         // Mock repository behavior
-        when(availabilityRepository.findById(1L)).thenReturn(Optional.of(slot));
+        when(slotHoldService.claim(eq(1L), any())).thenReturn(Optional.of(slot));
         when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(appointmentStatusHistoryRepository.save(any())).thenReturn(null); // ignore result
 
-        HttpServletRequest mockRequest = mock(HttpServletRequest.class);
-        when(mockRequest.getHeader("Authorization")).thenReturn(null); // No auth token
-
-        // Act
-        Optional<Appointment> result = appointmentService.createAppointment(appointment, mockRequest);
+        // Act, with no logged-in user
+        Optional<Appointment> result = appointmentService.createAppointment(appointment, null, null);
 
         // Assert
         assertTrue(result.isPresent());
@@ -244,21 +423,103 @@ class AppointmentServiceTest {
 
         when(availabilityRepository.findById(123L)).thenReturn(Optional.of(slot));
 
-        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, request);
+        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, null, null);
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void createAppointment_shouldFail_whenSlotClaimedConcurrently() {
+        // Slot looked free when read, but another booking won the conditional UPDATE
+        when(slotHoldService.claim(eq(1L), any())).thenReturn(Optional.empty());
+        when(tanServiceRepository.findById(1L)).thenReturn(Optional.of(testService));
+
+        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, null, null);
+
         assertTrue(result.isEmpty());
+        verify(appointmentRepository, never()).save(any());
+        verify(appointmentStatusHistoryRepository, never()).save(any());
+    }
+
+    @Test
+    void createAppointment_shouldClaimWithCallersHoldToken_andForgetTheHold() {
+        when(slotHoldService.claim(eq(1L), eq("hold-token"))).thenReturn(Optional.of(testSlot));
+        when(appointmentRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        assertTrue(appointmentService.createAppointment(testAppointment, null, "hold-token").isPresent());
+        verify(slotHoldService).claim(1L, "hold-token");
+    }
+
+    @Test
+    void createAppointment_shouldFail_whenSlotHeldBySomeoneElse() {
+        // No token sent, so the claim's hold condition rejects it
+        when(slotHoldService.claim(eq(1L), isNull())).thenReturn(Optional.empty());
+
+        assertTrue(appointmentService.createAppointment(testAppointment, null, null).isEmpty());
+        verify(appointmentRepository, never()).save(any());
+    }
+
+    @Test
+    void createAppointment_shouldBookSlotExactlyOnce_underContention() throws Exception {
+        // Emulate the database's conditional UPDATE: only the first claim affects a row
+        AtomicBoolean booked = new AtomicBoolean(false);
+        when(slotHoldService.claim(eq(1L), any())).thenAnswer(i -> {
+            if (!booked.compareAndSet(false, true)) return Optional.empty();
+            Availability fresh = new Availability();
+            fresh.setSlotId(1L);
+            fresh.setIsBooked(true);
+            fresh.setDate(LocalDate.now());
+            fresh.setStartTime(LocalTime.of(14, 0));
+            return Optional.of(fresh);
+        });
+        when(tanServiceRepository.findById(1L)).thenReturn(Optional.of(testService));
+        when(appointmentRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        int threads = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger successes = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                Appointment attempt = new Appointment();
+                attempt.setService(testService);
+                attempt.setClientName("Racer");
+                attempt.setClientEmail("racer@example.com");
+                attempt.setClientAddress("1 Race Way");
+                Availability ref = new Availability();
+                ref.setSlotId(1L);
+                attempt.setAvailability(ref);
+
+                start.await();
+                if (appointmentService.createAppointment(attempt, null, null).isPresent()) {
+                    successes.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(1, successes.get());
+        verify(appointmentRepository, times(1)).save(any());
     }
 
     @Test
     void createAppointment_shouldFail_whenSlotMissing() {
         testAppointment.setAvailability(null); // no slot
-        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, request);
+        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, null, null);
         assertTrue(result.isEmpty());
     }
 
     @Test
     void createAppointment_shouldFail_whenSlotNotFound() {
         when(availabilityRepository.findById(1L)).thenReturn(Optional.empty());
-        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, request);
+        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, null, null);
         assertTrue(result.isEmpty());
     }
 
@@ -270,7 +531,7 @@ class AppointmentServiceTest {
         testAppointment.setAvailability(testSlot);
         testAppointment.setService(testService);
 
-        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, request);
+        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, null, null);
         assertTrue(result.isEmpty());
     }
 
@@ -282,7 +543,7 @@ class AppointmentServiceTest {
         testAppointment.setAvailability(testSlot);
         testAppointment.setService(testService);
 
-        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, request);
+        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, null, null);
         assertTrue(result.isEmpty());
     }
 
@@ -294,7 +555,7 @@ class AppointmentServiceTest {
         testAppointment.setAvailability(testSlot);
         testAppointment.setService(testService);
 
-        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, request);
+        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, null, null);
         assertTrue(result.isEmpty());
     }
 
@@ -302,7 +563,7 @@ class AppointmentServiceTest {
     void createAppointment_shouldFail_whenTravelFeeNegative() {
         testAppointment.setTravelFee(-5.0);
 
-        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, request);
+        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, null, null);
         assertTrue(result.isEmpty());
     }
 
@@ -315,7 +576,7 @@ class AppointmentServiceTest {
 
         testAppointment.setAvailability(null); // Missing
 
-        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, request);
+        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, null, null);
         assertTrue(result.isEmpty());
     }
 
@@ -330,7 +591,7 @@ class AppointmentServiceTest {
         testAppointment.setAvailability(slot);
         testAppointment.setService(testService);
 
-        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, request);
+        Optional<Appointment> result = appointmentService.createAppointment(testAppointment, null, null);
         assertTrue(result.isEmpty());
     }
 
@@ -358,10 +619,9 @@ class AppointmentServiceTest {
         when(appointmentRepository.findById(1L)).thenReturn(Optional.of(testAppointment));
         when(tanServiceRepository.findById(1L)).thenReturn(Optional.of(testService));
         when(appointmentRepository.save(any())).thenAnswer(i -> i.getArgument(0));
-        when(usageRepository.findByService_ServiceId(1L)).thenReturn(List.of());
         when(receiptRepository.findByAppointment_AppointmentId(1L)).thenReturn(null);
 
-        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, request);
+        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, null, null);
 
         assertTrue(result.isPresent());
         assertEquals(Appointment.Status.CONFIRMED, result.get().getStatus());
@@ -396,26 +656,21 @@ class AppointmentServiceTest {
         updated.setTravelFee(10.0);
         updated.setAvailability(slot);
 
-        Inventory item = new Inventory();
-        item.setItemId(200L);
-        item.setQuantity(10); // enough inventory
-
-        ServiceInventoryUsage usage = new ServiceInventoryUsage();
-        usage.setItem(item);
-        usage.setQuantityUsed(5);
+        BillOfMaterials bom = new BillOfMaterials(20L, new long[] {200L}, new int[] {5}); // enough inventory
 
         when(appointmentRepository.findById(1L)).thenReturn(Optional.of(existing));
         when(tanServiceRepository.findById(20L)).thenReturn(Optional.of(service));
-        when(usageRepository.findByService_ServiceId(20L)).thenReturn(List.of(usage));
-        when(inventoryRepository.findById(200L)).thenReturn(Optional.of(item));
+        when(billOfMaterialsCache.get(20L)).thenReturn(bom);
         when(appointmentRepository.save(any())).thenAnswer(i -> i.getArgument(0));
         when(receiptRepository.findByAppointment_AppointmentId(1L)).thenReturn(null);
 
-        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, request);
+        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, null, null);
 
         assertTrue(result.isPresent());
-        verify(inventoryRepository).save(any()); // inventory deducted
+        verify(inventoryService).deductForService(bom, 1L); // cached BOM, no usage query
+        verify(inventoryReservationService).release(1L); // the deduction replaces the reservation
         verify(financialLogRepository).save(any()); // log generated
+        verify(financialTotalsService).recordLog(any());
         verify(receiptRepository).save(any()); // receipt generated
 
         ArgumentCaptor<Receipt> receiptCaptor = ArgumentCaptor.forClass(Receipt.class);
@@ -451,7 +706,7 @@ class AppointmentServiceTest {
         when(tanServiceRepository.findById(1L)).thenReturn(Optional.of(testService));
         when(appointmentRepository.save(any())).thenAnswer(i -> i.getArgument(0));
 
-        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, request);
+        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, null, null);
 
         assertTrue(result.isPresent());
         verify(appointmentStatusHistoryRepository, never()).save(any());
@@ -488,11 +743,8 @@ class AppointmentServiceTest {
 
         when(appointmentRepository.findById(appointmentId)).thenReturn(Optional.of(existing));
 
-        HttpServletRequest request = mock(HttpServletRequest.class);
-        when(request.getHeader("Authorization")).thenReturn(null);
-
         // Act
-        Optional<Appointment> result = appointmentService.updateAppointment(appointmentId, updated, request);
+        Optional<Appointment> result = appointmentService.updateAppointment(appointmentId, updated, null, null);
 
         // Assert
         assertTrue(result.isEmpty());
@@ -527,11 +779,10 @@ class AppointmentServiceTest {
 
         when(appointmentRepository.findById(1L)).thenReturn(Optional.of(existing));
         when(tanServiceRepository.findById(42L)).thenReturn(Optional.of(service));
-        when(usageRepository.findByService_ServiceId(42L)).thenReturn(List.of());
         when(receiptRepository.findByAppointment_AppointmentId(1L)).thenReturn(new Receipt()); // already exists
         when(appointmentRepository.save(any())).thenAnswer(i -> i.getArgument(0));
 
-        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, request);
+        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, null, null);
 
         assertTrue(result.isPresent());
         verify(receiptRepository, never()).save(any());
@@ -577,11 +828,8 @@ class AppointmentServiceTest {
         when(tanServiceRepository.findById(10L)).thenReturn(Optional.of(service));
         when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        HttpServletRequest request = mock(HttpServletRequest.class);
-        when(request.getHeader("Authorization")).thenReturn(null); // No auth needed
-
         // Act
-        Optional<Appointment> result = appointmentService.updateAppointment(appointmentId, updated, request);
+        Optional<Appointment> result = appointmentService.updateAppointment(appointmentId, updated, null, null);
 
         // Assert
         assertTrue(result.isPresent());
@@ -590,8 +838,8 @@ class AppointmentServiceTest {
         // Make sure total price is still correct
         assertEquals(65.0, saved.getTotalPrice());
 
-        // Verify inventoryRepository was NOT called (no deduction)
-        verify(inventoryRepository, never()).save(any());
+        // Verify inventory was NOT deducted
+        verify(inventoryService, never()).deductForService(any(), any());
     }
 
     @Test
@@ -607,26 +855,23 @@ class AppointmentServiceTest {
         existing.setService(service);
 
         when(appointmentRepository.findById(1L)).thenReturn(Optional.of(existing));
+        when(tanServiceRepository.findById(10L)).thenReturn(Optional.of(service));
 
-        // ServiceInventoryUsage requires more than available
-        Inventory item = new Inventory();
-        item.setItemId(100L);
-        item.setQuantity(3); // not enough
-
-        ServiceInventoryUsage usage = new ServiceInventoryUsage();
-        usage.setItem(item);
-        usage.setQuantityUsed(5); // more than available
-
-        when(usageRepository.findByService_ServiceId(10L)).thenReturn(List.of(usage));
-        when(inventoryRepository.findById(100L)).thenReturn(Optional.of(item));
+        // The service's BOM needs more than is on hand
+        BillOfMaterials bom = new BillOfMaterials(10L, new long[] {100L}, new int[] {5});
+        when(billOfMaterialsCache.get(10L)).thenReturn(bom);
+        doThrow(new InsufficientInventoryException("Insufficient inventory for service 10"))
+                .when(inventoryService).deductForService(bom, 1L);
 
         // Simulate client confirming the appointment
         Appointment updated = new Appointment();
         updated.setStatus(Appointment.Status.CONFIRMED);
         updated.setService(service);
+        updated.setClientName("Client");
         updated.setClientEmail("client@example.com");
+        updated.setClientAddress("123 Peach St");
 
-        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, request);
+        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, null, null);
 
         assertTrue(result.isEmpty()); // Expect failure due to insufficient inventory
         verify(financialLogRepository, never()).save(any());
@@ -648,7 +893,7 @@ class AppointmentServiceTest {
 
         when(appointmentRepository.findById(1L)).thenReturn(Optional.of(testAppointment));
 
-        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, request);
+        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, null, null);
         assertTrue(result.isEmpty());
     }
 
@@ -672,8 +917,106 @@ class AppointmentServiceTest {
         when(appointmentRepository.findById(1L)).thenReturn(Optional.of(testAppointment));
         when(availabilityRepository.findById(456L)).thenReturn(Optional.of(newSlot));
 
-        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, request);
+        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, null, null);
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void updateAppointment_shouldClaimNewSlotAndReleaseOld_whenChangingSlot() {
+        testAppointment.setAppointmentId(1L);
+        testAppointment.setStatus(Appointment.Status.PENDING);
+        testSlot.setIsBooked(true);
+
+        Availability newSlot = new Availability();
+        newSlot.setSlotId(456L);
+        newSlot.setIsBooked(false);
+        newSlot.setDate(LocalDate.now().plusDays(1));
+        newSlot.setStartTime(LocalTime.of(9, 0));
+
+        Appointment updated = new Appointment();
+        updated.setClientName("Brenna");
+        updated.setClientEmail("brenna@example.com");
+        updated.setClientAddress("123 Peach St");
+        updated.setStatus(Appointment.Status.PENDING);
+        updated.setService(testService);
+        updated.setAvailability(newSlot);
+
+        when(appointmentRepository.findById(1L)).thenReturn(Optional.of(testAppointment));
+        when(tanServiceRepository.findById(1L)).thenReturn(Optional.of(testService));
+        when(slotHoldService.claim(eq(456L), any())).thenReturn(Optional.of(newSlot));
+        when(appointmentRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, null, null);
+
+        assertTrue(result.isPresent());
+        assertEquals(456L, result.get().getAvailability().getSlotId());
+        verify(availabilityRepository).save(testSlot);
+        assertFalse(testSlot.getIsBooked());
+    }
+
+    @Test
+    void updateAppointment_shouldRetryFromFreshRead_whenVersionConflict() {
+        testAppointment.setAppointmentId(1L);
+        testAppointment.setStatus(Appointment.Status.PENDING);
+
+        Appointment updated = new Appointment();
+        updated.setClientName("Brenna");
+        updated.setClientEmail("brenna@example.com");
+        updated.setClientAddress("123 Peach St");
+        updated.setStatus(Appointment.Status.PENDING);
+        updated.setService(testService);
+        updated.setAvailability(testSlot);
+
+        when(appointmentRepository.findById(1L)).thenReturn(Optional.of(testAppointment));
+        when(tanServiceRepository.findById(1L)).thenReturn(Optional.of(testService));
+        when(appointmentRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        // First attempt loses to a concurrent writer, second commits
+        doThrow(new ObjectOptimisticLockingFailureException(Appointment.class, 1L))
+                .doAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+
+        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, null, null);
+
+        assertTrue(result.isPresent());
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void updateAppointment_shouldGiveUp_afterMaxVersionConflicts() {
+        doThrow(new ObjectOptimisticLockingFailureException(Appointment.class, 1L))
+                .when(transactionTemplate).execute(any());
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> appointmentService.updateAppointment(1L, new Appointment(), null, null));
+        verify(transactionTemplate, times(AppointmentService.MAX_UPDATE_ATTEMPTS)).execute(any());
+    }
+
+    @Test
+    void updateAppointment_shouldKeepOldSlot_whenNewSlotClaimLost() {
+        testAppointment.setAppointmentId(1L);
+        testAppointment.setStatus(Appointment.Status.PENDING);
+
+        Availability newSlot = new Availability();
+        newSlot.setSlotId(456L);
+        newSlot.setIsBooked(false);
+
+        Appointment updated = new Appointment();
+        updated.setClientName("Brenna");
+        updated.setClientEmail("brenna@example.com");
+        updated.setClientAddress("123 Peach St");
+        updated.setStatus(Appointment.Status.PENDING);
+        updated.setService(testService);
+        updated.setAvailability(newSlot);
+
+        when(appointmentRepository.findById(1L)).thenReturn(Optional.of(testAppointment));
+        when(tanServiceRepository.findById(1L)).thenReturn(Optional.of(testService));
+        when(slotHoldService.claim(eq(456L), any())).thenReturn(Optional.empty());
+
+        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, null, null);
+
         assertTrue(result.isEmpty());
+        verify(availabilityRepository, never()).save(testSlot);
     }
 
     @Test
@@ -690,7 +1033,7 @@ class AppointmentServiceTest {
 
         when(appointmentRepository.findById(1L)).thenReturn(Optional.of(testAppointment));
 
-        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, request);
+        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, null, null);
         assertTrue(result.isEmpty());
     }
 
@@ -708,7 +1051,7 @@ class AppointmentServiceTest {
 
         when(appointmentRepository.findById(1L)).thenReturn(Optional.of(testAppointment));
 
-        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, request);
+        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, null, null);
         assertTrue(result.isEmpty());
     }
 
@@ -726,7 +1069,7 @@ class AppointmentServiceTest {
 
         when(appointmentRepository.findById(1L)).thenReturn(Optional.of(testAppointment));
 
-        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, request);
+        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, null, null);
         assertTrue(result.isEmpty());
     }
 
@@ -743,7 +1086,7 @@ class AppointmentServiceTest {
 
         when(appointmentRepository.findById(1L)).thenReturn(Optional.of(testAppointment));
 
-        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, request);
+        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, null, null);
         assertTrue(result.isEmpty());
     }
 
@@ -751,7 +1094,7 @@ class AppointmentServiceTest {
     void updateAppointment_shouldFail_whenAppointmentNotFound() {
         when(appointmentRepository.findById(1L)).thenReturn(Optional.empty());
         Appointment updated = new Appointment();
-        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, request);
+        Optional<Appointment> result = appointmentService.updateAppointment(1L, updated, null, null);
         assertTrue(result.isEmpty());
     }
 
@@ -775,7 +1118,10 @@ class AppointmentServiceTest {
         // Verify behavior
         assertTrue(result);
         verify(availabilityRepository).save(availability); // slot should be unbooked
+        verify(slotEventBroadcaster).publish(SlotEvent.Type.RELEASED, availability);
         verify(appointmentRepository).deleteById(1L);
+        verify(inventoryForecastService).invalidate(); // booked demand changed
+        verify(inventoryReservationService).release(1L); // reserved units returned
     }
 
     @Test
@@ -0,0 +1,118 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.model.Availability;
+import com.tanyourpeach.backend.repository.AvailabilityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+class AvailabilityArchiverTest {
+
+    @Mock
+    private AvailabilityRepository availabilityRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private AvailabilityArchiver archiver;
+
+    private AvailabilityVersions availabilityVersions;
+
+    private final LocalDate pastDate = LocalDate.now().minusDays(10);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+        ReflectionTestUtils.setField(availabilityIndex, "availabilityRepository", availabilityRepository);
+        ReflectionTestUtils.setField(archiver, "availabilityIndex", availabilityIndex);
+        availabilityVersions = new AvailabilityVersions();
+        ReflectionTestUtils.setField(archiver, "availabilityVersions", availabilityVersions);
+
+        ReflectionTestUtils.setField(archiver, "batchSize", 2);
+        ReflectionTestUtils.setField(archiver, "pauseMs", 0L);
+        ReflectionTestUtils.setField(archiver, "businessHoursStart", "00:00");
+        ReflectionTestUtils.setField(archiver, "businessHoursEnd", "00:00"); // never business hours
+
+        // Run transactional callbacks inline
+        when(transactionTemplate.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void archivePastSlots_shouldMoveSlotsInBatches_untilAPartialBatch() {
+        when(availabilityRepository.findArchivable(eq(LocalDate.now()), eq(false), eq(Limit.of(2))))
+                .thenReturn(List.of(slot(1L), slot(2L)))
+                .thenReturn(List.of(slot(3L)));
+        long versionBefore = availabilityVersions.current(pastDate);
+
+        int archived = archiver.archivePastSlots();
+
+        assertEquals(3, archived);
+        verify(availabilityRepository).copyToArchive(List.of(1L, 2L));
+        verify(availabilityRepository).deleteArchived(List.of(1L, 2L));
+        verify(availabilityRepository).copyToArchive(List.of(3L));
+        verify(availabilityRepository).deleteArchived(List.of(3L));
+        verify(transactionTemplate, times(2)).execute(any());
+        assertNotEquals(versionBefore, availabilityVersions.current(pastDate));
+    }
+
+    @Test
+    void archivePastSlots_shouldDoNothing_whenNothingIsEligible() {
+        when(availabilityRepository.findArchivable(any(), anyBoolean(), any())).thenReturn(List.of());
+
+        assertEquals(0, archiver.archivePastSlots());
+        verify(availabilityRepository, never()).copyToArchive(any());
+        verify(availabilityRepository, never()).deleteArchived(any());
+    }
+
+    @Test
+    void archivePastSlots_shouldKeepRecentDays_whenRetaining() {
+        ReflectionTestUtils.setField(archiver, "retainDays", 30);
+        when(availabilityRepository.findArchivable(any(), anyBoolean(), any())).thenReturn(List.of());
+
+        archiver.archivePastSlots();
+        verify(availabilityRepository).findArchivable(eq(LocalDate.now().minusDays(30)), eq(false), any());
+    }
+
+    @Test
+    void archivePastSlots_shouldNotRun_duringBusinessHours() {
+        ReflectionTestUtils.setField(archiver, "businessHoursEnd", LocalTime.MAX.toString()); // all day
+
+        assertEquals(0, archiver.archivePastSlots());
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void archiveNightly_shouldRespectEnabledFlag() {
+        ReflectionTestUtils.setField(archiver, "enabled", false);
+
+        archiver.archiveNightly();
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    private Availability slot(Long id) {
+        Availability slot = new Availability();
+        slot.setSlotId(id);
+        slot.setDate(pastDate);
+        slot.setStartTime(LocalTime.of(9, 0));
+        slot.setEndTime(LocalTime.of(10, 0));
+        return slot;
+    }
+}
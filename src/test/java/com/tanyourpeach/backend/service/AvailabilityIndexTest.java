@@ -0,0 +1,106 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.model.Availability;
+import com.tanyourpeach.backend.repository.AvailabilityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AvailabilityIndexTest {
+
+    @Mock
+    private AvailabilityRepository availabilityRepository;
+
+    @InjectMocks
+    private AvailabilityIndex availabilityIndex;
+
+    private final LocalDate date = LocalDate.of(2030, 5, 14);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        when(availabilityRepository.findByDate(date)).thenReturn(List.of(
+                slot(1L, 9, 10),
+                slot(2L, 11, 12),
+                slot(3L, 14, 16)));
+    }
+
+    @Test
+    void overlaps_shouldDetectIntersections() {
+        assertTrue(availabilityIndex.overlaps(date, time(9, 30), time(10, 30), null));
+        assertTrue(availabilityIndex.overlaps(date, time(8, 0), time(17, 0), null));
+        assertTrue(availabilityIndex.overlaps(date, time(14, 30), time(15, 0), null));
+    }
+
+    @Test
+    void overlaps_shouldAllowGapsAndTouchingSlots() {
+        assertFalse(availabilityIndex.overlaps(date, time(10, 0), time(11, 0), null));
+        assertFalse(availabilityIndex.overlaps(date, time(12, 0), time(14, 0), null));
+        assertFalse(availabilityIndex.overlaps(date, time(16, 0), time(18, 0), null));
+        assertFalse(availabilityIndex.overlaps(date, time(7, 0), time(9, 0), null));
+    }
+
+    @Test
+    void overlaps_shouldIgnoreTheSlotBeingUpdated() {
+        assertFalse(availabilityIndex.overlaps(date, time(11, 30), time(12, 30), 2L));
+        assertTrue(availabilityIndex.overlaps(date, time(9, 30), time(12, 30), 2L)); // still hits slot 1
+    }
+
+    @Test
+    void add_andRemove_shouldKeepIndexCurrent() {
+        availabilityIndex.overlaps(date, time(0, 0), time(1, 0), null); // load
+
+        availabilityIndex.add(slot(4L, 12, 13));
+        assertTrue(availabilityIndex.overlaps(date, time(12, 30), time(13, 30), null));
+
+        availabilityIndex.remove(date, 4L);
+        assertFalse(availabilityIndex.overlaps(date, time(12, 30), time(13, 30), null));
+    }
+
+    @Test
+    void day_shouldLoadOnce() {
+        availabilityIndex.overlaps(date, time(9, 0), time(10, 0), null);
+        availabilityIndex.overlaps(date, time(13, 0), time(14, 0), null);
+
+        verify(availabilityRepository, times(1)).findByDate(date);
+        assertEquals(1, availabilityIndex.loadedDays());
+    }
+
+    @Test
+    void evictIdle_shouldKeepRecentlyUsedDays() {
+        availabilityIndex.overlaps(date, time(9, 0), time(10, 0), null);
+
+        availabilityIndex.evictIdle();
+
+        assertEquals(1, availabilityIndex.loadedDays());
+    }
+
+    @Test
+    void withDateLocks_shouldRunAction_forSameAndDifferentDates() {
+        assertEquals("same", availabilityIndex.withDateLocks(date, date, () -> "same"));
+        assertEquals("both", availabilityIndex.withDateLocks(date, date.plusDays(1), () -> "both"));
+    }
+
+    private Availability slot(Long id, int startHour, int endHour) {
+        Availability slot = new Availability();
+        slot.setSlotId(id);
+        slot.setDate(date);
+        slot.setStartTime(time(startHour, 0));
+        slot.setEndTime(time(endHour, 0));
+        return slot;
+    }
+
+    private LocalTime time(int hour, int minute) {
+        return LocalTime.of(hour, minute);
+    }
+}
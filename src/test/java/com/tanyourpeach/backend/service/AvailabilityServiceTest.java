@@ -1,20 +1,41 @@
 package com.tanyourpeach.backend.service;
 
+import com.tanyourpeach.backend.dto.AvailabilityDay;
+import com.tanyourpeach.backend.dto.AvailabilityTemplate;
+import com.tanyourpeach.backend.dto.CursorPage;
+import com.tanyourpeach.backend.dto.SlotEvent;
+import com.tanyourpeach.backend.dto.SlotFit;
 import com.tanyourpeach.backend.model.Availability;
+import com.tanyourpeach.backend.model.TanService;
 import com.tanyourpeach.backend.repository.AvailabilityRepository;
+import com.tanyourpeach.backend.repository.TanServiceRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 class AvailabilityServiceTest {
@@ -22,15 +43,42 @@ class AvailabilityServiceTest {
     @Mock
     private AvailabilityRepository availabilityRepository;
 
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private SlotEventBroadcaster slotEventBroadcaster;
+
+    @Mock
+    private TanServiceRepository tanServiceRepository;
+
     @InjectMocks
     private AvailabilityService availabilityService;
 
+    private AvailabilityIndex availabilityIndex;
+
+    private AvailabilityVersions availabilityVersions;
+
     private Availability availability;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
 
+        availabilityIndex = new AvailabilityIndex();
+        ReflectionTestUtils.setField(availabilityIndex, "availabilityRepository", availabilityRepository);
+        ReflectionTestUtils.setField(availabilityService, "availabilityIndex", availabilityIndex);
+
+        availabilityVersions = new AvailabilityVersions();
+        ReflectionTestUtils.setField(availabilityService, "availabilityVersions", availabilityVersions);
+
+        OpenSlotCache openSlotCache = new OpenSlotCache();
+        ReflectionTestUtils.setField(openSlotCache, "availabilityVersions", availabilityVersions);
+        ReflectionTestUtils.setField(availabilityService, "openSlotCache", openSlotCache);
+
+        // Run transactional callbacks inline
+        when(transactionTemplate.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
         availability = new Availability();
         availability.setSlotId(1L);
         availability.setDate(LocalDate.of(2025, 8, 1));
@@ -41,12 +89,45 @@ class AvailabilityServiceTest {
     }
 
     @Test
-    void getAllAvailabilities_shouldReturnAll() {
-        when(availabilityRepository.findAll()).thenReturn(List.of(availability));
+    void getAvailabilityPage_shouldDefaultToTheComingWeeks() {
+        LocalDate today = LocalDate.now();
+        LocalDate end = today.plusDays(AvailabilityService.DEFAULT_WINDOW_DAYS - 1);
+        when(availabilityRepository.findFirstPage(today, end, null, Limit.of(51))).thenReturn(List.of(availability));
 
-        List<Availability> result = availabilityService.getAllAvailabilities();
-        assertEquals(1, result.size());
-        verify(availabilityRepository).findAll();
+        CursorPage<Availability> page = availabilityService.getAvailabilityPage(null, null, null, null, 50).orElseThrow();
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+        verify(availabilityRepository, never()).findAll();
+    }
+
+    @Test
+    void getAvailabilityPage_shouldContinueFromCursor() {
+        LocalDate from = LocalDate.of(2030, 6, 1);
+        LocalDate to = LocalDate.of(2030, 6, 30);
+        Availability first = slot(from, 9, 10, 1L);
+        Availability second = slot(from, 10, 11, 2L);
+        Availability third = slot(from.plusDays(1), 9, 10, 3L);
+        when(availabilityRepository.findFirstPage(from, to, false, Limit.of(3))).thenReturn(List.of(first, second, third));
+
+        CursorPage<Availability> page = availabilityService.getAvailabilityPage(from, to, false, null, 2).orElseThrow();
+        assertEquals(List.of(first, second), page.getItems());
+        assertNotNull(page.getNextCursor());
+
+        when(availabilityRepository.findPageAfter(from, to, false, from, LocalTime.of(10, 0), 2L, Limit.of(3)))
+                .thenReturn(List.of(third));
+        CursorPage<Availability> next = availabilityService.getAvailabilityPage(from, to, false, page.getNextCursor(), 2).orElseThrow();
+        assertEquals(List.of(third), next.getItems());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void getAvailabilityPage_shouldReturnEmpty_whenRangeOrCursorInvalid() {
+        LocalDate from = LocalDate.of(2030, 6, 1);
+
+        assertTrue(availabilityService.getAvailabilityPage(from, from.minusDays(1), null, null, 50).isEmpty());
+        assertTrue(availabilityService.getAvailabilityPage(from, from, null, "not-a-cursor", 50).isEmpty());
+        verifyNoInteractions(availabilityRepository);
     }
 
     @Test
@@ -59,6 +140,31 @@ class AvailabilityServiceTest {
         assertFalse(result.get(0).getIsBooked());
     }
 
+    @Test
+    void getAvailableSlotsByDate_shouldServeRepeatReadsFromCache() {
+        when(availabilityRepository.findByIsBookedFalseAndDate(availability.getDate()))
+                .thenReturn(List.of(availability));
+
+        availabilityService.getAvailableSlotsByDate(availability.getDate());
+        availabilityService.getAvailableSlotsByDate(availability.getDate());
+
+        verify(availabilityRepository, times(1)).findByIsBookedFalseAndDate(availability.getDate());
+    }
+
+    @Test
+    void getAvailableSlotsByDate_shouldReload_afterSlotOnThatDateChanges() {
+        LocalDate date = LocalDate.now().plusDays(3);
+        when(availabilityRepository.findByIsBookedFalseAndDate(date)).thenReturn(List.of());
+        when(availabilityRepository.findByDate(date)).thenReturn(List.of());
+        when(availabilityRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        availabilityService.getAvailableSlotsByDate(date);
+        availabilityService.createAvailability(slot(date, 9, 10));
+        availabilityService.getAvailableSlotsByDate(date);
+
+        verify(availabilityRepository, times(2)).findByIsBookedFalseAndDate(date);
+    }
+
     @Test
     void createAvailability_shouldSaveAvailability() {
         when(availabilityRepository.save(any())).thenReturn(availability);
@@ -214,18 +320,336 @@ class AvailabilityServiceTest {
 
     @Test
     void deleteAvailability_shouldReturnTrueWhenExists() {
-        when(availabilityRepository.existsById(1L)).thenReturn(true);
+        when(availabilityRepository.findById(1L)).thenReturn(Optional.of(availability));
 
         boolean deleted = availabilityService.deleteAvailability(1L);
         assertTrue(deleted);
         verify(availabilityRepository).deleteById(1L);
     }
 
+    @Test
+    void deleteAvailability_shouldPublishDeletedEvent() {
+        when(availabilityRepository.findById(1L)).thenReturn(Optional.of(availability));
+
+        availabilityService.deleteAvailability(1L);
+        verify(slotEventBroadcaster).publish(SlotEvent.Type.DELETED, availability);
+    }
+
+    @Test
+    void createAvailability_shouldPublishCreatedEvent() {
+        availability.setDate(LocalDate.now().plusDays(3));
+        when(availabilityRepository.save(any())).thenReturn(availability);
+
+        availabilityService.createAvailability(availability);
+        verify(slotEventBroadcaster).publish(SlotEvent.Type.CREATED, availability);
+    }
+
+    @Test
+    void updateAvailability_shouldPublishDeletedAndCreated_whenSlotMoves() {
+        when(availabilityRepository.findById(1L)).thenReturn(Optional.of(availability));
+        when(availabilityRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        LocalDate newDate = LocalDate.now().plusDays(5);
+        availabilityService.updateAvailability(1L, slot(newDate, 12, 13));
+
+        verify(slotEventBroadcaster).publish(argThat((SlotEvent e) -> e.getType() == SlotEvent.Type.DELETED &&
+            e.getDate().equals(LocalDate.of(2025, 8, 1)) && e.getStartTime().equals(LocalTime.of(10, 0))));
+        verify(slotEventBroadcaster).publish(SlotEvent.Type.CREATED, availability);
+    }
+
+    @Test
+    void updateAvailability_shouldPublishBooked_whenOnlyBookingChanges() {
+        LocalDate date = LocalDate.now().plusDays(5);
+        availability.setDate(date);
+        when(availabilityRepository.findById(1L)).thenReturn(Optional.of(availability));
+        when(availabilityRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        Availability updated = slot(date, 10, 11);
+        updated.setIsBooked(true);
+        availabilityService.updateAvailability(1L, updated);
+
+        verify(slotEventBroadcaster).publish(SlotEvent.Type.BOOKED, availability);
+        verify(slotEventBroadcaster, never()).publish(any(SlotEvent.class));
+    }
+
     @Test
     void deleteAvailability_shouldReturnFalseIfNotExists() {
-        when(availabilityRepository.existsById(99L)).thenReturn(false);
+        when(availabilityRepository.findById(99L)).thenReturn(Optional.empty());
 
         boolean deleted = availabilityService.deleteAvailability(99L);
         assertFalse(deleted);
     }
+
+    @Test
+    void deleteAvailability_shouldFreeTheTimeInTheIndex() {
+        LocalDate date = LocalDate.now().plusDays(3);
+        availability.setDate(date);
+        when(availabilityRepository.findByDate(date)).thenReturn(List.of(availability));
+        when(availabilityRepository.findById(1L)).thenReturn(Optional.of(availability));
+        when(availabilityRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+        assertNull(availabilityService.createAvailability(slot(date, 10, 11))); // day is now indexed
+
+        assertTrue(availabilityService.deleteAvailability(1L));
+
+        assertNotNull(availabilityService.createAvailability(slot(date, 10, 11)));
+    }
+
+    @Test
+    void createAvailability_shouldAllowAdjacentSlots() {
+        LocalDate date = LocalDate.now().plusDays(3);
+        availability.setDate(date);
+        when(availabilityRepository.findByDate(date)).thenReturn(List.of(availability)); // 10:00-11:00
+        when(availabilityRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        assertNotNull(availabilityService.createAvailability(slot(date, 11, 12)));
+        assertNotNull(availabilityService.createAvailability(slot(date, 9, 10)));
+    }
+
+    @Test
+    void createAvailability_shouldRejectOverlap_withSlotCreatedEarlierInTheSameDay() {
+        LocalDate date = LocalDate.now().plusDays(3);
+        when(availabilityRepository.findByDate(date)).thenReturn(List.of());
+        when(availabilityRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        assertNotNull(availabilityService.createAvailability(slot(date, 9, 11)));
+        assertNull(availabilityService.createAvailability(slot(date, 10, 12)));
+
+        verify(availabilityRepository, times(1)).findByDate(date); // loaded once, then served from the index
+    }
+
+    @Test
+    void createAvailability_shouldSaveOnlyOne_whenOverlappingSlotsAreCreatedConcurrently() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(3);
+        AtomicLong ids = new AtomicLong();
+        when(availabilityRepository.findByDate(date)).thenReturn(List.of());
+        when(availabilityRepository.save(any())).thenAnswer(i -> {
+            Availability saved = i.getArgument(0);
+            saved.setSlotId(ids.incrementAndGet());
+            Thread.sleep(5); // widen the race window
+            return saved;
+        });
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Availability>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return availabilityService.createAvailability(slot(date, 10, 11));
+            }));
+        }
+        start.countDown();
+
+        int created = 0;
+        for (Future<Availability> result : results) {
+            if (result.get() != null) created++;
+        }
+        executor.shutdown();
+
+        assertEquals(1, created);
+        verify(availabilityRepository, times(1)).save(any());
+    }
+
+    @Test
+    void generateFromTemplate_shouldExpandWeeklyTemplate() {
+        LocalDate monday = LocalDate.now().plusWeeks(1).with(DayOfWeek.MONDAY);
+        AvailabilityTemplate template = template(monday, monday.plusDays(13),
+                EnumSet.range(DayOfWeek.TUESDAY, DayOfWeek.SATURDAY), 9, 17, 60);
+        when(availabilityRepository.findByDateBetween(any(), any())).thenReturn(List.of());
+        when(availabilityRepository.saveAll(any())).thenAnswer(i -> i.getArgument(0));
+
+        List<Availability> created = availabilityService.generateFromTemplate(template);
+
+        assertEquals(2 * 5 * 8, created.size()); // two weeks, five days, eight hourly slots
+        assertEquals(monday.plusDays(1), created.get(0).getDate());
+        assertEquals(LocalTime.of(9, 0), created.get(0).getStartTime());
+        assertEquals(LocalTime.of(17, 0), created.get(7).getEndTime());
+        assertTrue(created.stream().noneMatch(slot -> slot.getDate().getDayOfWeek() == DayOfWeek.SUNDAY));
+        verify(availabilityRepository, times(1)).findByDateBetween(monday.plusDays(1), monday.plusDays(12));
+        verify(availabilityRepository, times(1)).saveAll(any());
+        verify(availabilityRepository, never()).findByDate(any());
+        verify(availabilityRepository, never()).save(any());
+    }
+
+    @Test
+    void generateFromTemplate_shouldSkipSlotsOverlappingExistingOnes() {
+        LocalDate date = LocalDate.now().plusDays(3);
+        availability.setDate(date); // 10:00-11:00
+        when(availabilityRepository.findByDateBetween(date, date)).thenReturn(List.of(availability));
+        when(availabilityRepository.saveAll(any())).thenAnswer(i -> i.getArgument(0));
+
+        List<Availability> created = availabilityService.generateFromTemplate(
+                template(date, date, EnumSet.of(date.getDayOfWeek()), 9, 12, 30));
+
+        assertEquals(4, created.size()); // 9:00, 9:30, 11:00, 11:30
+        assertTrue(created.stream().noneMatch(slot -> slot.getStartTime().getHour() == 10));
+    }
+
+    @Test
+    void generateFromTemplate_shouldBlockLaterOverlappingCreates() {
+        LocalDate date = LocalDate.now().plusDays(3);
+        when(availabilityRepository.findByDateBetween(date, date)).thenReturn(List.of());
+        when(availabilityRepository.saveAll(any())).thenAnswer(i -> i.getArgument(0));
+
+        availabilityService.generateFromTemplate(template(date, date, EnumSet.of(date.getDayOfWeek()), 9, 12, 60));
+
+        assertNull(availabilityService.createAvailability(slot(date, 10, 11)));
+        verify(availabilityRepository, never()).findByDate(any()); // already indexed by the preload
+    }
+
+    @Test
+    void generateFromTemplate_shouldReturnNull_whenTemplateInvalid() {
+        LocalDate date = LocalDate.now().plusDays(3);
+        Set<DayOfWeek> all = EnumSet.allOf(DayOfWeek.class);
+
+        assertNull(availabilityService.generateFromTemplate(template(LocalDate.now().minusDays(1), date, all, 9, 17, 60)));
+        assertNull(availabilityService.generateFromTemplate(template(date, date.minusDays(1), all, 9, 17, 60)));
+        assertNull(availabilityService.generateFromTemplate(template(date, date.plusYears(2), all, 9, 17, 60)));
+        assertNull(availabilityService.generateFromTemplate(template(date, date, all, 17, 9, 60)));
+        verifyNoInteractions(availabilityRepository);
+    }
+
+    @Test
+    void generateFromTemplate_shouldReturnEmpty_whenNothingMatches() {
+        LocalDate date = LocalDate.now().plusDays(3);
+
+        List<Availability> created = availabilityService.generateFromTemplate(
+                template(date, date, EnumSet.of(date.getDayOfWeek().plus(1)), 9, 17, 60));
+
+        assertTrue(created.isEmpty());
+        verify(availabilityRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void getCalendar_shouldSummarizeFreeSlotsPerDay_inOneQuery() {
+        LocalDate from = LocalDate.of(2030, 6, 1);
+        LocalDate to = LocalDate.of(2030, 6, 30);
+        Availability first = slot(from, 9, 10);
+        Availability second = slot(from, 13, 14);
+        Availability third = slot(from.plusDays(2), 11, 12);
+        when(availabilityRepository.findByIsBookedFalseAndDateBetweenOrderByDateAscStartTimeAsc(from, to))
+                .thenReturn(List.of(first, second, third));
+
+        List<AvailabilityDay> days = availabilityService.getCalendar(from, to);
+
+        assertEquals(2, days.size());
+        assertEquals(from, days.get(0).getDate());
+        assertEquals(2, days.get(0).getFreeSlots());
+        assertEquals(List.of("09:00", "13:00"), days.get(0).getStartTimes());
+        assertEquals(List.of("11:00"), days.get(1).getStartTimes());
+        verify(availabilityRepository, times(1)).findByIsBookedFalseAndDateBetweenOrderByDateAscStartTimeAsc(from, to);
+    }
+
+    @Test
+    void getCalendar_shouldReturnNull_whenRangeInvalid() {
+        LocalDate from = LocalDate.of(2030, 6, 1);
+
+        assertNull(availabilityService.getCalendar(from, from.minusDays(1)));
+        assertNull(availabilityService.getCalendar(from, from.plusDays(AvailabilityService.MAX_CALENDAR_DAYS)));
+        assertNull(availabilityService.getCalendarETag(from, from.minusDays(1)));
+        verifyNoInteractions(availabilityRepository);
+    }
+
+    @Test
+    void getCalendarETag_shouldChange_onlyWhenASlotInRangeChanges() {
+        LocalDate date = LocalDate.now().plusDays(3);
+        when(availabilityRepository.findByDate(any())).thenReturn(List.of());
+        when(availabilityRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        String before = availabilityService.getCalendarETag(date, date.plusDays(6));
+        assertEquals(before, availabilityService.getCalendarETag(date, date.plusDays(6)));
+
+        availabilityService.createAvailability(slot(date.plusDays(10), 9, 10)); // outside the range
+        assertEquals(before, availabilityService.getCalendarETag(date, date.plusDays(6)));
+
+        availabilityService.createAvailability(slot(date.plusDays(2), 9, 10));
+        assertNotEquals(before, availabilityService.getCalendarETag(date, date.plusDays(6)));
+    }
+
+    private AvailabilityTemplate template(LocalDate from, LocalDate to, Set<DayOfWeek> days, int startHour, int endHour, int slotMinutes) {
+        AvailabilityTemplate template = new AvailabilityTemplate();
+        template.setFromDate(from);
+        template.setToDate(to);
+        template.setDaysOfWeek(days);
+        template.setStartTime(LocalTime.of(startHour, 0));
+        template.setEndTime(LocalTime.of(endHour, 0));
+        template.setSlotMinutes(slotMinutes);
+        return template;
+    }
+
+    @Test
+    void findNextFits_shouldOnlyReturnStartsWithEnoughContiguousTime() {
+        LocalDate from = LocalDate.of(2030, 6, 1);
+        LocalDate to = from.plusDays(6);
+        when(tanServiceRepository.findById(1L)).thenReturn(Optional.of(service(90)));
+        when(availabilityRepository.findByIsBookedFalseAndDateBetweenOrderByDateAscStartTimeAsc(from, to)).thenReturn(List.of(
+            slot(from, 9, 10, 1L),                 // alone: too short
+            slot(from, 11, 12, 2L),                // 11-13 is contiguous: fits at 11 only
+            slot(from, 12, 13, 3L),
+            slot(from.plusDays(1), 9, 10, 4L),     // 9-12 contiguous: fits at 9 and 10
+            slot(from.plusDays(1), 10, 11, 5L),
+            slot(from.plusDays(1), 11, 12, 6L)));
+
+        List<SlotFit> fits = availabilityService.findNextFits(1L, from, to, 5);
+
+        assertEquals(3, fits.size());
+        assertEquals(LocalTime.of(11, 0), fits.get(0).getStartTime());
+        assertEquals(LocalTime.of(12, 30), fits.get(0).getEndTime());
+        assertEquals(List.of(2L, 3L), fits.get(0).getSlotIds());
+        assertEquals(List.of(4L, 5L), fits.get(1).getSlotIds());
+        assertEquals(List.of(5L, 6L), fits.get(2).getSlotIds());
+    }
+
+    @Test
+    void findNextFits_shouldNotJoinSlotsAcrossDays_andStopAtLimit() {
+        LocalDate from = LocalDate.of(2030, 6, 1);
+        LocalDate to = from.plusDays(6);
+        when(tanServiceRepository.findById(1L)).thenReturn(Optional.of(service(60)));
+        when(availabilityRepository.findByIsBookedFalseAndDateBetweenOrderByDateAscStartTimeAsc(from, to)).thenReturn(List.of(
+            slot(from, 9, 10, 2L), slot(from, 10, 11, 3L), slot(from.plusDays(1), 9, 10, 4L)));
+
+        List<SlotFit> fits = availabilityService.findNextFits(1L, from, to, 2);
+
+        assertEquals(2, fits.size());
+        assertEquals(List.of(2L), fits.get(0).getSlotIds());
+        assertEquals(List.of(3L), fits.get(1).getSlotIds());
+    }
+
+    @Test
+    void findNextFits_shouldReturnNull_whenServiceOrSearchInvalid() {
+        LocalDate from = LocalDate.of(2030, 6, 1);
+        TanService noDuration = service(60);
+        noDuration.setDurationMinutes(null);
+        when(tanServiceRepository.findById(1L)).thenReturn(Optional.of(noDuration));
+        when(tanServiceRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertNull(availabilityService.findNextFits(1L, from, from.plusDays(6), 5));
+        assertNull(availabilityService.findNextFits(2L, from, from.plusDays(6), 5));
+        assertNull(availabilityService.findNextFits(1L, from, from.plusDays(AvailabilityService.MAX_CALENDAR_DAYS), 5));
+        assertNull(availabilityService.findNextFits(1L, from, from.plusDays(6), AvailabilityService.MAX_FIT_RESULTS + 1));
+        verifyNoInteractions(availabilityRepository);
+    }
+
+    private TanService service(int durationMinutes) {
+        TanService service = new TanService();
+        service.setServiceId(1L);
+        service.setDurationMinutes(durationMinutes);
+        service.setIsActive(true);
+        return service;
+    }
+
+    private Availability slot(LocalDate date, int startHour, int endHour, Long slotId) {
+        Availability slot = slot(date, startHour, endHour);
+        slot.setSlotId(slotId);
+        return slot;
+    }
+
+    private Availability slot(LocalDate date, int startHour, int endHour) {
+        Availability slot = new Availability();
+        slot.setDate(date);
+        slot.setStartTime(LocalTime.of(startHour, 0));
+        slot.setEndTime(LocalTime.of(endHour, 0));
+        return slot;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.tanyourpeach.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvailabilityVersionsTest {
+
+    private final AvailabilityVersions availabilityVersions = new AvailabilityVersions();
+
+    private final LocalDate date = LocalDate.of(2030, 6, 10);
+
+    @Test
+    void bump_shouldIncrementOnlyThatDate() {
+        assertEquals(0, availabilityVersions.current(date));
+
+        availabilityVersions.bump(date);
+        availabilityVersions.bump(date);
+
+        assertEquals(2, availabilityVersions.current(date));
+        assertEquals(0, availabilityVersions.current(date.plusDays(1)));
+    }
+
+    @Test
+    void bump_shouldIgnoreNullDate() {
+        assertDoesNotThrow(() -> availabilityVersions.bump(null));
+    }
+
+    @Test
+    void rangeTag_shouldChange_whenDateInRangeIsBumped() {
+        String before = availabilityVersions.rangeTag(date.minusDays(3), date.plusDays(3));
+
+        availabilityVersions.bump(date.plusDays(10));
+        assertEquals(before, availabilityVersions.rangeTag(date.minusDays(3), date.plusDays(3)));
+
+        availabilityVersions.bump(date);
+        assertNotEquals(before, availabilityVersions.rangeTag(date.minusDays(3), date.plusDays(3)));
+    }
+
+    @Test
+    void rangeTag_shouldDifferPerRange() {
+        assertNotEquals(availabilityVersions.rangeTag(date, date.plusDays(6)),
+                availabilityVersions.rangeTag(date, date.plusDays(7)));
+    }
+
+    @Test
+    void rangeTag_shouldDifferBetweenInstances() throws InterruptedException {
+        Thread.sleep(2);
+        assertNotEquals(availabilityVersions.rangeTag(date, date),
+                new AvailabilityVersions().rangeTag(date, date));
+    }
+}
@@ -0,0 +1,117 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.BillOfMaterials;
+import com.tanyourpeach.backend.repository.ServiceInventoryUsageRepository;
+import com.tanyourpeach.backend.repository.ServiceInventoryUsageRepository.UsageLink;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BillOfMaterialsCacheTest {
+
+    @Mock
+    private ServiceInventoryUsageRepository usageRepository;
+
+    @InjectMocks
+    private BillOfMaterialsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(usageRepository.findAllLinks()).thenReturn(List.of(link(1L, 10L, 2), link(1L, 30L, 1), link(2L, 20L, 5)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void get_shouldLoadEveryBomOnce() {
+        BillOfMaterials bom = cache.get(1L);
+
+        assertArrayEquals(new long[] {10L, 30L}, bom.getItemIds());
+        assertArrayEquals(new int[] {2, 1}, bom.getQuantities());
+        assertEquals(5, cache.get(2L).quantityOf(20L));
+        assertEquals(2, cache.getAll().size());
+        verify(usageRepository, times(1)).findAllLinks();
+    }
+
+    @Test
+    void get_shouldReturnEmptyBom_forServiceWithoutInventory() {
+        BillOfMaterials bom = cache.get(99L);
+
+        assertTrue(bom.isEmpty());
+        assertEquals(99L, bom.getServiceId());
+    }
+
+    @Test
+    void put_shouldInsertInItemOrder_andReplaceQuantities() {
+        cache.get(1L);
+
+        cache.put(1L, 20L, 4);
+        cache.put(1L, 30L, 3);
+
+        assertArrayEquals(new long[] {10L, 20L, 30L}, cache.get(1L).getItemIds());
+        assertArrayEquals(new int[] {2, 4, 3}, cache.get(1L).getQuantities());
+    }
+
+    @Test
+    void remove_shouldDropItem_andForgetServiceWithNothingLeft() {
+        cache.get(1L);
+
+        cache.remove(2L, 20L);
+        cache.remove(1L, 10L);
+
+        assertArrayEquals(new long[] {30L}, cache.get(1L).getItemIds());
+        assertFalse(cache.getAll().containsKey(2L));
+    }
+
+    @Test
+    void put_shouldWaitForCommit_insideTransaction() {
+        BillOfMaterials before = cache.get(2L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.put(2L, 20L, 8);
+        assertSame(before, cache.get(2L));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(8, cache.get(2L).quantityOf(20L));
+        assertEquals(5, before.quantityOf(20L)); // readers holding the old BOM never see it change
+    }
+
+    @Test
+    void put_shouldBeLeftToFirstLoad_whenNotLoadedYet() {
+        cache.put(1L, 20L, 4);
+        verifyNoInteractions(usageRepository);
+
+        assertEquals(0, cache.get(1L).quantityOf(20L)); // the table is the source of truth once loaded
+    }
+
+    @Test
+    void getItemIds_shouldReturnCopy() {
+        cache.get(1L).getItemIds()[0] = 99L;
+
+        assertEquals(10L, cache.get(1L).itemIdAt(0));
+    }
+
+    private UsageLink link(Long serviceId, Long itemId, int quantityUsed) {
+        return new UsageLink() {
+            public Long getServiceId() { return serviceId; }
+            public Long getItemId() { return itemId; }
+            public Integer getQuantityUsed() { return quantityUsed; }
+        };
+    }
+}
@@ -22,6 +22,9 @@ class FinancialLogServiceTest {
     @Mock
     private FinancialLogRepository financialLogRepository;
 
+    @Mock
+    private FinancialTotalsService financialTotalsService;
+
     @InjectMocks
     private FinancialLogService financialLogService;
 
@@ -217,16 +220,47 @@ class FinancialLogServiceTest {
 
     @Test
     void deleteLog_shouldDelete_whenExists() {
-        when(financialLogRepository.existsById(1L)).thenReturn(true);
+        when(financialLogRepository.findById(1L)).thenReturn(Optional.of(log));
         boolean deleted = financialLogService.deleteLog(1L);
         assertTrue(deleted);
         verify(financialLogRepository).deleteById(1L);
+        verify(financialTotalsService).reverseLog(log);
     }
 
     @Test
     void deleteLog_shouldReturnFalse_whenNotFound() {
-        when(financialLogRepository.existsById(99L)).thenReturn(false);
+        when(financialLogRepository.findById(99L)).thenReturn(Optional.empty());
         boolean deleted = financialLogService.deleteLog(99L);
         assertFalse(deleted);
+        verifyNoInteractions(financialTotalsService);
+    }
+
+    @Test
+    void createLog_shouldRecordInTotals() {
+        when(financialLogRepository.save(log)).thenReturn(log);
+        financialLogService.createLog(log);
+        verify(financialTotalsService).recordLog(log);
+    }
+
+    @Test
+    void createLog_shouldNotTouchTotals_whenInvalid() {
+        log.setAmount(BigDecimal.valueOf(-1));
+        financialLogService.createLog(log);
+        verifyNoInteractions(financialTotalsService);
+    }
+
+    @Test
+    void updateLog_shouldMoveAmountBetweenTotals() {
+        FinancialLog updated = new FinancialLog();
+        updated.setType(FinancialLog.Type.expense);
+        updated.setAmount(BigDecimal.valueOf(80.0));
+
+        when(financialLogRepository.findById(1L)).thenReturn(Optional.of(log));
+        when(financialLogRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        financialLogService.updateLog(1L, updated);
+
+        verify(financialTotalsService).adjust(FinancialLog.Type.revenue, null, BigDecimal.valueOf(50.0).negate());
+        verify(financialTotalsService).adjust(FinancialLog.Type.expense, null, BigDecimal.valueOf(80.0));
     }
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.FinancialTotalDrift;
+import com.tanyourpeach.backend.model.FinancialLog;
+import com.tanyourpeach.backend.model.FinancialTotal;
+import com.tanyourpeach.backend.model.FinancialTotalKey;
+import com.tanyourpeach.backend.repository.FinancialLogRepository;
+import com.tanyourpeach.backend.repository.FinancialLogRepository.MonthlyTypeTotal;
+import com.tanyourpeach.backend.repository.FinancialTotalRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class FinancialTotalsServiceTest {
+
+    @Mock
+    private FinancialTotalRepository financialTotalRepository;
+
+    @Mock
+    private FinancialLogRepository financialLogRepository;
+
+    @InjectMocks
+    private FinancialTotalsService financialTotalsService;
+
+    private final YearMonth march = YearMonth.of(2025, 3);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void getTotal_shouldLoadTableOnce_thenServeFromMemory() {
+        when(financialTotalRepository.findAll()).thenReturn(List.of(
+                total(FinancialTotalKey.ALL_TIME, FinancialLog.Type.revenue, 500),
+                total("2025-03", FinancialLog.Type.expense, 40)));
+
+        assertEquals(BigDecimal.valueOf(500), financialTotalsService.getTotal(FinancialLog.Type.revenue));
+        assertEquals(BigDecimal.ZERO, financialTotalsService.getTotal(FinancialLog.Type.expense));
+        assertEquals(BigDecimal.valueOf(40), financialTotalsService.getMonthTotal(march, FinancialLog.Type.expense));
+
+        verify(financialTotalRepository, times(1)).findAll();
+    }
+
+    @Test
+    void recordLog_shouldUpdateTableAndMirror() {
+        when(financialTotalRepository.findAll()).thenReturn(List.of());
+        financialTotalsService.getTotal(FinancialLog.Type.revenue); // load the mirror
+        when(financialTotalRepository.findAmount(FinancialTotalKey.ALL_TIME, FinancialLog.Type.revenue)).thenReturn(BigDecimal.valueOf(75));
+        when(financialTotalRepository.findAmount("2025-03", FinancialLog.Type.revenue)).thenReturn(BigDecimal.valueOf(75));
+
+        financialTotalsService.recordLog(log(FinancialLog.Type.revenue, march.atDay(10).atStartOfDay(), 75));
+
+        verify(financialTotalRepository).addToTotal(FinancialTotalKey.ALL_TIME, "revenue", BigDecimal.valueOf(75));
+        verify(financialTotalRepository).addToTotal("2025-03", "revenue", BigDecimal.valueOf(75));
+        assertEquals(BigDecimal.valueOf(75), financialTotalsService.getTotal(FinancialLog.Type.revenue));
+        assertEquals(BigDecimal.valueOf(75), financialTotalsService.getMonthTotal(march, FinancialLog.Type.revenue));
+    }
+
+    @Test
+    void recordLog_shouldUseCurrentMonth_whenLogDateNotSetYet() {
+        financialTotalsService.recordLog(log(FinancialLog.Type.expense, null, 20));
+
+        verify(financialTotalRepository).addToTotal(YearMonth.now().toString(), "expense", BigDecimal.valueOf(20));
+    }
+
+    @Test
+    void reverseLog_shouldSubtractAmount() {
+        when(financialTotalRepository.findAll()).thenReturn(List.of(
+                total(FinancialTotalKey.ALL_TIME, FinancialLog.Type.expense, 100)));
+        financialTotalsService.getTotal(FinancialLog.Type.expense);
+        when(financialTotalRepository.findAmount(FinancialTotalKey.ALL_TIME, FinancialLog.Type.expense)).thenReturn(BigDecimal.valueOf(70));
+
+        financialTotalsService.reverseLog(log(FinancialLog.Type.expense, march.atDay(1).atStartOfDay(), 30));
+
+        verify(financialTotalRepository).addToTotal(FinancialTotalKey.ALL_TIME, "expense", BigDecimal.valueOf(-30));
+        assertEquals(BigDecimal.valueOf(70), financialTotalsService.getTotal(FinancialLog.Type.expense));
+    }
+
+    @Test
+    void recordLog_shouldNotCountTwice_whenMirrorLoadsBeforeAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        financialTotalsService.recordLog(log(FinancialLog.Type.revenue, march.atDay(10).atStartOfDay(), 75));
+
+        // Another thread loads the mirror after the commit but before this writer's callback runs
+        when(financialTotalRepository.findAll()).thenReturn(List.of(total(FinancialTotalKey.ALL_TIME, FinancialLog.Type.revenue, 75)));
+        financialTotalsService.getTotal(FinancialLog.Type.revenue);
+        when(financialTotalRepository.findAmount(FinancialTotalKey.ALL_TIME, FinancialLog.Type.revenue)).thenReturn(BigDecimal.valueOf(75));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(BigDecimal.valueOf(75), financialTotalsService.getTotal(FinancialLog.Type.revenue));
+    }
+
+    @Test
+    void adjust_shouldIgnoreZeroDelta() {
+        financialTotalsService.adjust(FinancialLog.Type.revenue, null, BigDecimal.ZERO);
+
+        verify(financialTotalRepository, never()).addToTotal(anyString(), anyString(), any());
+    }
+
+    @Test
+    void verify_shouldReportDrift_withoutChangingAnything() {
+        when(financialTotalRepository.findAll()).thenReturn(List.of(
+                total(FinancialTotalKey.ALL_TIME, FinancialLog.Type.revenue, 90),
+                total("2025-03", FinancialLog.Type.revenue, 100)));
+        when(financialLogRepository.sumAllByMonthAndType()).thenReturn(List.of(
+                row(march, FinancialLog.Type.revenue, 100)));
+
+        List<FinancialTotalDrift> drift = financialTotalsService.verify();
+
+        assertEquals(1, drift.size());
+        assertEquals(FinancialTotalKey.ALL_TIME, drift.get(0).getPeriod());
+        assertEquals(BigDecimal.valueOf(90), drift.get(0).getStored());
+        assertEquals(BigDecimal.valueOf(100), drift.get(0).getActual());
+        verify(financialTotalRepository, never()).deleteAllInBatch();
+        verify(financialTotalRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void verify_shouldReportNothing_whenInSync() {
+        when(financialTotalRepository.findAll()).thenReturn(List.of(
+                total(FinancialTotalKey.ALL_TIME, FinancialLog.Type.expense, 60),
+                total("2025-03", FinancialLog.Type.expense, 60)));
+        when(financialLogRepository.sumAllByMonthAndType()).thenReturn(List.of(
+                row(march, FinancialLog.Type.expense, 60)));
+
+        assertTrue(financialTotalsService.verify().isEmpty());
+    }
+
+    @Test
+    void rebuild_shouldRewriteTableAndMirror() {
+        when(financialTotalRepository.findAll()).thenReturn(List.of());
+        when(financialLogRepository.sumAllByMonthAndType()).thenReturn(List.of(
+                row(march, FinancialLog.Type.revenue, 100),
+                row(march.plusMonths(1), FinancialLog.Type.revenue, 50)));
+
+        List<FinancialTotalDrift> drift = financialTotalsService.rebuild();
+
+        assertEquals(3, drift.size()); // ALL plus two months were missing
+        InOrder order = inOrder(financialTotalRepository, financialLogRepository);
+        order.verify(financialTotalRepository).lockAll(); // before the log is read, so no concurrent delta is lost
+        order.verify(financialLogRepository).sumAllByMonthAndType();
+        order.verify(financialTotalRepository).deleteAllInBatch();
+        verify(financialTotalRepository).saveAll(argThat(rows -> ((List<?>) rows).size() == 3));
+        assertEquals(BigDecimal.valueOf(150), financialTotalsService.getTotal(FinancialLog.Type.revenue));
+        assertEquals(BigDecimal.valueOf(50), financialTotalsService.getMonthTotal(march.plusMonths(1), FinancialLog.Type.revenue));
+    }
+
+    private FinancialTotal total(String period, FinancialLog.Type type, long amount) {
+        return new FinancialTotal(new FinancialTotalKey(period, type), BigDecimal.valueOf(amount));
+    }
+
+    private FinancialLog log(FinancialLog.Type type, LocalDateTime logDate, long amount) {
+        FinancialLog log = mock(FinancialLog.class);
+        when(log.getType()).thenReturn(type);
+        when(log.getLogDate()).thenReturn(logDate);
+        when(log.getAmount()).thenReturn(BigDecimal.valueOf(amount));
+        return log;
+    }
+
+    private MonthlyTypeTotal row(YearMonth month, FinancialLog.Type type, long amount) {
+        return new MonthlyTypeTotal() {
+            public Integer getLogYear() { return month.getYear(); }
+            public Integer getLogMonth() { return month.getMonthValue(); }
+            public FinancialLog.Type getType() { return type; }
+            public BigDecimal getTotal() { return BigDecimal.valueOf(amount); }
+        };
+    }
+}
@@ -0,0 +1,121 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.model.Inventory;
+import com.tanyourpeach.backend.repository.InventoryRepository;
+import com.tanyourpeach.backend.util.TestDataCleaner;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class InventoryConcurrencyIntegrationTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private TestDataCleaner testDataCleaner;
+
+    @BeforeEach
+    void setup() {
+        testDataCleaner.cleanAll();
+    }
+
+    @Test
+    void concurrentDeductions_shouldNeverLoseUpdates_orGoNegative() throws Exception {
+        int stock = 100;
+        Inventory item = saveItem(stock);
+
+        // 4x more single-unit deductions than there is stock
+        AtomicInteger successes = new AtomicInteger();
+        AtomicInteger refusals = new AtomicInteger();
+        runConcurrently(stock * 4, i -> {
+            if (inventoryService.deductQuantity(item.getItemId(), 1)) {
+                successes.incrementAndGet();
+            } else {
+                refusals.incrementAndGet();
+            }
+        });
+
+        assertEquals(stock, successes.get());
+        assertEquals(stock * 3, refusals.get());
+        assertEquals(0, inventoryRepository.findById(item.getItemId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void concurrentReceiptsAndDeductions_shouldAllBeCounted() throws Exception {
+        int start = 500;
+        Inventory item = saveItem(start);
+        int receipts = 200;
+        int deductions = 200;
+
+        // Even attempts add 2 units at 1.25 each, odd attempts take 1 unit
+        AtomicInteger deducted = new AtomicInteger();
+        runConcurrently(receipts + deductions, i -> {
+            if (i % 2 == 0) {
+                assertTrue(inventoryService.addQuantityAndCost(item.getItemId(), 2, new BigDecimal("1.25")));
+            } else if (inventoryService.deductQuantity(item.getItemId(), 1)) {
+                deducted.incrementAndGet();
+            }
+        });
+
+        Inventory reloaded = inventoryRepository.findById(item.getItemId()).orElseThrow();
+        assertEquals(deductions, deducted.get()); // stock never ran short
+        assertEquals(start + receipts * 2 - deductions, reloaded.getQuantity());
+        assertEquals(0, new BigDecimal("500.00").compareTo(reloaded.getTotalSpent())); // 200 receipts * 2 * 1.25
+    }
+
+    private Inventory saveItem(int quantity) {
+        Inventory item = new Inventory();
+        item.setItemName("Race Solution");
+        item.setQuantity(quantity);
+        item.setUnitCost(new BigDecimal("1.25"));
+        item.setTotalSpent(BigDecimal.ZERO);
+        return inventoryRepository.save(item);
+    }
+
+    private interface Attempt {
+        void run(int index) throws Exception;
+    }
+
+    // Release all attempts at once from a fixed pool and wait for every one to finish
+    private void runConcurrently(int attempts, Attempt attempt) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            final int index = i;
+            Callable<Void> task = () -> {
+                start.await();
+                attempt.run(index);
+                return null;
+            };
+            futures.add(pool.submit(task));
+        }
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+}
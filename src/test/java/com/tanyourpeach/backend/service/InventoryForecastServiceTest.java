@@ -0,0 +1,157 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.BillOfMaterials;
+import com.tanyourpeach.backend.dto.DailyUsage;
+import com.tanyourpeach.backend.dto.ItemForecast;
+import com.tanyourpeach.backend.model.Appointment;
+import com.tanyourpeach.backend.model.Inventory;
+import com.tanyourpeach.backend.repository.AppointmentRepository;
+import com.tanyourpeach.backend.repository.AppointmentRepository.DailyServiceBookings;
+import com.tanyourpeach.backend.repository.InventoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class InventoryForecastServiceTest {
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private BillOfMaterialsCache billOfMaterialsCache;
+
+    @InjectMocks
+    private InventoryForecastService forecastService;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(inventoryRepository.findAll()).thenReturn(List.of(item(1L, "Gloves", 5), item(2L, "Towels", 20), item(3L, "Caps", 1)));
+        // Service 10 uses 3 gloves, service 20 one towel, service 30 two gloves
+        when(billOfMaterialsCache.get(10L)).thenReturn(new BillOfMaterials(10L, new long[] {1L}, new int[] {3}));
+        when(billOfMaterialsCache.get(20L)).thenReturn(new BillOfMaterials(20L, new long[] {2L}, new int[] {1}));
+        when(billOfMaterialsCache.get(30L)).thenReturn(new BillOfMaterials(30L, new long[] {1L}, new int[] {2}));
+        when(appointmentRepository.countBookingsByDay(any(), any(), any())).thenReturn(List.of(
+                bookings(10L, 1, Appointment.Status.PENDING, 1),
+                bookings(30L, 1, Appointment.Status.CONFIRMED, 2),
+                bookings(10L, 4, Appointment.Status.PENDING, 1),
+                bookings(20L, 2, Appointment.Status.PENDING, 2)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void getForecast_shouldProjectStockOut_fromPendingDemandOnly() {
+        List<ItemForecast> forecast = forecastService.getForecast(30);
+
+        ItemForecast gloves = forecast.get(0); // runs out first
+        assertEquals(1L, gloves.getItemId());
+        assertEquals(6, gloves.getPendingDemand());
+        assertEquals(today.plusDays(4), gloves.getStockOutDate());
+
+        List<DailyUsage> days = gloves.getDays();
+        assertEquals(2, days.size());
+        assertEquals(today.plusDays(1), days.get(0).getDate());
+        assertEquals(3, days.get(0).getPending());
+        assertEquals(4, days.get(0).getConfirmed()); // already deducted, reported only
+        assertEquals(2, days.get(0).getProjectedQuantity());
+        assertEquals(-1, days.get(1).getProjectedQuantity());
+    }
+
+    @Test
+    void getForecast_shouldListItemsThatLastAfterThoseThatRunOut() {
+        List<ItemForecast> forecast = forecastService.getForecast(30);
+
+        assertEquals(List.of(1L, 3L, 2L), forecast.stream().map(ItemForecast::getItemId).toList()); // no stock-out, by name
+        assertNull(forecast.get(1).getStockOutDate());
+        assertTrue(forecast.get(1).getDays().isEmpty());
+    }
+
+    @Test
+    void getForecast_shouldIgnoreBookingsBeyondHorizon() {
+        ItemForecast gloves = forecastService.getForecast(3).get(1); // day 4 is outside a 3-day window
+
+        assertEquals(1L, gloves.getItemId());
+        assertNull(gloves.getStockOutDate());
+        assertEquals(3, gloves.getPendingDemand());
+    }
+
+    @Test
+    void getForecast_shouldReuseCachedDemand_untilInvalidated() {
+        forecastService.getForecast(30);
+        forecastService.getForecast(60);
+        verify(appointmentRepository, times(1)).countBookingsByDay(any(), any(), any());
+
+        forecastService.invalidate();
+        forecastService.getForecast(30);
+        verify(appointmentRepository, times(2)).countBookingsByDay(any(), any(), any());
+        verify(inventoryRepository, times(3)).findAll(); // stock on hand is always read fresh
+    }
+
+    @Test
+    void getForecast_shouldUseCurrentBom_withoutReloadingBookings() {
+        forecastService.getForecast(30);
+        when(billOfMaterialsCache.get(20L)).thenReturn(new BillOfMaterials(20L, new long[] {2L}, new int[] {15}));
+
+        ItemForecast towels = forecastService.getForecast(30).get(0); // 20 towels, 30 booked for day 2, so they run out first
+
+        assertEquals(2L, towels.getItemId());
+        assertEquals(30, towels.getPendingDemand());
+        assertEquals(today.plusDays(2), towels.getStockOutDate());
+        verify(appointmentRepository, times(1)).countBookingsByDay(any(), any(), any());
+    }
+
+    @Test
+    void invalidate_shouldWaitForCommit_insideTransaction() {
+        forecastService.getForecast(30);
+
+        TransactionSynchronizationManager.initSynchronization();
+        forecastService.invalidate();
+        forecastService.getForecast(30);
+        verify(appointmentRepository, times(1)).countBookingsByDay(any(), any(), any());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        forecastService.getForecast(30);
+        verify(appointmentRepository, times(2)).countBookingsByDay(any(), any(), any());
+    }
+
+    private Inventory item(Long id, String name, int quantity) {
+        Inventory item = new Inventory();
+        item.setItemId(id);
+        item.setItemName(name);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private DailyServiceBookings bookings(Long serviceId, int daysAhead, Appointment.Status status, long count) {
+        LocalDate day = today.plusDays(daysAhead);
+        return new DailyServiceBookings() {
+            public Long getServiceId() { return serviceId; }
+            public LocalDate getDay() { return day; }
+            public Appointment.Status getStatus() { return status; }
+            public Long getBookings() { return count; }
+        };
+    }
+}
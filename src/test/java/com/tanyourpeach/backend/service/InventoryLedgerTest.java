@@ -0,0 +1,170 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.StockLevel;
+import com.tanyourpeach.backend.model.InventoryMovement;
+import com.tanyourpeach.backend.model.InventorySnapshot;
+import com.tanyourpeach.backend.repository.InventoryMovementRepository;
+import com.tanyourpeach.backend.repository.InventoryMovementRepository.ItemTail;
+import com.tanyourpeach.backend.repository.InventoryMovementRepository.MovementSum;
+import com.tanyourpeach.backend.repository.InventorySnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class InventoryLedgerTest {
+
+    @Mock
+    private InventoryMovementRepository movementRepository;
+
+    @Mock
+    private InventorySnapshotRepository snapshotRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private InventoryLedger ledger;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        // Run transactional callbacks inline
+        when(transactionTemplate.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void record_shouldInsertMovementRightAway() {
+        ledger.record(2L, InventoryMovement.Type.CONSUMPTION, -1, BigDecimal.ZERO, 7L, null);
+
+        ArgumentCaptor<InventoryMovement> captor = ArgumentCaptor.forClass(InventoryMovement.class);
+        verify(movementRepository).save(captor.capture());
+        assertEquals(2L, captor.getValue().getItemId());
+        assertEquals(-1, captor.getValue().getQuantityDelta());
+        assertEquals(7L, captor.getValue().getAppointmentId());
+        assertNotNull(captor.getValue().getCreatedAt());
+    }
+
+    @Test
+    void record_shouldDefaultMissingCostToZero() {
+        ledger.record(1L, InventoryMovement.Type.WRITE_OFF, -2, null, null, "Expired");
+
+        ArgumentCaptor<InventoryMovement> captor = ArgumentCaptor.forClass(InventoryMovement.class);
+        verify(movementRepository).save(captor.capture());
+        assertEquals(BigDecimal.ZERO, captor.getValue().getCostDelta());
+    }
+
+    @Test
+    void record_shouldSkipMovementsThatChangeNothing() {
+        ledger.record(1L, InventoryMovement.Type.ADJUSTMENT, 0, BigDecimal.ZERO, null, null);
+        ledger.record(1L, InventoryMovement.Type.ADJUSTMENT, 0, null, null, null);
+        ledger.record(null, InventoryMovement.Type.ADJUSTMENT, 1, null, null, null);
+
+        verifyNoInteractions(movementRepository);
+    }
+
+    @Test
+    void stockAt_shouldAddLedgerTailToLatestSnapshot() {
+        InventorySnapshot snapshot = new InventorySnapshot(1L, 10, new BigDecimal("40.00"), 100L, now.minusHours(1));
+        when(snapshotRepository.findFirstByItemIdAndAsOfLessThanEqualOrderByLastMovementIdDesc(1L, now))
+                .thenReturn(Optional.of(snapshot));
+        when(movementRepository.sumTail(1L, 100L, now)).thenReturn(sum(-3L, new BigDecimal("5.00")));
+
+        StockLevel level = ledger.stockAt(1L, now);
+
+        assertEquals(7, level.getQuantity());
+        assertEquals(new BigDecimal("45.00"), level.getTotalSpent());
+        assertEquals(now, level.getAsOf());
+    }
+
+    @Test
+    void stockAt_shouldReadWholeLedger_whenNoSnapshotYet() {
+        when(snapshotRepository.findFirstByItemIdAndAsOfLessThanEqualOrderByLastMovementIdDesc(1L, now))
+                .thenReturn(Optional.empty());
+        when(movementRepository.sumTail(1L, 0L, now)).thenReturn(sum(4L, BigDecimal.TEN));
+
+        StockLevel level = ledger.stockAt(1L, now);
+
+        assertEquals(4, level.getQuantity());
+        assertEquals(BigDecimal.TEN, level.getTotalSpent());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void compactSnapshots_shouldFoldTailsIntoNewSnapshots() {
+        when(snapshotRepository.findCompactedThrough()).thenReturn(100L);
+        when(movementRepository.sumTailsAfter(eq(100L), any())).thenReturn(List.of(
+                tail(1L, -2L, BigDecimal.ZERO, 120L),
+                tail(2L, 6L, new BigDecimal("12.00"), 130L)));
+        when(snapshotRepository.findLatestForItems(List.of(1L, 2L))).thenReturn(List.of(
+                new InventorySnapshot(1L, 10, new BigDecimal("40.00"), 90L, now.minusHours(2))));
+
+        assertEquals(2, ledger.compactSnapshots());
+
+        ArgumentCaptor<List<InventorySnapshot>> captor = ArgumentCaptor.forClass(List.class);
+        verify(snapshotRepository).saveAll(captor.capture());
+        InventorySnapshot first = captor.getValue().get(0);
+        assertEquals(8, first.getQuantity());
+        assertEquals(new BigDecimal("40.00"), first.getTotalSpent());
+        assertEquals(120L, first.getLastMovementId());
+        InventorySnapshot second = captor.getValue().get(1);
+        assertEquals(6, second.getQuantity()); // first snapshot of a new item
+        assertEquals(130L, second.getLastMovementId());
+    }
+
+    @Test
+    void compactSnapshots_shouldWriteNothing_whenLedgerUnchanged() {
+        when(snapshotRepository.findCompactedThrough()).thenReturn(100L);
+        when(movementRepository.sumTailsAfter(eq(100L), any())).thenReturn(List.of());
+
+        assertEquals(0, ledger.compactSnapshots());
+        verify(snapshotRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void compactSnapshots_shouldLeaveRecentMovementsForNextRun() {
+        when(snapshotRepository.findCompactedThrough()).thenReturn(100L);
+        when(movementRepository.sumTailsAfter(eq(100L), any())).thenReturn(List.of());
+
+        ledger.compactSnapshots();
+
+        // A transaction still in flight may hold lower ids than rows already committed
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(movementRepository).sumTailsAfter(eq(100L), cutoff.capture());
+        assertFalse(cutoff.getValue().isAfter(LocalDateTime.now().minus(InventoryLedger.COMPACTION_LAG)));
+    }
+
+    private MovementSum sum(Long quantity, BigDecimal cost) {
+        return new MovementSum() {
+            public Long getQuantity() { return quantity; }
+            public BigDecimal getCost() { return cost; }
+        };
+    }
+
+    private ItemTail tail(Long itemId, Long quantity, BigDecimal cost, Long lastMovementId) {
+        return new ItemTail() {
+            public Long getItemId() { return itemId; }
+            public Long getQuantity() { return quantity; }
+            public BigDecimal getCost() { return cost; }
+            public Long getLastMovementId() { return lastMovementId; }
+            public LocalDateTime getAsOf() { return now; }
+        };
+    }
+}
@@ -0,0 +1,229 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.BillOfMaterials;
+import com.tanyourpeach.backend.model.InventoryReservation;
+import com.tanyourpeach.backend.repository.InventoryReservationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class InventoryReservationServiceTest {
+
+    @Mock
+    private InventoryReservationRepository reservationRepository;
+
+    @Mock
+    private LowStockTracker lowStockTracker;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private InventoryReservationService reservationService;
+
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(reservationRepository.findAll()).thenReturn(List.of());
+        when(lowStockTracker.getQuantity(1L)).thenReturn(10);
+        when(lowStockTracker.getQuantity(2L)).thenReturn(4);
+        when(transactionTemplate.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reserve_shouldHoldUnits_whenAvailable() {
+        assertTrue(reservationService.reserve(7L, bom(1L, 3, 2L, 4), start));
+
+        assertEquals(3, reservationService.getReserved(1L));
+        assertEquals(7, reservationService.getAvailable(1L));
+        assertEquals(0, reservationService.getAvailable(2L));
+    }
+
+    @Test
+    void reserve_shouldFailWithoutHoldingAnything_whenAnyItemIsShort() {
+        assertTrue(reservationService.reserve(7L, bom(2L, 3), start));
+
+        assertFalse(reservationService.reserve(8L, bom(1L, 3, 2L, 2), start)); // only 1 of item 2 left
+
+        assertEquals(0, reservationService.getReserved(1L));
+        assertEquals(3, reservationService.getReserved(2L));
+    }
+
+    @Test
+    void reserve_shouldCountOwnReservation_whenReplacingIt() {
+        assertTrue(reservationService.reserve(7L, bom(2L, 4), start));
+
+        // All 4 units are held by appointment 7 itself, so it can move them to a new time
+        assertTrue(reservationService.reserve(7L, bom(2L, 4), start.plusHours(2)));
+        assertEquals(4, reservationService.getReserved(2L));
+    }
+
+    @Test
+    void reserve_shouldKeepCountersExact_whenSameAppointmentIsReplacedConcurrently() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            BillOfMaterials bom = i % 2 == 0 ? bom(1L, 1) : bom(2L, 2);
+            results.add(executor.submit(() -> {
+                go.await();
+                for (int j = 0; j < 2000; j++) {
+                    reservationService.reserve(7L, bom, start);
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        // Whichever call won last, the counters hold exactly its units and nothing of the replaced ones
+        long first = reservationService.getReserved(1L);
+        long second = reservationService.getReserved(2L);
+        assertTrue((first == 1 && second == 0) || (first == 0 && second == 2), first + " and " + second);
+    }
+
+    @Test
+    void reserve_shouldRestorePreviousReservation_whenTransactionRollsBack() {
+        assertTrue(reservationService.reserve(7L, bom(1L, 2), start));
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(reservationService.reserve(7L, bom(1L, 6, 2L, 1), start));
+        assertEquals(6, reservationService.getReserved(1L)); // held right away so concurrent bookings see it
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(2, reservationService.getReserved(1L));
+        assertEquals(0, reservationService.getReserved(2L));
+    }
+
+    @Test
+    void reserve_shouldNotWriteRows_whenTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        reservationService.reserve(7L, bom(1L, 2), start);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        reservationService.flush();
+
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void release_shouldWaitForCommit() {
+        reservationService.reserve(7L, bom(1L, 2), start);
+
+        TransactionSynchronizationManager.initSynchronization();
+        reservationService.release(7L);
+        assertEquals(2, reservationService.getReserved(1L));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertEquals(0, reservationService.getReserved(1L));
+    }
+
+    @Test
+    void releaseExpired_shouldOnlyReleasePastReservations() {
+        reservationService.reserve(7L, bom(1L, 2), LocalDateTime.now().minusMinutes(1));
+        reservationService.reserve(8L, bom(1L, 3), start);
+
+        assertEquals(1, reservationService.releaseExpired());
+        assertEquals(3, reservationService.getReserved(1L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_shouldWriteQueuedChangesInOrder() {
+        reservationService.reserve(7L, bom(1L, 2), start);
+        reservationService.reserve(8L, bom(2L, 1), start);
+        reservationService.release(7L);
+        reservationService.reserve(9L, bom(1L, 1), start);
+
+        reservationService.flush();
+
+        // Consecutive inserts go in one batch; a delete must land before any later insert
+        ArgumentCaptor<Iterable<InventoryReservation>> saved = ArgumentCaptor.forClass(Iterable.class);
+        ArgumentCaptor<Collection<Long>> deleted = ArgumentCaptor.forClass(Collection.class);
+        InOrder order = inOrder(reservationRepository);
+        order.verify(reservationRepository).saveAll(saved.capture());
+        order.verify(reservationRepository).deleteByAppointmentIds(deleted.capture());
+        order.verify(reservationRepository).saveAll(saved.capture());
+        assertEquals(2, count(saved.getAllValues().get(0)));
+        assertEquals(Set.of(7L), Set.copyOf(deleted.getValue()));
+        assertEquals(9L, saved.getAllValues().get(1).iterator().next().getAppointmentId());
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    void flush_shouldRequeue_whenWriteFails() {
+        reservationService.reserve(7L, bom(1L, 2), start);
+        when(reservationRepository.saveAll(any())).thenThrow(new RuntimeException("db down"));
+
+        assertThrows(RuntimeException.class, () -> reservationService.flush());
+
+        reset(reservationRepository);
+        reservationService.flush();
+        verify(reservationRepository).saveAll(any());
+    }
+
+    @Test
+    void getAvailable_shouldRebuildReservationsFromTable() {
+        when(reservationRepository.findAll()).thenReturn(List.of(
+                new InventoryReservation(7L, 1L, 2, start),
+                new InventoryReservation(8L, 1L, 3, start)));
+
+        assertEquals(5, reservationService.getAvailable(1L));
+        assertEquals(5, reservationService.getAvailable(1L));
+        verify(reservationRepository, times(1)).findAll();
+    }
+
+    private BillOfMaterials bom(long itemId, int quantity) {
+        return new BillOfMaterials(1L, new long[] {itemId}, new int[] {quantity});
+    }
+
+    private BillOfMaterials bom(long itemId, int quantity, long otherItemId, int otherQuantity) {
+        return new BillOfMaterials(1L, new long[] {itemId, otherItemId}, new int[] {quantity, otherQuantity});
+    }
+
+    private int count(Iterable<InventoryReservation> rows) {
+        List<InventoryReservation> list = new ArrayList<>();
+        rows.forEach(list::add);
+        return list.size();
+    }
+}
@@ -1,9 +1,13 @@
 package com.tanyourpeach.backend.service;
 
+import com.tanyourpeach.backend.dto.BillOfMaterials;
+import com.tanyourpeach.backend.exception.InsufficientInventoryException;
 import com.tanyourpeach.backend.model.FinancialLog;
 import com.tanyourpeach.backend.model.Inventory;
+import com.tanyourpeach.backend.model.InventoryMovement;
 import com.tanyourpeach.backend.repository.FinancialLogRepository;
 import com.tanyourpeach.backend.repository.InventoryRepository;
+import com.tanyourpeach.backend.repository.InventoryRepository.ItemVersion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -13,6 +17,7 @@ import org.mockito.MockitoAnnotations;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -26,6 +31,18 @@ class InventoryServiceTest {
     @Mock
     private FinancialLogRepository financialLogRepository;
 
+    @Mock
+    private FinancialTotalsService financialTotalsService;
+
+    @Mock
+    private InventoryLedger inventoryLedger;
+
+    @Mock
+    private LowStockTracker lowStockTracker;
+
+    @Mock
+    private InventoryForecastService inventoryForecastService;
+
     @InjectMocks
     private InventoryService inventoryService;
 
@@ -167,6 +184,24 @@ class InventoryServiceTest {
 
         assertTrue(result.isPresent());
         verify(financialLogRepository).save(any(FinancialLog.class));
+        verify(financialTotalsService).recordLog(any());
+        verify(inventoryLedger).record(1L, InventoryMovement.Type.RECEIPT, 5, new BigDecimal("10.0"), null, null);
+    }
+
+    @Test
+    void updateInventory_shouldRecordAdjustment_whenEditedByHand() {
+        Inventory updated = new Inventory();
+        updated.setItemName("Gloves");
+        updated.setQuantity(7);
+        updated.setTotalSpent(BigDecimal.valueOf(20.00));
+
+        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(inventoryRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        inventoryService.updateInventory(1L, updated);
+
+        verify(inventoryLedger).record(1L, InventoryMovement.Type.ADJUSTMENT, -3, BigDecimal.ZERO.setScale(1), null, "Manual edit");
+        verify(lowStockTracker).track(item); // threshold and quantity re-evaluated together
     }
 
     @Test
@@ -239,7 +274,10 @@ class InventoryServiceTest {
 
         assertTrue(result);
         verify(financialLogRepository).save(any(FinancialLog.class));
+        verify(financialTotalsService).recordLog(any());
         verify(inventoryRepository).deleteById(1L);
+        verify(inventoryLedger).record(eq(1L), eq(InventoryMovement.Type.WRITE_OFF), eq(-10), any(), any(), any());
+        verify(lowStockTracker).untrack(1L);
     }
 
     @Test
@@ -252,56 +290,140 @@ class InventoryServiceTest {
 
     @Test
     void deductQuantity_shouldSucceed_whenEnoughStock() {
-        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(item));
-        when(inventoryRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+        when(inventoryRepository.deductQuantity(1L, 5)).thenReturn(1);
+        when(inventoryRepository.findVersions(Set.of(1L))).thenReturn(List.of(version(1L, 4)));
 
         boolean result = inventoryService.deductQuantity(1L, 5);
 
         assertTrue(result);
-        assertEquals(5, item.getQuantity());
+        verify(inventoryRepository, never()).findById(any());
+        verify(inventoryRepository, never()).save(any());
+        verify(inventoryLedger).record(1L, InventoryMovement.Type.ADJUSTMENT, -5, BigDecimal.ZERO, null, "Manual deduction");
+        verify(lowStockTracker).adjust(1L, -5, 4); // tagged with the version the update produced
     }
 
     @Test
     void deductQuantity_shouldFail_whenNotEnoughStock() {
-        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(inventoryRepository.deductQuantity(1L, 20)).thenReturn(0); // quantity >= :amount did not match
 
         boolean result = inventoryService.deductQuantity(1L, 20);
         assertFalse(result);
+        verifyNoInteractions(inventoryLedger);
     }
 
     @Test
     void deductQuantity_shouldFail_whenItemNotFound() {
-        when(inventoryRepository.findById(999L)).thenReturn(Optional.empty());
+        when(inventoryRepository.deductQuantity(999L, 5)).thenReturn(0);
 
         boolean result = inventoryService.deductQuantity(999L, 5);
 
         assertFalse(result);
     }
 
+    @Test
+    void deductQuantity_shouldSkipQuery_whenAmountNotPositive() {
+        assertFalse(inventoryService.deductQuantity(1L, 0));
+        assertFalse(inventoryService.deductQuantity(1L, -3));
+        verify(inventoryRepository, never()).deductQuantity(any(), anyInt());
+    }
+
+    @Test
+    void deductForService_shouldSucceed_whenEveryItemDeducted() {
+        BillOfMaterials bom = new BillOfMaterials(5L, new long[] {1L, 2L}, new int[] {2, 1});
+        when(inventoryRepository.deductForService(bom)).thenReturn(2);
+        when(inventoryRepository.findVersions(Set.of(1L, 2L))).thenReturn(List.of(version(1L, 7), version(2L, 3)));
+
+        assertDoesNotThrow(() -> inventoryService.deductForService(bom, 42L));
+        verify(inventoryRepository).deductForService(bom); // one statement for the whole BOM
+        verify(inventoryRepository, never()).deductQuantity(any(), anyInt());
+        verify(inventoryLedger).record(1L, InventoryMovement.Type.CONSUMPTION, -2, BigDecimal.ZERO, 42L, null);
+        verify(inventoryLedger).record(2L, InventoryMovement.Type.CONSUMPTION, -1, BigDecimal.ZERO, 42L, null);
+        verify(lowStockTracker).adjust(1L, -2, 7);
+        verify(lowStockTracker).adjust(2L, -1, 3);
+    }
+
+    @Test
+    void deductForService_shouldThrow_whenAnyItemShort() {
+        BillOfMaterials bom = new BillOfMaterials(5L, new long[] {1L, 2L}, new int[] {2, 1});
+        when(inventoryRepository.deductForService(bom)).thenReturn(1);
+
+        assertThrows(InsufficientInventoryException.class, () -> inventoryService.deductForService(bom, 42L));
+        verifyNoInteractions(inventoryLedger);
+        verify(lowStockTracker, never()).adjust(any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void deductForService_shouldSkipQuery_whenServiceUsesNoInventory() {
+        inventoryService.deductForService(BillOfMaterials.empty(5L), 42L);
+
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void writeOff_shouldDeductAndRecord_whenEnoughStock() {
+        when(inventoryRepository.deductQuantity(1L, 3)).thenReturn(1);
+
+        assertTrue(inventoryService.writeOff(1L, 3, "Expired"));
+        verify(inventoryLedger).record(1L, InventoryMovement.Type.WRITE_OFF, -3, BigDecimal.ZERO, null, "Expired");
+    }
+
+    @Test
+    void writeOff_shouldFail_whenNotEnoughStock() {
+        when(inventoryRepository.deductQuantity(1L, 30)).thenReturn(0);
+
+        assertFalse(inventoryService.writeOff(1L, 30, null));
+        verifyNoInteractions(inventoryLedger);
+    }
+
+    @Test
+    void getStockLevel_shouldReturnEmpty_whenItemNotFound() {
+        when(inventoryRepository.existsById(9L)).thenReturn(false);
+
+        assertTrue(inventoryService.getStockLevel(9L, null).isEmpty());
+        verifyNoInteractions(inventoryLedger);
+    }
+
     @Test
     void addQuantityAndCost_shouldSucceed_whenValid() {
-        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(item));
-        when(inventoryRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+        when(inventoryRepository.addQuantityAndCost(1L, 5, new BigDecimal("10.00"))).thenReturn(1);
+        when(inventoryRepository.findVersions(Set.of(1L))).thenReturn(List.of(version(1L, 2)));
 
-        boolean result = inventoryService.addQuantityAndCost(1L, 5, BigDecimal.valueOf(2.00));
+        boolean result = inventoryService.addQuantityAndCost(1L, 5, new BigDecimal("2.00"));
 
         assertTrue(result);
-        assertEquals(15, item.getQuantity());
-        assertEquals(BigDecimal.valueOf(30.00), item.getTotalSpent());
+        verify(inventoryRepository).addQuantityAndCost(1L, 5, new BigDecimal("10.00"));
+        verify(inventoryRepository, never()).save(any());
+        verify(inventoryLedger).record(1L, InventoryMovement.Type.RECEIPT, 5, new BigDecimal("10.00"), null, null);
+        verify(lowStockTracker).adjust(1L, 5, 2);
     }
 
     @Test
     void addQuantityAndCost_shouldFail_whenInvalid() {
         boolean result = inventoryService.addQuantityAndCost(1L, 0, null);
         assertFalse(result);
+        verify(inventoryRepository, never()).addQuantityAndCost(any(), anyInt(), any());
     }
 
     @Test
     void addQuantityAndCost_shouldFail_whenItemNotFound() {
-        when(inventoryRepository.findById(999L)).thenReturn(Optional.empty());
+        when(inventoryRepository.addQuantityAndCost(eq(999L), anyInt(), any())).thenReturn(0);
 
         boolean result = inventoryService.addQuantityAndCost(999L, 5, BigDecimal.valueOf(2.00));
 
         assertFalse(result);
     }
-}
\ No newline at end of file
+
+    private ItemVersion version(Long itemId, long version) {
+        return new ItemVersion() {
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+        };
+    }
+}
@@ -1,5 +1,8 @@
 package com.tanyourpeach.backend.service;
 
+import com.tanyourpeach.backend.dto.AuthenticatedUser;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 
@@ -12,12 +15,14 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
 import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 class JwtAuthenticationFilterTest {
@@ -31,6 +36,9 @@ class JwtAuthenticationFilterTest {
     @Mock
     private CustomUserDetailsService userDetailsService;
 
+    @Mock
+    private TokenVersionCache tokenVersionCache;
+
     @Mock
     private FilterChain filterChain;
 
@@ -145,4 +153,63 @@ class JwtAuthenticationFilterTest {
         assertNull(SecurityContextHolder.getContext().getAuthentication());
         verify(filterChain).doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    @Test
+    void statelessMode_shouldAuthenticateFromClaims_withoutLoadingUser() throws Exception {
+        ReflectionTestUtils.setField(jwtFilter, "stateless", true);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer validtoken");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Claims claims = Jwts.claims().setSubject("admin@example.com");
+        claims.put("userId", 7);
+        claims.put("isAdmin", true);
+        claims.put("tokenVersion", 2);
+        when(jwtService.parseVerifiedClaims("validtoken")).thenReturn(claims);
+        when(tokenVersionCache.getTokenVersion("admin@example.com")).thenReturn(2);
+
+        jwtFilter.doFilterInternal(request, response, filterChain);
+
+        var auth = SecurityContextHolder.getContext().getAuthentication();
+        assertEquals("admin@example.com", auth.getName());
+        assertEquals(7L, ((AuthenticatedUser) auth.getPrincipal()).getUserId());
+        assertTrue(auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void statelessMode_shouldRejectToken_whenVersionRevoked() throws Exception {
+        ReflectionTestUtils.setField(jwtFilter, "stateless", true);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer oldtoken");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Claims claims = Jwts.claims().setSubject("user@example.com");
+        claims.put("isAdmin", true);
+        claims.put("tokenVersion", 1);
+        when(jwtService.parseVerifiedClaims("oldtoken")).thenReturn(claims);
+        when(tokenVersionCache.getTokenVersion("user@example.com")).thenReturn(2);
+
+        jwtFilter.doFilterInternal(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void statelessMode_shouldSkipAuthentication_whenSignatureInvalid() throws Exception {
+        ReflectionTestUtils.setField(jwtFilter, "stateless", true);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer forged");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(jwtService.parseVerifiedClaims("forged")).thenReturn(null);
+
+        jwtFilter.doFilterInternal(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(tokenVersionCache);
+        verify(filterChain).doFilter(request, response);
+    }
+}
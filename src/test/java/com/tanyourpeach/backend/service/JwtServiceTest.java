@@ -51,15 +51,18 @@ class JwtServiceTest {
     @Test
     void generateToken_shouldIncludeEmailAndAdminClaim() {
         User adminUser = new User();
+        adminUser.setUserId(7L);
         adminUser.setEmail("admin@example.com");
         adminUser.setIsAdmin(true);
 
         String token = jwtService.generateToken(adminUser);
         String email = jwtService.extractUsername(token);
         Boolean isAdmin = jwtService.extractClaim(token, claims -> claims.get("isAdmin", Boolean.class));
+        Long userId = jwtService.extractClaim(token, claims -> claims.get("userId", Long.class));
 
         assertEquals("admin@example.com", email);
         assertTrue(isAdmin);
+        assertEquals(7L, userId);
     }
 
     @Test
@@ -211,4 +214,37 @@ class JwtServiceTest {
 
         assertFalse(valid);
     }
-}
\ No newline at end of file
+
+    @Test
+    void generateToken_shouldIncludeTokenVersion() {
+        appUser.setTokenVersion(5);
+
+        String token = jwtService.generateToken(appUser);
+        Claims claims = jwtService.parseVerifiedClaims(token);
+
+        assertNotNull(claims);
+        assertEquals(5, claims.get("tokenVersion", Integer.class));
+    }
+
+    @Test
+    void parseVerifiedClaims_shouldReturnNull_whenSignatureInvalid() {
+        String token = Jwts.builder()
+                .setSubject("spoof@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60))
+                .signWith(Keys.secretKeyFor(SignatureAlgorithm.HS256), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertNull(jwtService.parseVerifiedClaims(token));
+    }
+
+    @Test
+    void parseVerifiedClaims_shouldReturnNull_whenExpired() {
+        String token = Jwts.builder()
+                .setSubject("user@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+
+        assertNull(jwtService.parseVerifiedClaims(token));
+    }
+}
@@ -0,0 +1,196 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.StockAlert;
+import com.tanyourpeach.backend.model.Inventory;
+import com.tanyourpeach.backend.repository.InventoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LowStockTrackerTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private StockAlertBroadcaster stockAlertBroadcaster;
+
+    @InjectMocks
+    private LowStockTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(inventoryRepository.findAll()).thenReturn(List.of(item(1L, 10, 5), item(2L, 3, 5), item(3L, 0, null)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void getLowStockIds_shouldSeedFromTableOnce_withoutAlerting() {
+        assertEquals(List.of(2L), tracker.getLowStockIds()); // no threshold means never low
+        assertEquals(List.of(2L), tracker.getLowStockIds());
+
+        verify(inventoryRepository, times(1)).findAll();
+        verifyNoInteractions(stockAlertBroadcaster);
+    }
+
+    @Test
+    void adjust_shouldAlertLow_whenQuantityDropsToThreshold() {
+        tracker.getLowStockIds();
+
+        tracker.adjust(1L, -4, 1);
+        verifyNoInteractions(stockAlertBroadcaster); // 6 is still above 5
+        tracker.adjust(1L, -1, 2);
+
+        StockAlert alert = capturedAlert();
+        assertEquals(StockAlert.Type.LOW, alert.getType());
+        assertEquals(1L, alert.getItemId());
+        assertEquals(5, alert.getQuantity());
+        assertEquals(List.of(2L, 1L), tracker.getLowStockIds());
+    }
+
+    @Test
+    void adjust_shouldAlertRestocked_whenQuantityRisesAboveThreshold() {
+        tracker.getLowStockIds();
+
+        tracker.adjust(2L, 10, 1);
+
+        assertEquals(StockAlert.Type.RESTOCKED, capturedAlert().getType());
+        assertTrue(tracker.getLowStockIds().isEmpty());
+    }
+
+    @Test
+    void adjust_shouldWaitForCommit_insideTransaction() {
+        tracker.getLowStockIds();
+
+        TransactionSynchronizationManager.initSynchronization();
+        tracker.adjust(1L, -8, 1);
+        assertEquals(List.of(2L), tracker.getLowStockIds());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(List.of(2L, 1L), tracker.getLowStockIds());
+    }
+
+    @Test
+    void getQuantity_shouldNotWaitForTheTrackerMonitor() throws Exception {
+        tracker.getLowStockIds();
+
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            synchronized (tracker) {
+                // A reload or commit hook holding the monitor must not stall availability checks
+                assertEquals(10, reader.submit(() -> tracker.getQuantity(1L)).get(1, TimeUnit.SECONDS));
+            }
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    @Test
+    void track_shouldAlert_whenThresholdRaisedAboveStock() {
+        tracker.getLowStockIds();
+
+        tracker.track(item(1L, 10, 12));
+
+        assertEquals(StockAlert.Type.LOW, capturedAlert().getType());
+        assertTrue(tracker.getLowStockIds().contains(1L));
+    }
+
+    @Test
+    void untrack_shouldDropDeletedItem() {
+        tracker.getLowStockIds();
+
+        tracker.untrack(2L);
+
+        assertTrue(tracker.getLowStockIds().isEmpty());
+        verifyNoInteractions(stockAlertBroadcaster);
+    }
+
+    @Test
+    void reload_shouldAnnounceCrossingsMadeOutsideTheApp() {
+        tracker.getLowStockIds();
+        when(inventoryRepository.findAll()).thenReturn(List.of(item(1L, 2, 5), item(2L, 3, 5)));
+
+        tracker.reload();
+
+        assertEquals(StockAlert.Type.LOW, capturedAlert().getType());
+        assertEquals(List.of(2L, 1L), tracker.getLowStockIds());
+    }
+
+    @Test
+    void adjust_shouldBeSkipped_whenReloadAlreadyReadTheChange() {
+        tracker.getLowStockIds();
+
+        // The deduction commits, then a reload reads the row before the deduction's hook runs
+        TransactionSynchronizationManager.initSynchronization();
+        tracker.adjust(1L, -4, 1);
+        when(inventoryRepository.findAll()).thenReturn(List.of(item(1L, 6, 5, 1L), item(2L, 3, 5), item(3L, 0, null)));
+        tracker.reload();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(6, tracker.getQuantity(1L));
+    }
+
+    @Test
+    void adjust_shouldApply_whenNewerThanTheReload() {
+        when(inventoryRepository.findAll()).thenReturn(List.of(item(1L, 6, 5, 1L)));
+        tracker.getLowStockIds();
+
+        tracker.adjust(1L, -2, 2);
+        tracker.adjust(1L, -4, 1); // already in the reload
+
+        assertEquals(4, tracker.getQuantity(1L));
+    }
+
+    @Test
+    void track_shouldIgnoreState_olderThanTheReload() {
+        when(inventoryRepository.findAll()).thenReturn(List.of(item(1L, 6, 5, 3L)));
+        tracker.getLowStockIds();
+
+        tracker.track(item(1L, 2, 5, 2L));
+
+        assertEquals(6, tracker.getQuantity(1L));
+        verifyNoInteractions(stockAlertBroadcaster);
+    }
+
+    private StockAlert capturedAlert() {
+        ArgumentCaptor<StockAlert> captor = ArgumentCaptor.forClass(StockAlert.class);
+        verify(stockAlertBroadcaster).send(captor.capture());
+        return captor.getValue();
+    }
+
+    private Inventory item(Long id, int quantity, Integer threshold) {
+        return item(id, quantity, threshold, null);
+    }
+
+    private Inventory item(Long id, int quantity, Integer threshold, Long version) {
+        Inventory item = new Inventory();
+        item.setVersion(version);
+        item.setItemId(id);
+        item.setItemName("Item " + id);
+        item.setQuantity(quantity);
+        item.setLowStockThreshold(threshold);
+        return item;
+    }
+}
@@ -0,0 +1,123 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.CacheStats;
+import com.tanyourpeach.backend.model.Availability;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenSlotCacheTest {
+
+    private AvailabilityVersions availabilityVersions;
+
+    private OpenSlotCache openSlotCache;
+
+    private final LocalDate date = LocalDate.of(2030, 6, 10);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Supplier<List<Availability>> loader = () -> {
+        loads.incrementAndGet();
+        return List.of(new Availability());
+    };
+
+    @BeforeEach
+    void setUp() {
+        availabilityVersions = new AvailabilityVersions();
+        openSlotCache = new OpenSlotCache();
+        ReflectionTestUtils.setField(openSlotCache, "availabilityVersions", availabilityVersions);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void getOpenSlots_shouldLoadOnce_thenHit() {
+        openSlotCache.getOpenSlots(date, loader);
+        openSlotCache.getOpenSlots(date, loader);
+        openSlotCache.getOpenSlots(date, loader);
+
+        assertEquals(1, loads.get());
+        CacheStats stats = openSlotCache.getStats();
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    void getOpenSlots_shouldReload_onlyTheBumpedDate() {
+        openSlotCache.getOpenSlots(date, loader);
+        openSlotCache.getOpenSlots(date.plusDays(1), loader);
+
+        availabilityVersions.bump(date);
+
+        openSlotCache.getOpenSlots(date, loader);
+        openSlotCache.getOpenSlots(date.plusDays(1), loader);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void getOpenSlots_shouldNotStore_whenDateChangesWhileLoading() {
+        openSlotCache.getOpenSlots(date, () -> {
+            availabilityVersions.bump(date); // a booking lands mid-load
+            return loader.get();
+        });
+        openSlotCache.getOpenSlots(date, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getOpenSlots_shouldBypassCache_whileWriteIsInFlight() {
+        openSlotCache.getOpenSlots(date, loader);
+
+        TransactionSynchronizationManager.initSynchronization();
+        availabilityVersions.bump(date); // booking transaction not yet complete
+
+        openSlotCache.getOpenSlots(date, loader);
+        openSlotCache.getOpenSlots(date, loader);
+        assertEquals(3, loads.get());
+        assertEquals(1, openSlotCache.getStats().getSize());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        openSlotCache.getOpenSlots(date, loader);
+        openSlotCache.getOpenSlots(date, loader);
+        assertEquals(4, loads.get()); // reloaded once after commit, then cached again
+    }
+
+    @Test
+    void getOpenSlots_shouldEvictLeastRecentlyUsed_whenFull() {
+        for (int i = 0; i < OpenSlotCache.MAX_ENTRIES; i++) {
+            openSlotCache.getOpenSlots(date.plusDays(i), loader);
+        }
+        openSlotCache.getOpenSlots(date, loader); // touch the oldest so it survives
+        openSlotCache.getOpenSlots(date.plusDays(OpenSlotCache.MAX_ENTRIES), loader);
+
+        CacheStats stats = openSlotCache.getStats();
+        assertEquals(OpenSlotCache.MAX_ENTRIES, stats.getSize());
+        assertEquals(1, stats.getEvictions());
+
+        int before = loads.get();
+        openSlotCache.getOpenSlots(date, loader);
+        assertEquals(before, loads.get());
+        openSlotCache.getOpenSlots(date.plusDays(1), loader); // the evicted one
+        assertEquals(before + 1, loads.get());
+    }
+}
@@ -31,6 +31,9 @@ class ServiceInventoryUsageServiceTest {
     @Mock
     private InventoryRepository inventoryRepository;
 
+    @Mock
+    private BillOfMaterialsCache billOfMaterialsCache;
+
     @InjectMocks
     private ServiceInventoryUsageService service;
 
@@ -84,6 +87,7 @@ class ServiceInventoryUsageServiceTest {
         Optional<ServiceInventoryUsage> result = service.createUsage(usage);
         assertTrue(result.isPresent());
         verify(usageRepository).save(any());
+        verify(billOfMaterialsCache).put(1L, 100L, 2);
     }
 
     @Test
@@ -170,6 +174,7 @@ class ServiceInventoryUsageServiceTest {
         Optional<ServiceInventoryUsage> result = service.updateQuantity(1L, 100L, 5);
         assertTrue(result.isPresent());
         assertEquals(5, result.get().getQuantityUsed());
+        verify(billOfMaterialsCache).put(1L, 100L, 5);
     }
 
     @Test
@@ -213,6 +218,7 @@ class ServiceInventoryUsageServiceTest {
         boolean result = service.deleteUsage(1L, 100L);
         assertTrue(result);
         verify(usageRepository).deleteById(key);
+        verify(billOfMaterialsCache).remove(1L, 100L);
     }
 
     @Test
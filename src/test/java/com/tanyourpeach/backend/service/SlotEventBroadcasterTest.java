@@ -0,0 +1,162 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.SlotEvent;
+import com.tanyourpeach.backend.model.Availability;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotEventBroadcasterTest {
+
+    private final LocalDate date = LocalDate.of(2030, 6, 10);
+
+    private RecordingEmitter nextEmitter;
+
+    private SlotEventBroadcaster broadcaster;
+
+    // Records the slot events written to it; can be made to block or fail
+    private static class RecordingEmitter extends SseEmitter {
+        final List<SlotEvent> received = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(0);
+        final CountDownLatch firstSend = new CountDownLatch(1);
+        volatile boolean fail;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            firstSend.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (fail) throw new IOException("client went away");
+            builder.build().stream()
+                .map(part -> part.getData())
+                .filter(SlotEvent.class::isInstance)
+                .forEach(data -> received.add((SlotEvent) data));
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new SlotEventBroadcaster() {
+            @Override
+            protected SseEmitter newEmitter() {
+                return nextEmitter;
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void publish_shouldOnlyReachSubscribersWatchingTheDate() throws Exception {
+        RecordingEmitter watching = subscribe(Set.of(date));
+        RecordingEmitter other = subscribe(Set.of(date.plusDays(1)));
+
+        broadcaster.publish(SlotEvent.Type.BOOKED, slot(1L, date));
+
+        awaitReceived(watching, 1);
+        assertEquals(SlotEvent.Type.BOOKED, watching.received.get(0).getType());
+        assertEquals(1L, watching.received.get(0).getSlotId());
+        Thread.sleep(50);
+        assertTrue(other.received.isEmpty());
+    }
+
+    @Test
+    void publish_shouldDropOldestEvents_whenSubscriberFallsBehind() throws Exception {
+        RecordingEmitter slow = subscribe(Set.of(date));
+        slow.release = new CountDownLatch(1);
+
+        broadcaster.publish(SlotEvent.Type.CREATED, slot(0L, date));
+        assertTrue(slow.firstSend.await(5, TimeUnit.SECONDS)); // dispatcher is now stuck on event 0
+        int extra = 10;
+        for (long id = 1; id <= SlotEventBroadcaster.BUFFER_SIZE + extra; id++) {
+            broadcaster.publish(SlotEvent.Type.CREATED, slot(id, date));
+        }
+        slow.release.countDown();
+
+        awaitReceived(slow, 1 + SlotEventBroadcaster.BUFFER_SIZE);
+        assertEquals(0L, slow.received.get(0).getSlotId());
+        assertEquals(1L + extra, slow.received.get(1).getSlotId()); // events 1..extra were dropped
+        assertEquals((long) SlotEventBroadcaster.BUFFER_SIZE + extra, slow.received.get(SlotEventBroadcaster.BUFFER_SIZE).getSlotId());
+    }
+
+    @Test
+    void publish_shouldRemoveSubscriber_whenSendFails() throws Exception {
+        RecordingEmitter broken = subscribe(Set.of(date));
+        broken.fail = true;
+
+        broadcaster.publish(SlotEvent.Type.DELETED, slot(1L, date));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (broadcaster.subscriberCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void publish_shouldWaitForCommit_insideTransaction() throws Exception {
+        RecordingEmitter watching = subscribe(Set.of(date));
+
+        TransactionSynchronizationManager.initSynchronization();
+        broadcaster.publish(SlotEvent.Type.BOOKED, slot(1L, date));
+        Thread.sleep(50);
+        assertTrue(watching.received.isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        awaitReceived(watching, 1);
+    }
+
+    @Test
+    void subscribe_shouldReturnNull_whenAtSubscriberLimit() {
+        for (int i = 0; i < SlotEventBroadcaster.MAX_SUBSCRIBERS; i++) {
+            assertNotNull(subscribe(Set.of(date)));
+        }
+        nextEmitter = new RecordingEmitter();
+        assertNull(broadcaster.subscribe(Set.of(date)));
+    }
+
+    private RecordingEmitter subscribe(Set<LocalDate> dates) {
+        nextEmitter = new RecordingEmitter();
+        return broadcaster.subscribe(dates) == null ? null : nextEmitter;
+    }
+
+    private void awaitReceived(RecordingEmitter emitter, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (emitter.received.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, emitter.received.size());
+    }
+
+    private Availability slot(Long id, LocalDate date) {
+        Availability slot = new Availability();
+        slot.setSlotId(id);
+        slot.setDate(date);
+        slot.setStartTime(LocalTime.of(10, 0));
+        slot.setEndTime(LocalTime.of(11, 0));
+        return slot;
+    }
+}
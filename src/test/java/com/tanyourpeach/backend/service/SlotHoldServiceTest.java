@@ -0,0 +1,130 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.dto.SlotHold;
+import com.tanyourpeach.backend.model.Availability;
+import com.tanyourpeach.backend.repository.AvailabilityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class SlotHoldServiceTest {
+
+    @Mock
+    private AvailabilityRepository availabilityRepository;
+
+    @InjectMocks
+    private SlotHoldService slotHoldService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(availabilityRepository.placeHold(any(), anyString(), any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void placeHold_shouldReturnTokenAndExpiry() {
+        Optional<SlotHold> hold = slotHoldService.placeHold(1L);
+
+        assertTrue(hold.isPresent());
+        assertEquals(1L, hold.get().getSlotId());
+        assertNotNull(hold.get().getToken());
+        verify(availabilityRepository).placeHold(eq(1L), eq(hold.get().getToken()), eq(hold.get().getExpiresAt()), any());
+        assertEquals(1, slotHoldService.activeHolds());
+    }
+
+    @Test
+    void placeHold_shouldRejectSecondHold_withoutQuery() {
+        slotHoldService.placeHold(1L);
+
+        assertTrue(slotHoldService.placeHold(1L).isEmpty());
+        verify(availabilityRepository, times(1)).placeHold(any(), anyString(), any(), any());
+    }
+
+    @Test
+    void placeHold_shouldFail_whenDatabaseRefuses() {
+        when(availabilityRepository.placeHold(eq(2L), anyString(), any(), any())).thenReturn(0);
+
+        assertTrue(slotHoldService.placeHold(2L).isEmpty());
+        assertEquals(0, slotHoldService.activeHolds());
+    }
+
+    @Test
+    void releaseHold_shouldOnlyAcceptTheHoldersToken() {
+        SlotHold hold = slotHoldService.placeHold(1L).orElseThrow();
+        when(availabilityRepository.releaseHold(1L, hold.getToken())).thenReturn(1);
+
+        assertFalse(slotHoldService.releaseHold(1L, "someone-else"));
+        assertTrue(slotHoldService.releaseHold(1L, hold.getToken()));
+        assertEquals(0, slotHoldService.activeHolds());
+    }
+
+    @Test
+    void claim_shouldBookSlot_andForgetTheLocalHold() {
+        SlotHold hold = slotHoldService.placeHold(1L).orElseThrow();
+        Availability slot = new Availability();
+        slot.setSlotId(1L);
+        when(availabilityRepository.claimSlot(eq(1L), eq(hold.getToken()), any())).thenReturn(1);
+        when(availabilityRepository.findById(1L)).thenReturn(Optional.of(slot));
+
+        assertEquals(Optional.of(slot), slotHoldService.claim(1L, hold.getToken()));
+        assertEquals(0, slotHoldService.activeHolds());
+    }
+
+    @Test
+    void claim_shouldReturnEmpty_andKeepTheHold_whenDatabaseRefuses() {
+        slotHoldService.placeHold(1L);
+        when(availabilityRepository.claimSlot(eq(1L), isNull(), any())).thenReturn(0);
+
+        assertTrue(slotHoldService.claim(1L, null).isEmpty());
+        verify(availabilityRepository, never()).findById(any());
+        assertEquals(1, slotHoldService.activeHolds());
+    }
+
+    @Test
+    void unclaim_shouldFreeTheSlot() {
+        slotHoldService.unclaim(1L);
+
+        verify(availabilityRepository).releaseClaim(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void expireDue_shouldClearLapsedHoldsInOneBatch() {
+        slotHoldService.placeHold(1L);
+        slotHoldService.placeHold(2L);
+        long now = System.currentTimeMillis();
+
+        slotHoldService.expireDue(now + SlotHoldService.HOLD_TTL_MS / 2);
+        verify(availabilityRepository, never()).clearExpiredHolds(any(), any());
+
+        slotHoldService.expireDue(now + SlotHoldService.HOLD_TTL_MS + 2 * SlotHoldService.TICK_MS);
+
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(availabilityRepository, times(1)).clearExpiredHolds(ids.capture(), any());
+        assertEquals(2, ids.getValue().size());
+        assertTrue(ids.getValue().containsAll(List.of(1L, 2L)));
+        assertEquals(0, slotHoldService.activeHolds());
+    }
+
+    @Test
+    void expireDue_shouldSkipHoldsAlreadyBooked() {
+        slotHoldService.placeHold(1L);
+        slotHoldService.forget(1L);
+
+        slotHoldService.expireDue(System.currentTimeMillis() + SlotHoldService.HOLD_TTL_MS + 2 * SlotHoldService.TICK_MS);
+        verify(availabilityRepository, never()).clearExpiredHolds(any(), any());
+    }
+}
@@ -0,0 +1,79 @@
+package com.tanyourpeach.backend.service;
+
+import com.tanyourpeach.backend.model.User;
+import com.tanyourpeach.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenVersionCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private TokenVersionCache tokenVersionCache;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        testUser = new User();
+        testUser.setEmail("brenna@example.com");
+        testUser.setTokenVersion(2);
+    }
+
+    @Test
+    void getTokenVersion_shouldLoadOnce_thenServeFromCache() {
+        when(userRepository.findByEmail("brenna@example.com")).thenReturn(Optional.of(testUser));
+
+        assertEquals(2, tokenVersionCache.getTokenVersion("brenna@example.com"));
+        assertEquals(2, tokenVersionCache.getTokenVersion("Brenna@Example.com"));
+
+        verify(userRepository, times(1)).findByEmail("brenna@example.com");
+    }
+
+    @Test
+    void getTokenVersion_shouldReturnNull_whenUserMissing() {
+        when(userRepository.findByEmail("ghost@example.com")).thenReturn(Optional.empty());
+
+        assertNull(tokenVersionCache.getTokenVersion("ghost@example.com"));
+    }
+
+    @Test
+    void getTokenVersion_shouldCacheMiss_untilEvicted() {
+        when(userRepository.findByEmail("ghost@example.com")).thenReturn(Optional.empty());
+
+        assertNull(tokenVersionCache.getTokenVersion("ghost@example.com"));
+        assertNull(tokenVersionCache.getTokenVersion("ghost@example.com"));
+        verify(userRepository, times(1)).findByEmail("ghost@example.com");
+
+        // Registered since the miss
+        testUser.setTokenVersion(0);
+        when(userRepository.findByEmail("ghost@example.com")).thenReturn(Optional.of(testUser));
+        tokenVersionCache.evict("ghost@example.com");
+
+        assertEquals(0, tokenVersionCache.getTokenVersion("ghost@example.com"));
+    }
+
+    @Test
+    void evict_shouldReloadCurrentVersion() {
+        when(userRepository.findByEmail("brenna@example.com")).thenReturn(Optional.of(testUser));
+        tokenVersionCache.getTokenVersion("brenna@example.com");
+
+        testUser.setTokenVersion(3);
+        tokenVersionCache.evict("brenna@example.com");
+
+        assertEquals(3, tokenVersionCache.getTokenVersion("brenna@example.com"));
+        verify(userRepository, times(2)).findByEmail("brenna@example.com");
+    }
+}
@@ -29,6 +29,9 @@ class UserAuthServiceTest {
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private TokenVersionCache tokenVersionCache;
+
     @Mock
     private PasswordEncoder passwordEncoder;
 
@@ -89,6 +92,22 @@ class UserAuthServiceTest {
         assertEquals("jwt", response.getToken());
     }
 
+    @Test
+    void register_shouldEvictCachedMiss_forNewEmail() {
+        RegisterRequest request = new RegisterRequest();
+        request.setName("New");
+        request.setEmail("new@example.com");
+        request.setPassword("plain");
+        request.setAddress("123 Address St");
+
+        when(passwordEncoder.encode("plain")).thenReturn("hashed");
+        when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        userAuthService.register(request);
+
+        verify(tokenVersionCache).evict("new@example.com");
+    }
+
     @Test
     void register_shouldHandleDuplicateEmail() {
         RegisterRequest request = new RegisterRequest();
@@ -21,6 +21,9 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private TokenVersionCache tokenVersionCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -67,6 +70,7 @@ class UserServiceTest {
         User result = userService.createUser(testUser);
         assertNotNull(result);
         assertEquals("brenna@example.com", result.getEmail());
+        verify(tokenVersionCache).evict("brenna@example.com"); // drops a cached miss for the new email
     }
 
     @Test
@@ -125,6 +129,49 @@ class UserServiceTest {
         assertTrue(result.get().getIsAdmin()); // ✅ Now should pass
     }
 
+    @Test
+    void updateUser_shouldBumpTokenVersion_whenPasswordOrRoleChanges() {
+        testUser.setTokenVersion(3);
+
+        User updated = new User();
+        updated.setName("Brenna");
+        updated.setEmail("brenna@example.com");
+        updated.setPasswordHash("new_hash");
+        updated.setIsAdmin(false);
+
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Optional<User> result = userService.updateUser(1L, updated);
+
+        assertTrue(result.isPresent());
+        assertEquals(4, result.get().getTokenVersion());
+        verify(tokenVersionCache, atLeastOnce()).evict("brenna@example.com");
+    }
+
+    @Test
+    void updateUser_shouldKeepTokenVersion_whenOnlyProfileChanges() {
+        testUser.setTokenVersion(3);
+
+        User updated = new User();
+        updated.setName("Brenna H");
+        updated.setEmail("brenna@example.com");
+        updated.setPasswordHash("hashed_pw");
+        updated.setAddress("New Address");
+        updated.setIsAdmin(false);
+
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Optional<User> result = userService.updateUser(1L, updated);
+
+        assertTrue(result.isPresent());
+        assertEquals(3, result.get().getTokenVersion());
+        verify(tokenVersionCache, never()).evict(any());
+    }
+
     @Test
     void updateUser_shouldReturnEmpty_whenNotFound() {
         when(userRepository.findById(99L)).thenReturn(Optional.empty());
@@ -180,15 +227,16 @@ class UserServiceTest {
 
     @Test
     void deleteUser_shouldReturnTrue_whenExists() {
-        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
         boolean deleted = userService.deleteUser(1L);
         assertTrue(deleted);
         verify(userRepository).deleteById(1L);
+        verify(tokenVersionCache).evict("brenna@example.com");
     }
 
     @Test
     void deleteUser_shouldReturnFalse_whenNotFound() {
-        when(userRepository.existsById(999L)).thenReturn(false);
+        when(userRepository.findById(999L)).thenReturn(Optional.empty());
         boolean deleted = userService.deleteUser(999L);
         assertFalse(deleted);
         verify(userRepository, never()).deleteById(anyLong());
@@ -0,0 +1,35 @@
+package com.tanyourpeach.backend.util;
+
+import com.tanyourpeach.backend.dto.AuthenticatedUser;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+// Lets plain Mockito controller tests exercise @PreAuthorize without starting a Spring context
+public final class MethodSecurityTestHelper {
+
+    private MethodSecurityTestHelper() {
+    }
+
+    // Wrap a controller in the same @PreAuthorize interceptor that @EnableMethodSecurity installs
+    @SuppressWarnings("unchecked")
+    public static <T> T withMethodSecurity(T target) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAdvisor(AuthorizationManagerBeforeMethodInterceptor.preAuthorize());
+        return (T) factory.getProxy();
+    }
+
+    // Put the principal JwtAuthenticationFilter would build into the security context
+    public static AuthenticatedUser authenticateAs(String email, boolean isAdmin) {
+        AuthenticatedUser principal = new AuthenticatedUser(email, isAdmin);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        return principal;
+    }
+
+    public static void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+}